@@ -29,11 +29,16 @@
   const peerConnections = new Map();
   const remoteAudios = new Map();
   let lastNearby = [];
+  // Estado do nearby montado a partir de 'nearby' (lista completa) e 'nearby-diff'
+  const nearbyById = new Map();
+  let nearbyRetryTimer = null;
   const errorLog = [];
   const MAX_ERRORS = 10;
   let pttActive = false;
   const nearbySeenAt = new Map();
   const pendingIceByPeer = new Map(); // id -> [candidates] (ICE que chega antes do offer)
+  // Modo de mixagem no servidor (relay do plugin com voice.mix.enabled): um stream só, sem WebRTC
+  let mix = null;
 
   const WS_URL = (location.protocol === 'https:' ? 'wss:' : 'ws:') + '//' + location.host;
   const PTT_KEY = 'v';
@@ -302,7 +307,135 @@
     }
   }
 
+  /**
+   * Modo de mixagem: manda o microfone em quadros mono (PCM 16 bits ou IMA ADPCM, conforme o
+   * codec do servidor) enquanto o PTT está ativo e toca o quadro estéreo mixado que o servidor
+   * devolve, enfileirado com ~60ms de folga.
+   */
+  function startMix(info) {
+    if (mix || !localStream || (info.codec !== 'pcm16' && info.codec !== 'adpcm')) return;
+    const ctx = new (window.AudioContext || window.webkitAudioContext)({ sampleRate: info.sampleRate });
+    const source = ctx.createMediaStreamSource(localStream);
+    const processor = ctx.createScriptProcessor(1024, 1, 1);
+    const frame = new Int16Array(info.frameSamples);
+    const adpcm = info.codec === 'adpcm' ? { predictor: 0, index: 0 } : null;
+    let fill = 0;
+    processor.onaudioprocess = (e) => {
+      const input = e.inputBuffer.getChannelData(0);
+      for (let i = 0; i < input.length; i++) {
+        frame[fill++] = Math.max(-1, Math.min(1, input[i])) * 32767;
+        if (fill === frame.length) {
+          fill = 0;
+          if (pttActive && ws && ws.readyState === 1) {
+            ws.send(adpcm ? adpcmEncode(adpcm, frame) : frame.buffer.slice(0));
+          }
+        }
+      }
+    };
+    source.connect(processor);
+    // ScriptProcessor só roda conectado; a saída dele fica em silêncio
+    processor.connect(ctx.destination);
+    mix = { ctx, source, processor, adpcm: adpcm !== null, playAt: 0 };
+  }
+
+  function playMixed(data) {
+    if (!mix) return;
+    let left;
+    let right;
+    if (mix.adpcm) {
+      // bloco da esquerda e depois o da direita, cada um com o seu cabeçalho
+      const half = data.byteLength >> 1;
+      left = adpcmDecode(new Uint8Array(data, 0, half));
+      right = adpcmDecode(new Uint8Array(data, half, half));
+    } else {
+      const pcm = new Int16Array(data);
+      left = new Float32Array(pcm.length >> 1);
+      right = new Float32Array(pcm.length >> 1);
+      for (let i = 0; i < left.length; i++) {
+        left[i] = pcm[2 * i] / 32768;
+        right[i] = pcm[2 * i + 1] / 32768;
+      }
+    }
+    const n = Math.min(left.length, right.length);
+    if (n === 0) return;
+    const buffer = mix.ctx.createBuffer(2, n, mix.ctx.sampleRate);
+    buffer.getChannelData(0).set(left.subarray(0, n));
+    buffer.getChannelData(1).set(right.subarray(0, n));
+    const node = mix.ctx.createBufferSource();
+    node.buffer = buffer;
+    node.connect(mix.ctx.destination);
+    const now = mix.ctx.currentTime;
+    if (mix.playAt < now) mix.playAt = now + 0.06;
+    node.start(mix.playAt);
+    mix.playAt += n / mix.ctx.sampleRate;
+  }
+
+  // IMA ADPCM, igual ao ImaAdpcmCodec do plugin: cabeçalho de 4 bytes (preditor int16 LE,
+  // índice do passo, zero) e depois duas amostras por byte, nibble baixo primeiro
+  const ADPCM_INDEX = [-1, -1, -1, -1, 2, 4, 6, 8];
+  const ADPCM_STEP = [
+    7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+    50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+    337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+    2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899,
+    15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+  ];
+
+  function adpcmStep(state, nibble) {
+    const step = ADPCM_STEP[state.index];
+    let diff = step >> 3;
+    if (nibble & 4) diff += step;
+    if (nibble & 2) diff += step >> 1;
+    if (nibble & 1) diff += step >> 2;
+    state.predictor = Math.max(-32768, Math.min(32767, (nibble & 8) ? state.predictor - diff : state.predictor + diff));
+    state.index = Math.max(0, Math.min(ADPCM_STEP.length - 1, state.index + ADPCM_INDEX[nibble & 7]));
+  }
+
+  function adpcmEncode(state, pcm) {
+    const samples = pcm.length & ~1;
+    const out = new Uint8Array(4 + samples / 2);
+    out[0] = state.predictor & 0xff;
+    out[1] = (state.predictor >> 8) & 0xff;
+    out[2] = state.index;
+    for (let i = 0; i < samples; i++) {
+      const step = ADPCM_STEP[state.index];
+      let delta = pcm[i] - state.predictor;
+      let nibble = 0;
+      if (delta < 0) {
+        nibble = 8;
+        delta = -delta;
+      }
+      if (delta >= step) { nibble |= 4; delta -= step; }
+      if (delta >= step >> 1) { nibble |= 2; delta -= step >> 1; }
+      if (delta >= step >> 2) nibble |= 1;
+      adpcmStep(state, nibble);
+      out[4 + (i >> 1)] |= (i & 1) ? nibble << 4 : nibble;
+    }
+    return out.buffer;
+  }
+
+  function adpcmDecode(bytes) {
+    if (bytes.length <= 4 || bytes[2] >= ADPCM_STEP.length) return new Float32Array(0);
+    const state = { predictor: (bytes[1] << 24 >> 16) | bytes[0], index: bytes[2] };
+    const out = new Float32Array((bytes.length - 4) * 2);
+    for (let i = 0; i < out.length; i++) {
+      const b = bytes[4 + (i >> 1)];
+      adpcmStep(state, (i & 1) ? b >> 4 : b & 0x0f);
+      out[i] = state.predictor / 32768;
+    }
+    return out;
+  }
+
+  function stopMix() {
+    if (!mix) return;
+    mix.processor.disconnect();
+    mix.source.disconnect();
+    mix.ctx.close().catch(() => {});
+    mix = null;
+  }
+
   async function connectToNearby(nearby) {
+    if (mix) return;
     if (!nearby || nearby.length === 0 || !myPlayerId) return;
     if (!localStream) await initMicrophone();
 
@@ -363,6 +496,7 @@
 
     try {
       ws = new WebSocket(WS_URL);
+      ws.binaryType = 'arraybuffer';
 
       ws.onopen = () => {
         // setTimeout evita "Still in CONNECTING state" em alguns navegadores
@@ -378,6 +512,11 @@
           }
         }, 0);
         setStatus('Conectado! Aguardando jogadores próximos...');
+        // O backend só manda diffs; reavalia as conexões pendentes (fallback de 3s do offer)
+        clearInterval(nearbyRetryTimer);
+        nearbyRetryTimer = setInterval(() => {
+          if (lastNearby.length > 0) connectToNearby(lastNearby);
+        }, 1000);
         btnConnect.style.display = 'none';
         btnDisconnect.style.display = 'block';
         btnPTT.disabled = false;
@@ -385,11 +524,16 @@
       };
 
       ws.onmessage = (e) => {
+        if (typeof e.data !== 'string') {
+          playMixed(e.data);
+          return;
+        }
         try {
           const msg = JSON.parse(e.data);
           switch (msg.type) {
             case 'joined':
               myPlayerId = playerId;
+              if (msg.mix) startMix(msg.mix);
               const db = msg.debug || {};
               if (db.hasPosition) {
                 setStatus('Conectado! Posição detectada. ' + (db.totalPlayers || 0) + ' jogador(es) no servidor.');
@@ -401,20 +545,34 @@
               }
               break;
             case 'nearby':
-              updateNearby(msg.players);
-              connectToNearby(msg.players);
-              if (msg.players && msg.players.length > 0) {
+            case 'nearby-diff': {
+              if (msg.type === 'nearby') {
+                nearbyById.clear();
+                for (const p of msg.players || []) nearbyById.set(p.id, p);
+              } else {
+                for (const p of msg.enter || []) nearbyById.set(p.id, p);
+                for (const id of msg.leave || []) nearbyById.delete(id);
+                for (const u of msg.volume || []) {
+                  const p = nearbyById.get(u.id);
+                  if (p) Object.assign(p, u);
+                }
+              }
+              const players = [...nearbyById.values()];
+              updateNearby(players);
+              connectToNearby(players);
+              if (players.length > 0) {
                 const connCount = [...peerConnections.values()].filter(pc => pc.connectionState === 'connected').length;
                 if (connCount > 0) {
-                  setStatus('Conectado. ' + msg.players.length + ' jogador(es) próximo(s) - voz ativa.');
+                  setStatus('Conectado. ' + players.length + ' jogador(es) próximo(s) - voz ativa.');
                 } else {
-                  setStatus('Conectado. ' + msg.players.length + ' jogador próximo(s). O outro jogador precisa ter o cliente web aberto e conectado.');
+                  setStatus('Conectado. ' + players.length + ' jogador próximo(s). O outro jogador precisa ter o cliente web aberto e conectado.');
                 }
               } else if (msg.debug && !msg.debug.hasPosition) {
                 const url = location.origin + '/status';
                 setStatus('Posição não detectada. Abra ' + url + ' para ver os IDs que o backend recebeu.');
               }
               break;
+            }
             case 'speaking':
               break;
             case 'webrtc-offer':
@@ -437,6 +595,10 @@
 
       ws.onclose = () => {
         myPlayerId = null;
+        stopMix();
+        clearInterval(nearbyRetryTimer);
+        nearbyRetryTimer = null;
+        nearbyById.clear();
         nearbySeenAt.clear();
         pendingIceByPeer.clear();
         setPTT(false);
@@ -0,0 +1,126 @@
+/**
+ * Gerador de carga local para o backend.
+ * Simula o plugin (POST /positions com keyframe + deltas) e centenas de clientes de voz
+ * via WebSocket, e mede mensagens/bytes recebidos pelos clientes e latência dos POSTs.
+ *
+ * Uso: node scripts/loadgen.js [--url http://localhost:25566] [--players 500] [--clients 300]
+ *                              [--interval 100] [--duration 30] [--area 512] [--moving 0.5]
+ */
+
+import WebSocket from 'ws';
+
+const args = Object.fromEntries(
+  process.argv.slice(2).reduce((acc, arg, i, all) => {
+    if (arg.startsWith('--')) acc.push([arg.slice(2), all[i + 1]]);
+    return acc;
+  }, []),
+);
+const URL_BASE = (args.url || 'http://localhost:25566').replace(/\/$/, '');
+const PLAYERS = parseInt(args.players || '500', 10);
+const CLIENTS = Math.min(PLAYERS, parseInt(args.clients || '300', 10));
+const INTERVAL_MS = parseInt(args.interval || '100', 10);
+const DURATION_S = parseInt(args.duration || '30', 10);
+const AREA = parseFloat(args.area || '512');
+const MOVING = parseFloat(args.moving || '0.5');
+const KEYFRAME_EVERY = 50;
+
+function uuid(i) {
+  const hex = i.toString(16).padStart(12, '0');
+  return `00000000-0000-4000-8000-${hex}`;
+}
+
+const players = Array.from({ length: PLAYERS }, (_, i) => ({
+  playerId: uuid(i),
+  username: `bot${i}`,
+  x: Math.random() * AREA,
+  y: 64,
+  z: Math.random() * AREA,
+  worldId: 'loadgen-world',
+}));
+
+// Métricas
+const stats = { posts: 0, postErrors: 0, postLatencies: [], messages: 0, bytes: 0, full: 0, diffs: 0 };
+
+let seq = 0;
+async function postPositions() {
+  seq++;
+  const keyframe = seq === 1 || seq % KEYFRAME_EVERY === 0;
+  const moved = [];
+  for (const p of players) {
+    if (Math.random() >= MOVING) continue;
+    p.x += (Math.random() - 0.5);
+    p.z += (Math.random() - 0.5);
+    moved.push(p);
+  }
+  const body = JSON.stringify({
+    type: keyframe ? 'full' : 'delta',
+    seq,
+    players: (keyframe ? players : moved).map(p => ({ playerId: p.playerId, username: p.username, x: p.x, y: p.y, z: p.z, worldId: p.worldId })),
+  });
+  const start = performance.now();
+  try {
+    const res = await fetch(`${URL_BASE}/positions`, { method: 'POST', headers: { 'Content-Type': 'application/json' }, body });
+    const data = await res.json();
+    stats.posts++;
+    stats.postLatencies.push(performance.now() - start);
+    if (data.resync) seq = 0; // próximo envio vira keyframe
+  } catch {
+    stats.postErrors++;
+  }
+}
+
+const sockets = [];
+function connectClient(i) {
+  const ws = new WebSocket(URL_BASE.replace(/^http/, 'ws'));
+  ws.on('open', () => ws.send(JSON.stringify({ type: 'join', playerId: players[i].playerId, username: players[i].username, radius: 32 })));
+  ws.on('message', (raw) => {
+    stats.messages++;
+    stats.bytes += raw.length;
+    const type = JSON.parse(raw.toString()).type;
+    if (type === 'nearby') stats.full++;
+    else if (type === 'nearby-diff') stats.diffs++;
+  });
+  ws.on('error', () => {});
+  sockets.push(ws);
+}
+
+function percentile(values, p) {
+  if (values.length === 0) return 0;
+  const sorted = [...values].sort((a, b) => a - b);
+  return sorted[Math.min(sorted.length - 1, Math.ceil(p / 100 * sorted.length) - 1)];
+}
+
+function report(elapsedS) {
+  const lat = stats.postLatencies;
+  console.log(
+    `[${elapsedS}s] posts=${stats.posts} (erros ${stats.postErrors}) ` +
+    `post p50=${percentile(lat, 50).toFixed(1)}ms p99=${percentile(lat, 99).toFixed(1)}ms | ` +
+    `clientes: ${stats.messages} msgs (${stats.full} nearby, ${stats.diffs} diffs), ` +
+    `${(stats.bytes / 1024).toFixed(0)} KB`,
+  );
+  stats.posts = 0; stats.postErrors = 0; stats.postLatencies = [];
+  stats.messages = 0; stats.bytes = 0; stats.full = 0; stats.diffs = 0;
+}
+
+console.log(`loadgen: ${PLAYERS} jogadores, ${CLIENTS} clientes, POST a cada ${INTERVAL_MS}ms por ${DURATION_S}s em ${URL_BASE}`);
+await postPositions();
+for (let i = 0; i < CLIENTS; i++) connectClient(i);
+
+const started = Date.now();
+let postBusy = false;
+const postTimer = setInterval(async () => {
+  if (postBusy) return; // o plugin também não empilha envios
+  postBusy = true;
+  await postPositions();
+  postBusy = false;
+}, INTERVAL_MS);
+let second = 0;
+const reportTimer = setInterval(() => report(++second), 1000);
+
+setTimeout(() => {
+  clearInterval(postTimer);
+  clearInterval(reportTimer);
+  for (const ws of sockets) ws.close();
+  console.log(`fim após ${((Date.now() - started) / 1000).toFixed(0)}s`);
+  setTimeout(() => process.exit(0), 200);
+}, DURATION_S * 1000);
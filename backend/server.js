@@ -16,34 +16,324 @@ const PORT = parseInt(process.env.PORT || '25566', 10);
 // Posições enviadas pelo plugin (playerId -> { x, y, z, worldId, username })
 const serverPositions = new Map();
 
-// Clientes conectados (playerId -> { ws, username })
+// Clientes conectados (playerId -> { ws, username, radius, sent, hasPosition })
 const clients = new Map();
 
+// Índice espacial por mundo: grade uniforme com célula = raio padrão.
+// worldId -> Map(chave da célula -> Set(playerId)); playerId -> { worldId, key }
+const GRID_CELL = 32;
+const worldGrids = new Map();
+const playerCells = new Map();
+
+// Variação mínima de volume para mandar 'volume' num diff de nearby
+const NEARBY_VOLUME_THRESHOLD = parseFloat(process.env.NEARBY_VOLUME_THRESHOLD || '0.02');
+
+// Curva de volume (mesmas opções de voice.falloff no plugin): exponential, linear,
+// inverse-square, logarithmic ou piecewise. Pré-calculada por raio, indexada por distância².
+const VOICE_FALLOFF = (process.env.VOICE_FALLOFF || 'exponential').toLowerCase();
+const VOICE_ATTENUATION = parseFloat(process.env.VOICE_ATTENUATION || '0.02');
+const VOICE_FALLOFF_REFERENCE = parseFloat(process.env.VOICE_FALLOFF_REFERENCE || '2');
+const VOICE_FALLOFF_POINTS = (process.env.VOICE_FALLOFF_POINTS || '0:1,8:0.8,32:0')
+  .split(',')
+  .map((p) => p.split(':').map(Number))
+  .filter((p) => p.length === 2 && p.every(Number.isFinite))
+  .sort((a, b) => a[0] - b[0]);
+const FALLOFF_STEPS = 4096;
+const falloffTables = new Map();
+
+function falloffCurve(d, radius) {
+  switch (VOICE_FALLOFF) {
+    case 'linear': return 1 - d / radius;
+    case 'inverse-square': return d <= VOICE_FALLOFF_REFERENCE ? 1 : (VOICE_FALLOFF_REFERENCE / d) ** 2;
+    case 'logarithmic': return 1 - Math.log1p(d) / Math.log1p(radius);
+    case 'piecewise': {
+      const pts = VOICE_FALLOFF_POINTS;
+      if (pts.length === 0) return 1 - d / radius;
+      if (d <= pts[0][0]) return pts[0][1];
+      for (let i = 1; i < pts.length; i++) {
+        if (d <= pts[i][0]) {
+          const t = (d - pts[i - 1][0]) / (pts[i][0] - pts[i - 1][0]);
+          return pts[i - 1][1] + t * (pts[i][1] - pts[i - 1][1]);
+        }
+      }
+      return pts[pts.length - 1][1];
+    }
+    default: return Math.exp(-VOICE_ATTENUATION * d);
+  }
+}
+
+/** Volume (0..1) à distância² para o raio; 0 fora do raio. */
+function volumeAtSq(distSq, radius) {
+  const radiusSq = radius * radius;
+  if (distSq > radiusSq) return 0;
+  let table = falloffTables.get(radius);
+  if (!table) {
+    table = new Float32Array(FALLOFF_STEPS + 2);
+    for (let i = 0; i <= FALLOFF_STEPS; i++) {
+      const v = falloffCurve(Math.sqrt((i * radiusSq) / FALLOFF_STEPS), radius);
+      table[i] = Math.max(0, Math.min(1, v));
+    }
+    table[FALLOFF_STEPS + 1] = table[FALLOFF_STEPS];
+    falloffTables.set(radius, table);
+  }
+  const pos = (distSq * FALLOFF_STEPS) / radiusSq;
+  const i = pos | 0;
+  return table[i] + (pos - i) * (table[i + 1] - table[i]);
+}
+
+/** Chave numérica da célula (3 × 16 bits, cabe num double sem perda). */
+function cellKey(cx, cy, cz) {
+  return ((cx + 32768) * 65536 + (cy + 32768)) * 65536 + (cz + 32768);
+}
+
+function indexPlayer(id, p) {
+  const worldId = p.worldId || 'default';
+  const key = cellKey(Math.floor(p.x / GRID_CELL), Math.floor(p.y / GRID_CELL), Math.floor(p.z / GRID_CELL));
+  const prev = playerCells.get(id);
+  if (prev && prev.worldId === worldId && prev.key === key) return;
+  if (prev) unindexPlayer(id);
+  let grid = worldGrids.get(worldId);
+  if (!grid) {
+    grid = new Map();
+    worldGrids.set(worldId, grid);
+  }
+  let cell = grid.get(key);
+  if (!cell) {
+    cell = new Set();
+    grid.set(key, cell);
+  }
+  cell.add(id);
+  playerCells.set(id, { worldId, key });
+}
+
+function unindexPlayer(id) {
+  const prev = playerCells.get(id);
+  if (!prev) return;
+  playerCells.delete(id);
+  const grid = worldGrids.get(prev.worldId);
+  const cell = grid?.get(prev.key);
+  if (!cell) return;
+  cell.delete(id);
+  if (cell.size === 0) grid.delete(prev.key);
+  if (grid.size === 0) worldGrids.delete(prev.worldId);
+}
+
+// Último seq aplicado (modo delta); -1 = aguardando keyframe
+let lastSeq = -1;
+
+// Quem está falando (avisado pelos clientes de voz); o plugin usa para a taxa de envio
+const speakingPlayers = new Set();
+// Conexões persistentes do plugin (recebem a lista de quem fala quando muda)
+const pluginSockets = new Set();
+
+function setSpeaking(playerId, speaking) {
+  if (!playerId) return;
+  const changed = speaking ? !speakingPlayers.has(playerId) : speakingPlayers.has(playerId);
+  if (!changed) return;
+  if (speaking) speakingPlayers.add(playerId); else speakingPlayers.delete(playerId);
+  const msg = JSON.stringify({ type: 'speaking', speaking: [...speakingPlayers] });
+  for (const ws of pluginSockets) {
+    if (ws.readyState === 1) ws.send(msg);
+  }
+}
+
+/**
+ * Aplica um envio do plugin. type 'full' (ou sem type) substitui tudo;
+ * type 'delta' atualiza só as entradas enviadas e remove os 'left'.
+ * Retorna true se o backend perdeu um delta e precisa de keyframe.
+ */
+function applyPositions(data) {
+  const isDelta = data.type === 'delta';
+  let resync = false;
+  if (isDelta) {
+    if (lastSeq < 0 || data.seq !== lastSeq + 1) resync = true;
+  } else {
+    serverPositions.clear();
+    worldGrids.clear();
+    playerCells.clear();
+  }
+  if (data.players && Array.isArray(data.players)) {
+    for (const p of data.players) {
+      const id = (p.playerId || '').toString().toLowerCase().trim();
+      if (!id) continue;
+      const prev = serverPositions.get(id);
+      if (isDelta && !prev && !p.username) resync = true;
+      const pos = {
+        x: p.x, y: p.y, z: p.z,
+        worldId: (p.worldId || 'default').toString(),
+        username: (p.username || prev?.username || 'Player').toString(),
+      };
+      serverPositions.set(id, pos);
+      indexPlayer(id, pos);
+    }
+  }
+  if (isDelta && Array.isArray(data.left)) {
+    for (const raw of data.left) {
+      const id = raw.toString().toLowerCase().trim();
+      serverPositions.delete(id);
+      unindexPlayer(id);
+    }
+  }
+  if (typeof data.seq === 'number') lastSeq = resync ? -1 : data.seq;
+  return resync;
+}
+
+// Grafo de audibilidade calculado pelo plugin (backend.graph.enabled):
+// ouvinte -> Map(falante -> { volume, direction }). Com ele ativo o backend não recalcula distâncias.
+const audibility = new Map();
+let lastGraphSeq = -1;
+let graphActive = false;
+
+/**
+ * Aplica um envio do grafo (ver AudibilityGraphTracker.java). mode 'full' substitui tudo;
+ * 'delta' aplica set/unset. Retorna true se perdeu um delta e precisa de keyframe.
+ */
+function applyGraph(data) {
+  const isDelta = data.mode === 'delta';
+  let resync = false;
+  if (isDelta) {
+    if (lastGraphSeq < 0 || data.seq !== lastGraphSeq + 1) resync = true;
+  } else {
+    audibility.clear();
+  }
+  graphActive = true;
+  for (const e of data.set || []) {
+    const listener = (e.l || '').toString().toLowerCase();
+    const speaker = (e.s || '').toString().toLowerCase();
+    if (!listener || !speaker) continue;
+    let speakers = audibility.get(listener);
+    if (!speakers) {
+      speakers = new Map();
+      audibility.set(listener, speakers);
+    }
+    speakers.set(speaker, { volume: e.v, direction: e.d });
+  }
+  for (const [l, sp] of data.unset || []) {
+    const listener = (l || '').toString().toLowerCase();
+    const speakers = audibility.get(listener);
+    if (!speakers) continue;
+    speakers.delete((sp || '').toString().toLowerCase());
+    if (speakers.size === 0) audibility.delete(listener);
+  }
+  if (typeof data.seq === 'number') lastGraphSeq = resync ? -1 : data.seq;
+  return resync;
+}
+
+// Formato binário do plugin (ver PositionFrameEncoder.java)
+const WIRE_CONTENT_TYPE = 'application/x-voicemod-positions';
+const WIRE_MAGIC = 0x564d;
+const WIRE_VERSION = 1;
+// Dicionários da sessão binária: id curto -> { id, username } / nome do mundo
+const wire = { session: null, players: new Map(), worlds: new Map() };
+
+function uuidFromHex(hex) {
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+}
+
+/**
+ * Decodifica um frame binário no mesmo formato que applyPositions() recebe do JSON.
+ * Keyframe (ou sessão nova) zera os dicionários; delta que referencia id desconhecido pede resync.
+ */
+function decodeFrame(buf) {
+  let o = 0;
+  if (buf.readUInt16BE(o) !== WIRE_MAGIC) throw new Error('Frame inválido');
+  o += 2;
+  const version = buf.readUInt8(o++);
+  if (version !== WIRE_VERSION) throw new Error(`Versão de frame não suportada: ${version}`);
+  const keyframe = (buf.readUInt8(o++) & 1) !== 0;
+  const seq = buf.readUInt32BE(o); o += 4;
+  const session = buf.readUInt32BE(o); o += 4;
+
+  let resync = false;
+  if (keyframe || session !== wire.session) {
+    if (!keyframe) resync = true;
+    wire.session = session;
+    wire.players.clear();
+    wire.worlds.clear();
+  }
+
+  const nWorlds = buf.readUInt16BE(o); o += 2;
+  for (let i = 0; i < nWorlds; i++) {
+    const id = buf.readUInt16BE(o); o += 2;
+    const len = buf.readUInt8(o++);
+    wire.worlds.set(id, buf.toString('utf8', o, o + len));
+    o += len;
+  }
+
+  const nDefs = buf.readUInt16BE(o); o += 2;
+  for (let i = 0; i < nDefs; i++) {
+    const pid = buf.readUInt16BE(o); o += 2;
+    const id = uuidFromHex(buf.toString('hex', o, o + 16)); o += 16;
+    const len = buf.readUInt8(o++);
+    wire.players.set(pid, { id, username: buf.toString('utf8', o, o + len) });
+    o += len;
+  }
+
+  const players = [];
+  const nUpdates = buf.readUInt16BE(o); o += 2;
+  for (let i = 0; i < nUpdates; i++) {
+    const pid = buf.readUInt16BE(o);
+    const world = buf.readUInt16BE(o + 2);
+    const x = buf.readFloatBE(o + 4);
+    const y = buf.readFloatBE(o + 8);
+    const z = buf.readFloatBE(o + 12);
+    o += 16;
+    const def = wire.players.get(pid);
+    const worldId = wire.worlds.get(world);
+    if (!def || worldId === undefined) { resync = true; continue; }
+    players.push({ playerId: def.id, username: def.username, x, y, z, worldId });
+  }
+
+  const left = [];
+  const nLeft = buf.readUInt16BE(o); o += 2;
+  for (let i = 0; i < nLeft; i++) {
+    const pid = buf.readUInt16BE(o); o += 2;
+    const def = wire.players.get(pid);
+    if (def) {
+      left.push(def.id);
+      wire.players.delete(pid);
+    }
+  }
+
+  return { type: keyframe ? 'full' : 'delta', seq, players, left, resync };
+}
+
 const MIME = { '.html': 'text/html', '.js': 'application/javascript', '.css': 'text/css', '.ico': 'image/x-icon' };
 
 // Servidor HTTP
 const httpServer = createServer((req, res) => {
   if (req.method === 'POST' && req.url === '/positions') {
-    let body = '';
-    req.on('data', chunk => { body += chunk; });
+    const contentType = (req.headers['content-type'] || 'application/json').split(';')[0].trim();
+    if (contentType !== 'application/json' && contentType !== WIRE_CONTENT_TYPE) {
+      res.writeHead(415, { 'Content-Type': 'application/json', 'Accept-Post': `application/json, ${WIRE_CONTENT_TYPE}` });
+      res.end(JSON.stringify({ error: 'Unsupported Content-Type' }));
+      return;
+    }
+    const chunks = [];
+    req.on('data', chunk => { chunks.push(chunk); });
     req.on('end', () => {
       try {
-        const data = JSON.parse(body);
-        if (data.players && Array.isArray(data.players)) {
-          serverPositions.clear();
-          for (const p of data.players) {
-            const id = (p.playerId || '').toString().toLowerCase().trim();
-            if (id) {
-              serverPositions.set(id, {
-                x: p.x, y: p.y, z: p.z,
-                worldId: (p.worldId || 'default').toString(),
-                username: (p.username || 'Player').toString(),
-              });
-            }
-          }
-        }
+        const body = Buffer.concat(chunks);
+        const data = contentType === WIRE_CONTENT_TYPE ? decodeFrame(body) : JSON.parse(body.toString('utf8'));
+        const resync = applyPositions(data) || !!data.resync;
         res.writeHead(200, { 'Content-Type': 'application/json' });
-        res.end(JSON.stringify({ ok: true, count: serverPositions.size }));
+        res.end(JSON.stringify({ ok: true, count: serverPositions.size, resync, speaking: [...speakingPlayers] }));
+      } catch (e) {
+        res.writeHead(400, { 'Content-Type': 'application/json' });
+        res.end(JSON.stringify({ error: e.message }));
+      }
+    });
+    return;
+  }
+
+  if (req.method === 'POST' && req.url === '/graph') {
+    const chunks = [];
+    req.on('data', chunk => { chunks.push(chunk); });
+    req.on('end', () => {
+      try {
+        const resync = applyGraph(JSON.parse(Buffer.concat(chunks).toString('utf8')));
+        res.writeHead(200, { 'Content-Type': 'application/json' });
+        res.end(JSON.stringify({ ok: true, listeners: audibility.size, resync }));
       } catch (e) {
         res.writeHead(400, { 'Content-Type': 'application/json' });
         res.end(JSON.stringify({ error: e.message }));
@@ -88,13 +378,65 @@ const httpServer = createServer((req, res) => {
 
 const wss = new WebSocketServer({ server: httpServer });
 
-// Envia lista de jogadores próximos a um jogador
-function sendNearbyPlayers(playerId, radius = 32) {
+/**
+ * Jogadores que o jogador ouve: id -> { volume, direction? }.
+ * Com o grafo do plugin ativo só lê as arestas; senão consulta as células vizinhas da grade.
+ */
+function computeNearby(playerId, me, radius) {
+  const out = new Map();
+  if (graphActive) {
+    const speakers = audibility.get(playerId);
+    if (speakers) {
+      for (const [id, edge] of speakers) {
+        if (serverPositions.has(id)) out.set(id, { volume: edge.volume, direction: edge.direction });
+      }
+    }
+    return out;
+  }
+  const grid = worldGrids.get(me.worldId || 'default');
+  if (!grid) return out;
+  const reach = Math.ceil(radius / GRID_CELL);
+  const cx = Math.floor(me.x / GRID_CELL), cy = Math.floor(me.y / GRID_CELL), cz = Math.floor(me.z / GRID_CELL);
+  const radiusSq = radius * radius;
+  for (let dx = -reach; dx <= reach; dx++) {
+    for (let dy = -reach; dy <= reach; dy++) {
+      for (let dz = -reach; dz <= reach; dz++) {
+        const cell = grid.get(cellKey(cx + dx, cy + dy, cz + dz));
+        if (!cell) continue;
+        for (const id of cell) {
+          if (id === playerId) continue;
+          const p = serverPositions.get(id);
+          const ddx = p.x - me.x, ddy = p.y - me.y, ddz = p.z - me.z;
+          const distSq = ddx * ddx + ddy * ddy + ddz * ddz;
+          if (distSq > radiusSq) continue;
+          out.set(id, { volume: volumeAtSq(distSq, radius) });
+        }
+      }
+    }
+  }
+  return out;
+}
+
+function nearbyEntry(id, n) {
+  const p = serverPositions.get(id);
+  const entry = { id, username: p.username, x: p.x, y: p.y, z: p.z, volume: n.volume };
+  if (n.direction) entry.direction = n.direction;
+  return entry;
+}
+
+/**
+ * Atualiza o nearby de um cliente. A primeira lista vai completa ('nearby'); depois só
+ * diffs ('nearby-diff': enter/leave/volume) e nada quando nada mudou além do limiar.
+ */
+function sendNearbyPlayers(playerId) {
   const client = clients.get(playerId);
-  const me = serverPositions.get(playerId) || client?.position;
+  if (!client || client.ws.readyState !== 1) return;
+  const me = serverPositions.get(playerId) || client.position;
 
   if (!me || me.x == null) {
-    if (client?.ws.readyState === 1) {
+    if (client.hasPosition !== false) {
+      client.hasPosition = false;
+      client.sent.clear();
       client.ws.send(JSON.stringify({
         type: 'nearby',
         players: [],
@@ -104,40 +446,89 @@ function sendNearbyPlayers(playerId, radius = 32) {
     return;
   }
 
-  const { x, y, z, worldId } = me;
-  const nearby = [];
-
-  for (const [id, p] of serverPositions) {
-    if (id === playerId) continue;
-    const pw = p.worldId || 'default';
-    if (pw !== (worldId || 'default')) continue;
-
-    const dx = p.x - x;
-    const dy = p.y - y;
-    const dz = p.z - z;
-    const dist = Math.sqrt(dx * dx + dy * dy + dz * dz);
+  const current = computeNearby(playerId, me, client.radius);
 
-    if (dist <= radius) {
-      const volume = Math.exp(-0.02 * dist);
-      nearby.push({
-        id,
-        username: p.username,
-        x: p.x, y: p.y, z: p.z,
-        volume: Math.max(0, Math.min(1, volume)),
-      });
+  if (client.hasPosition !== true) {
+    client.hasPosition = true;
+    client.sent.clear();
+    const players = [];
+    for (const [id, n] of current) {
+      players.push(nearbyEntry(id, n));
+      client.sent.set(id, n.volume);
     }
-  }
-
-  if (client?.ws.readyState === 1) {
     client.ws.send(JSON.stringify({
       type: 'nearby',
-      players: nearby,
-      debug: { hasPosition: true, totalInServer: serverPositions.size },
+      players,
+      debug: { hasPosition: true, totalInServer: serverPositions.size, graph: graphActive },
     }));
+    return;
   }
+
+  const enter = [];
+  const volume = [];
+  const leave = [];
+  for (const [id, n] of current) {
+    const prev = client.sent.get(id);
+    if (prev === undefined) {
+      enter.push(nearbyEntry(id, n));
+      client.sent.set(id, n.volume);
+    } else if (Math.abs(n.volume - prev) > NEARBY_VOLUME_THRESHOLD) {
+      const update = { id, volume: n.volume };
+      if (n.direction) update.direction = n.direction;
+      volume.push(update);
+      client.sent.set(id, n.volume);
+    }
+  }
+  for (const id of client.sent.keys()) {
+    if (!current.has(id)) {
+      leave.push(id);
+      client.sent.delete(id);
+    }
+  }
+  if (enter.length === 0 && volume.length === 0 && leave.length === 0) return;
+  client.ws.send(JSON.stringify({ type: 'nearby-diff', enter, leave, volume }));
+}
+
+/**
+ * Conexão persistente do plugin (backend.transport=websocket).
+ * Frames binários ou JSON, mesmo conteúdo do POST /positions; pede resync uma vez
+ * e espera o keyframe.
+ */
+function handlePluginSocket(ws) {
+  let awaitingKeyframe = false;
+  let awaitingGraphKeyframe = false;
+  pluginSockets.add(ws);
+  ws.send(JSON.stringify({ type: 'speaking', speaking: [...speakingPlayers] }));
+  ws.on('close', () => pluginSockets.delete(ws));
+  ws.on('message', (raw, isBinary) => {
+    try {
+      const data = isBinary ? decodeFrame(raw) : JSON.parse(raw.toString());
+      if (data.type === 'graph') {
+        const graphResync = applyGraph(data);
+        if (data.mode !== 'delta') awaitingGraphKeyframe = false;
+        if (graphResync && !awaitingGraphKeyframe) {
+          awaitingGraphKeyframe = true;
+          ws.send(JSON.stringify({ type: 'graph-resync' }));
+        }
+        return;
+      }
+      const resync = applyPositions(data) || !!data.resync;
+      if (data.type !== 'delta') awaitingKeyframe = false;
+      if (resync && !awaitingKeyframe) {
+        awaitingKeyframe = true;
+        ws.send(JSON.stringify({ type: 'resync', resync: true }));
+      }
+    } catch (e) {
+      ws.send(JSON.stringify({ type: 'error', message: e.message }));
+    }
+  });
 }
 
 wss.on('connection', (ws, req) => {
+  if (req.url === '/plugin') {
+    handlePluginSocket(ws);
+    return;
+  }
   let playerId = null;
 
   ws.on('message', (raw) => {
@@ -151,6 +542,9 @@ wss.on('connection', (ws, req) => {
             ws,
             username: msg.username || pos?.username || 'Player',
             position: pos ? { x: pos.x, y: pos.y, z: pos.z, worldId: pos.worldId } : null,
+            radius: Math.max(4, Math.min(128, Number(msg.radius) || 32)),
+            sent: new Map(),
+            hasPosition: null,
           });
           const hasPosition = !!serverPositions.get(playerId);
           ws.send(JSON.stringify({
@@ -162,7 +556,7 @@ wss.on('connection', (ws, req) => {
               worldId: pos?.worldId || null,
             },
           }));
-          sendNearbyPlayers(playerId, msg.radius || 32);
+          sendNearbyPlayers(playerId);
           break;
 
         case 'position':
@@ -174,6 +568,7 @@ wss.on('connection', (ws, req) => {
           break;
 
         case 'speaking':
+          setSpeaking(playerId, !!msg.speaking);
           for (const [id, c] of clients) {
             if (id !== playerId && c.ws.readyState === 1) {
               c.ws.send(JSON.stringify({ type: 'speaking', playerId, speaking: msg.speaking }));
@@ -188,14 +583,18 @@ wss.on('connection', (ws, req) => {
             const target = clients.get(msg.to);
             if (target.ws.readyState === 1) {
               const fwd = { ...msg, from: playerId };
-              if (msg.type === 'webrtc-offer') {
+              const edge = audibility.get(msg.to)?.get(playerId);
+              if (msg.type === 'webrtc-offer' && graphActive) {
+                fwd.volume = edge ? edge.volume : 0;
+              } else if (msg.type === 'webrtc-offer') {
                 const nearby = serverPositions.get(playerId);
-                const dist = nearby ? Math.sqrt(
-                  Math.pow(nearby.x - (target.position?.x ?? 0), 2) +
-                  Math.pow(nearby.y - (target.position?.y ?? 0), 2) +
-                  Math.pow(nearby.z - (target.position?.z ?? 0), 2)
-                ) : 32;
-                fwd.volume = Math.max(0, Math.min(1, Math.exp(-0.02 * dist)));
+                const targetPos = serverPositions.get(msg.to) || target.position;
+                const distSq = nearby
+                  ? (nearby.x - (targetPos?.x ?? 0)) ** 2 +
+                    (nearby.y - (targetPos?.y ?? 0)) ** 2 +
+                    (nearby.z - (targetPos?.z ?? 0)) ** 2
+                  : 32 * 32;
+                fwd.volume = volumeAtSq(distSq, target.radius);
               }
               target.ws.send(JSON.stringify(fwd));
             }
@@ -216,6 +615,7 @@ wss.on('connection', (ws, req) => {
   ws.on('close', () => {
     if (playerId) {
       clients.delete(playerId);
+      setSpeaking(playerId, false);
       for (const [id, c] of clients) {
         if (c.ws.readyState === 1) {
           c.ws.send(JSON.stringify({ type: 'left', playerId }));
@@ -225,20 +625,17 @@ wss.on('connection', (ws, req) => {
   });
 
   ws.on('error', () => {
-    if (playerId) clients.delete(playerId);
+    if (playerId) {
+      clients.delete(playerId);
+      setSpeaking(playerId, false);
+    }
   });
 });
 
-// Atualiza nearby a cada 100ms e mescla posições do servidor nos clientes
+// A cada 100ms manda aos clientes só o que mudou no nearby (posição do plugin tem prioridade)
 setInterval(() => {
-  for (const [playerId, client] of clients) {
-    const serverPos = serverPositions.get(playerId);
-    if (serverPos && !client.position) {
-      client.position = { x: serverPos.x, y: serverPos.y, z: serverPos.z, worldId: serverPos.worldId };
-    } else if (serverPos) {
-      client.position = { ...client.position, x: serverPos.x, y: serverPos.y, z: serverPos.z, worldId: serverPos.worldId };
-    }
-    sendNearbyPlayers(playerId, 32);
+  for (const playerId of clients.keys()) {
+    sendNearbyPlayers(playerId);
   }
 }, 100);
 
@@ -246,5 +643,7 @@ httpServer.listen(PORT, () => {
   console.log(`VoiceMod Backend rodando na porta ${PORT}`);
   console.log('  Cliente web: https://voicemod.onrender.com');
   console.log('  POST /positions - Plugin envia posições');
+  console.log('  POST /graph - Plugin envia o grafo de audibilidade (opcional)');
+  console.log('  WebSocket /plugin - Plugin envia posições (conexão persistente)');
   console.log('  WebSocket - Clientes de voz');
 });
@@ -0,0 +1,117 @@
+package dev.voicemod.backend;
+
+import dev.voicemod.bench.FakePlayers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho das posições até o backend: PositionBuffer.put (thread do mundo),
+ * forEach (snapshot do connector) e montagem do envio em JSON e binário.
+ * Os envios usam o PositionDeltaTracker como o connector: keyframe ou delta
+ * com metade dos jogadores andando.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PositionPipelineBenchmark {
+
+    private static final double EPSILON = 0.05;
+
+    @Param({"10", "100", "500", "2000"})
+    public int players;
+
+    private FakePlayers fake;
+    private final PositionDeltaTracker tracker = new PositionDeltaTracker();
+    private final PositionJsonWriter json = new PositionJsonWriter();
+    private final PositionFrameEncoder encoder = new PositionFrameEncoder();
+    private Blackhole blackhole;
+    private final PositionBuffer.Visitor visitor = (playerId, username, x, y, z, worldId, active) -> blackhole.consume(x + y + z);
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        fake = new FakePlayers(players);
+        putAll();
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (var id : fake.ids) {
+            PositionBuffer.INSTANCE.remove(id);
+        }
+    }
+
+    @Benchmark
+    public void put() {
+        fake.step(1);
+        putAll();
+    }
+
+    @Benchmark
+    public int snapshot() {
+        return PositionBuffer.INSTANCE.forEach(visitor);
+    }
+
+    @Benchmark
+    public String jsonKeyframe() {
+        tracker.requestKeyframe();
+        tracker.beginFrame(true, Integer.MAX_VALUE);
+        json.begin(tracker);
+        tracker.collect(EPSILON, json);
+        var out = json.finish();
+        tracker.acknowledge();
+        return out;
+    }
+
+    @Benchmark
+    public String jsonDelta() {
+        fake.step(0.5);
+        putAll();
+        tracker.beginFrame(true, Integer.MAX_VALUE);
+        json.begin(tracker);
+        tracker.collect(EPSILON, json);
+        var out = json.finish();
+        tracker.acknowledge();
+        return out;
+    }
+
+    @Benchmark
+    public ByteBuffer binaryKeyframe() {
+        tracker.requestKeyframe();
+        boolean keyframe = tracker.beginFrame(true, Integer.MAX_VALUE);
+        encoder.begin(keyframe, tracker.frameSeq());
+        tracker.collect(EPSILON, encoder);
+        var out = encoder.finish();
+        tracker.acknowledge();
+        return out;
+    }
+
+    @Benchmark
+    public ByteBuffer binaryDelta() {
+        fake.step(0.5);
+        putAll();
+        boolean keyframe = tracker.beginFrame(true, Integer.MAX_VALUE);
+        encoder.begin(keyframe, tracker.frameSeq());
+        tracker.collect(EPSILON, encoder);
+        var out = encoder.finish();
+        tracker.acknowledge();
+        return out;
+    }
+
+    private void putAll() {
+        for (int i = 0; i < fake.count; i++) {
+            PositionBuffer.INSTANCE.put(fake.ids[i], fake.usernames[i], fake.x[i], fake.y[i], fake.z[i], FakePlayers.WORLD);
+        }
+    }
+}
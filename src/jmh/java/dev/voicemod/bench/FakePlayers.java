@@ -0,0 +1,45 @@
+package dev.voicemod.bench;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Provedor falso de posições para os benchmarks: N jogadores num hub de 512x64x512
+ * blocos, todos no mesmo mundo, andando em passeio aleatório. Semente fixa.
+ */
+public final class FakePlayers {
+
+    public static final UUID WORLD = new UUID(0x766D, 1);
+
+    public final int count;
+    public final UUID[] ids;
+    public final String[] usernames;
+    public final double[] x, y, z;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    public FakePlayers(int count) {
+        this.count = count;
+        ids = new UUID[count];
+        usernames = new String[count];
+        x = new double[count];
+        y = new double[count];
+        z = new double[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+            usernames[i] = "player" + i;
+            x[i] = random.nextDouble(512);
+            y[i] = 64 + random.nextDouble(64);
+            z[i] = random.nextDouble(512);
+        }
+    }
+
+    /** Move uma fração dos jogadores até ~0,5 bloco em x/z (passo de um tick andando). */
+    public void step(double movingFraction) {
+        for (int i = 0; i < count; i++) {
+            if (random.nextDouble() >= movingFraction) continue;
+            x[i] += random.nextDouble(-0.5, 0.5);
+            z[i] += random.nextDouble(-0.5, 0.5);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package dev.voicemod.mix;
+
+import dev.voicemod.voice.ListenerGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Um quadro de mixagem (20ms): cada falante manda um pacote PCM16 e cada ouvinte recebe o
+ * estéreo de todos os falantes que ouve. Para caber no tempo real, o tempo médio precisa
+ * ficar bem abaixo de {@link AudioFormat#FRAME_MS}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MixerBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int listeners;
+
+    @Param({"1", "4", "16"})
+    public int speakersPerListener;
+
+    private VoiceMixer mixer;
+    private List<ListenerGraph> graphs;
+    private UUID[] speakers;
+    private byte[] packet;
+    private final float[] accumulator = new float[AudioFormat.FRAME_SAMPLES];
+    private final float[] source = new float[AudioFormat.FRAME_SAMPLES];
+    private Blackhole blackhole;
+    private final VoiceMixer.MixSink sink = (listenerId, data, length) -> blackhole.consume(length);
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        var random = new SplittableRandom(42);
+        mixer = new VoiceMixer(new Pcm16Codec());
+
+        // grupos de ouvintes em volta de speakersPerListener falantes: cada ouvinte ouve todos do grupo
+        var builder = new ListenerGraph.Builder();
+        int groups = Math.max(1, listeners / 10);
+        speakers = new UUID[groups * speakersPerListener];
+        int listener = 0;
+        for (int g = 0; g < groups; g++) {
+            double cx = g * 100;
+            int first = g * speakersPerListener;
+            int[] speakerNodes = new int[speakersPerListener];
+            for (int s = 0; s < speakersPerListener; s++) {
+                speakers[first + s] = new UUID(random.nextLong(), random.nextLong());
+                speakerNodes[s] = builder.addNode(speakers[first + s], cx + random.nextDouble(-8, 8), 64, random.nextDouble(-8, 8));
+            }
+            int count = g == groups - 1 ? listeners - listener : listeners / groups;
+            for (int i = 0; i < count; i++, listener++) {
+                int node = builder.addNode(new UUID(random.nextLong(), random.nextLong()),
+                    cx + random.nextDouble(-8, 8), 64, random.nextDouble(-8, 8));
+                for (int speakerNode : speakerNodes) {
+                    builder.addEdge(speakerNode, node, random.nextDouble(0.1, 1));
+                }
+            }
+        }
+        graphs = List.of(builder.build(1));
+
+        var samples = new short[AudioFormat.FRAME_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (Math.sin(i * 2 * Math.PI * 440 / AudioFormat.SAMPLE_RATE) * 8000);
+        }
+        packet = new byte[samples.length * 2];
+        for (int i = 0; i < samples.length; i++) {
+            source[i] = samples[i] / 32768f;
+            packet[2 * i] = (byte) samples[i];
+            packet[2 * i + 1] = (byte) (samples[i] >> 8);
+        }
+    }
+
+    @Benchmark
+    public int mixFrame() {
+        for (var speaker : speakers) {
+            mixer.submit(speaker, packet, 0, packet.length);
+        }
+        return mixer.mixFrame(graphs, id -> true, sink);
+    }
+
+    /** Só o laço de acumulação de um falante num canal. */
+    @Benchmark
+    public float[] addScaled() {
+        VoiceMixer.addScaled(accumulator, source, 0.5f);
+        return accumulator;
+    }
+}
@@ -0,0 +1,75 @@
+package dev.voicemod.proximity;
+
+import dev.voicemod.bench.FakePlayers;
+import dev.voicemod.voice.ListenerGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fim de tick do VoiceProximitySystem sem o ECS: snapshot das posições, passe
+ * simétrico de pares e construção do ListenerGraph com a atenuação exponencial padrão.
+ * {@code tick} consulta a {@link FalloffTable} (como o sistema); {@code tickDirect} calcula
+ * sqrt + exp por par, como antes da tabela.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProximityBenchmark {
+
+    private static final double RADIUS = 32;
+    private static final double ATTENUATION = 0.02;
+
+    @Param({"10", "100", "500", "2000"})
+    public int players;
+
+    private FakePlayers fake;
+    private final PositionSnapshot snapshot = new PositionSnapshot();
+    private final ListenerGraph.Builder graph = new ListenerGraph.Builder();
+    private final FalloffTable falloff = new FalloffTable(FalloffCurve.exponential(ATTENUATION), RADIUS);
+    private final PositionSnapshot.PairSink sink = (a, b, distanceSq) -> {
+        var volume = falloff.volumeSq(distanceSq);
+        graph.addEdge(a, b, volume);
+        graph.addEdge(b, a, volume);
+    };
+    private final PositionSnapshot.PairSink directSink = (a, b, distanceSq) -> {
+        var volume = Math.max(0, Math.min(1, Math.exp(-ATTENUATION * Math.sqrt(distanceSq))));
+        graph.addEdge(a, b, volume);
+        graph.addEdge(b, a, volume);
+    };
+    private long epoch;
+
+    @Setup
+    public void setup() {
+        fake = new FakePlayers(players);
+    }
+
+    @Benchmark
+    public ListenerGraph tick() {
+        return run(sink);
+    }
+
+    @Benchmark
+    public ListenerGraph tickDirect() {
+        return run(directSink);
+    }
+
+    private ListenerGraph run(PositionSnapshot.PairSink sink) {
+        fake.step(0.5);
+        snapshot.clear();
+        graph.reset();
+        for (int i = 0; i < fake.count; i++) {
+            snapshot.add(fake.ids[i], fake.x[i], fake.y[i], fake.z[i]);
+            graph.addNode(fake.ids[i], fake.x[i], fake.y[i], fake.z[i]);
+        }
+        snapshot.evaluatePairs(RADIUS, sink);
+        return graph.build(++epoch);
+    }
+}
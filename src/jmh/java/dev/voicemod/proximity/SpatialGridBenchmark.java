@@ -0,0 +1,96 @@
+package dev.voicemod.proximity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o loop antigo (todos os pares) com a consulta pela grade espacial.
+ * Inclui o passe simétrico do PositionSnapshot (cada par avaliado uma vez).
+ * Jogadores espalhados num hub de 512x64x512 blocos, raio 32.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialGridBenchmark {
+
+    private static final double RADIUS = 32;
+
+    @Param({"10", "50", "200", "1000"})
+    public int players;
+
+    private double[] x, y, z;
+    private final SpatialGrid grid = new SpatialGrid();
+    private final PositionSnapshot snapshot = new PositionSnapshot();
+    private int symmetricEdges;
+    private final PositionSnapshot.PairSink sink = (a, b, distanceSq) -> symmetricEdges += 2;
+
+    @Setup
+    public void setup() {
+        var random = new SplittableRandom(42);
+        x = new double[players];
+        y = new double[players];
+        z = new double[players];
+        for (int i = 0; i < players; i++) {
+            x[i] = random.nextDouble(512);
+            y[i] = 64 + random.nextDouble(64);
+            z[i] = random.nextDouble(512);
+            snapshot.add(new UUID(0, i), x[i], y[i], z[i]);
+        }
+    }
+
+    @Benchmark
+    public int allPairs() {
+        double radiusSq = RADIUS * RADIUS;
+        int edges = 0;
+        for (int i = 0; i < players; i++) {
+            for (int j = 0; j < players; j++) {
+                if (i == j) continue;
+                double dx = x[j] - x[i], dy = y[j] - y[i], dz = z[j] - z[i];
+                if (dx * dx + dy * dy + dz * dz <= radiusSq) edges++;
+            }
+        }
+        return edges;
+    }
+
+    @Benchmark
+    public int grid() {
+        double radiusSq = RADIUS * RADIUS;
+        grid.reset(RADIUS, players);
+        for (int i = 0; i < players; i++) {
+            grid.insert(i, x[i], y[i], z[i]);
+        }
+        int edges = 0;
+        for (int i = 0; i < players; i++) {
+            int cx = grid.cellCoord(x[i]), cy = grid.cellCoord(y[i]), cz = grid.cellCoord(z[i]);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        for (int j = grid.first(cx + dx, cy + dy, cz + dz); j != SpatialGrid.NONE; j = grid.next(j)) {
+                            if (i == j) continue;
+                            double ddx = x[j] - x[i], ddy = y[j] - y[i], ddz = z[j] - z[i];
+                            if (ddx * ddx + ddy * ddy + ddz * ddz <= radiusSq) edges++;
+                        }
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+
+    @Benchmark
+    public int symmetricPass() {
+        symmetricEdges = 0;
+        snapshot.evaluatePairs(RADIUS, sink);
+        return symmetricEdges;
+    }
+}
@@ -0,0 +1,89 @@
+package dev.voicemod.voice;
+
+import dev.voicemod.bench.FakePlayers;
+import dev.voicemod.proximity.PositionSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Atualização e leitura dos ouvintes: publicar o grafo do mundo no VoiceSessionManager
+ * e consultar os ouvintes de cada jogador (PlayerVoiceState.getListeners e o
+ * caminho sem alocação forEachListener).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ListenerUpdateBenchmark {
+
+    private static final double RADIUS = 32;
+
+    @Param({"10", "100", "500", "2000"})
+    public int players;
+
+    private FakePlayers fake;
+    private ListenerGraph graph;
+    private PlayerVoiceState[] states;
+    private Blackhole blackhole;
+    private final ListenerGraph.EdgeConsumer edges = (listenerId, volume) -> blackhole.consume(volume);
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        fake = new FakePlayers(players);
+        var snapshot = new PositionSnapshot();
+        var builder = new ListenerGraph.Builder();
+        for (int i = 0; i < fake.count; i++) {
+            snapshot.add(fake.ids[i], fake.x[i], fake.y[i], fake.z[i]);
+            builder.addNode(fake.ids[i], fake.x[i], fake.y[i], fake.z[i]);
+        }
+        snapshot.evaluatePairs(RADIUS, (a, b, distanceSq) -> {
+            builder.addEdge(a, b, 1 - Math.sqrt(distanceSq) / RADIUS);
+            builder.addEdge(b, a, 1 - Math.sqrt(distanceSq) / RADIUS);
+        });
+        graph = builder.build(1);
+        states = new PlayerVoiceState[fake.count];
+        for (int i = 0; i < fake.count; i++) {
+            states[i] = VoiceSessionManager.INSTANCE.join(fake.ids[i], fake.usernames[i], FakePlayers.WORLD);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        VoiceSessionManager.INSTANCE.publishGraph(FakePlayers.WORLD, ListenerGraph.EMPTY);
+        for (var state : states) {
+            VoiceSessionManager.INSTANCE.leave(state.getPlayerId());
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        VoiceSessionManager.INSTANCE.publishGraph(FakePlayers.WORLD, graph);
+    }
+
+    @Benchmark
+    public void publishAndReadMaps() {
+        VoiceSessionManager.INSTANCE.publishGraph(FakePlayers.WORLD, graph);
+        for (var state : states) {
+            blackhole.consume(state.getListeners());
+        }
+    }
+
+    @Benchmark
+    public void publishAndVisit() {
+        VoiceSessionManager.INSTANCE.publishGraph(FakePlayers.WORLD, graph);
+        var published = VoiceSessionManager.INSTANCE.getGraph(FakePlayers.WORLD);
+        for (int i = 0; i < fake.count; i++) {
+            published.forEachListener(fake.ids[i], edges);
+        }
+    }
+}
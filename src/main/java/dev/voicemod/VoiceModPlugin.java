@@ -6,15 +6,20 @@ import dev.voicemod.backend.VoiceBackendConnector;
 import dev.voicemod.command.VoiceModCommand;
 import dev.voicemod.config.VoiceModConfig;
 import dev.voicemod.event.VoiceModEvents;
+import dev.voicemod.metrics.PrometheusExporter;
+import dev.voicemod.metrics.VoiceModMetrics;
+import dev.voicemod.mix.AudioCodec;
+import dev.voicemod.mix.Pcm16Codec;
+import dev.voicemod.mix.VoiceMixer;
+import dev.voicemod.relay.EmbeddedRelayServer;
+import dev.voicemod.system.BlockBreakOcclusionSystem;
+import dev.voicemod.system.BlockPlaceOcclusionSystem;
 import dev.voicemod.system.VoiceProximitySystem;
 import dev.voicemod.system.VoiceStateSystem;
-import dev.voicemod.voice.VoiceSessionManager;
+import dev.voicemod.voice.VoiceStateComponent;
 
 import javax.annotation.Nonnull;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
 import java.util.logging.Level;
 
 /**
@@ -28,8 +33,9 @@ public final class VoiceModPlugin extends JavaPlugin {
     private VoiceModConfig config;
     private VoiceModEvents events;
     private VoiceBackendConnector backendConnector;
-    private ScheduledExecutorService scheduler;
-    private ScheduledFuture<?> proximityClearTask;
+    private PrometheusExporter prometheusExporter;
+    private VoiceProximitySystem proximitySystem;
+    private EmbeddedRelayServer relayServer;
 
     public VoiceModPlugin(@Nonnull JavaPluginInit init) {
         super(init);
@@ -53,25 +59,49 @@ public final class VoiceModPlugin extends JavaPlugin {
             com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent.class,
             events::onPlayerDisconnect
         );
+        VoiceStateComponent.bind(getEntityStoreRegistry().registerComponent(VoiceStateComponent.class, VoiceStateComponent::new));
         getEntityStoreRegistry().registerSystem(new VoiceStateSystem(config));
-        getEntityStoreRegistry().registerSystem(new VoiceProximitySystem(config));
+        proximitySystem = new VoiceProximitySystem(config);
+        getEntityStoreRegistry().registerSystem(proximitySystem);
+        getEntityStoreRegistry().registerSystem(new BlockBreakOcclusionSystem(proximitySystem));
+        getEntityStoreRegistry().registerSystem(new BlockPlaceOcclusionSystem(proximitySystem));
         getCommandRegistry().registerCommand(new VoiceModCommand(this));
 
-        // Limpa listeners a cada 100ms para evitar dados obsoletos (jogador se afastou)
-        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            var t = new Thread(r, "voicemod-proximity-clear");
-            t.setDaemon(true);
-            return t;
-        });
-        proximityClearTask = scheduler.scheduleAtFixedRate(
-            VoiceSessionManager.INSTANCE::clearAllListeners,
-            100, 100, TimeUnit.MILLISECONDS
-        );
+        if (config.isRelayEnabled()) {
+            // Relay embutido: clientes de voz conectam direto no plugin, sem backend Node
+            VoiceMixer mixer = null;
+            if (config.isMixEnabled()) {
+                var codec = AudioCodec.of(config.getMixCodec());
+                if (codec == null) {
+                    codec = new Pcm16Codec();
+                    getLogger().at(Level.WARNING).log("Codec de mixagem '" + config.getMixCodec() + "' indisponível; usando " + codec.name());
+                }
+                mixer = new VoiceMixer(codec);
+            }
+            relayServer = new EmbeddedRelayServer(config, mixer);
+            try {
+                relayServer.start();
+            } catch (IOException e) {
+                relayServer = null;
+                getLogger().at(Level.WARNING).log("Relay embutido indisponível na porta " + config.getWebsocketPort() + ": " + e.getMessage());
+            }
+        } else {
+            backendConnector = new VoiceBackendConnector(config);
+            backendConnector.start();
+        }
 
-        backendConnector = new VoiceBackendConnector(config);
-        backendConnector.start();
+        if (config.getMetricsPrometheusPort() > 0) {
+            prometheusExporter = new PrometheusExporter(VoiceModMetrics.INSTANCE);
+            try {
+                prometheusExporter.start(config.getMetricsPrometheusPort());
+            } catch (IOException e) {
+                prometheusExporter = null;
+                getLogger().at(Level.WARNING).log("Métricas Prometheus indisponíveis na porta " + config.getMetricsPrometheusPort() + ": " + e.getMessage());
+            }
+        }
 
-        getLogger().at(Level.INFO).log("VoiceMod iniciado! Raio de voz: " + config.getVoiceRadius() + " blocos | Backend: " + config.getBackendUrl());
+        getLogger().at(Level.INFO).log("VoiceMod iniciado! Raio de voz: " + config.getVoiceRadius() + " blocos | "
+            + (relayServer != null ? "Relay embutido na porta " + relayServer.getPort() : "Backend: " + config.getBackendUrl()));
     }
 
     @Override
@@ -79,11 +109,14 @@ public final class VoiceModPlugin extends JavaPlugin {
         if (backendConnector != null) {
             backendConnector.stop();
         }
-        if (proximityClearTask != null) {
-            proximityClearTask.cancel(false);
+        if (relayServer != null) {
+            relayServer.stop();
         }
-        if (scheduler != null) {
-            scheduler.shutdown();
+        if (prometheusExporter != null) {
+            prometheusExporter.stop();
+        }
+        if (proximitySystem != null) {
+            proximitySystem.shutdown();
         }
         getLogger().at(Level.INFO).log("VoiceMod encerrado.");
     }
@@ -95,4 +128,8 @@ public final class VoiceModPlugin extends JavaPlugin {
     public VoiceBackendConnector getBackendConnector() {
         return backendConnector;
     }
+
+    public EmbeddedRelayServer getRelayServer() {
+        return relayServer;
+    }
 }
@@ -0,0 +1,133 @@
+package dev.voicemod.backend;
+
+import dev.voicemod.voice.ListenerGraph;
+import dev.voicemod.voice.VoiceSessionManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Exporta o grafo de audibilidade (quem ouve quem, volume e direção) calculado no plugin,
+ * para o backend só distribuir as arestas em vez de recalcular proximidade.
+ *
+ * Envia em deltas: arestas novas ou que mudaram além de {@link #VOLUME_EPSILON} /
+ * {@link #DIRECTION_COS} vão em "set", as que sumiram em "unset". Keyframe periódico
+ * (e após falha ou pedido do backend) manda o grafo inteiro. Formato JSON:
+ * <pre>
+ * {"type":"graph","mode":"full"|"delta","seq":N,
+ *  "set":[{"l":ouvinte,"s":falante,"v":volume,"d":[dx,dy,dz]}],
+ *  "unset":[[ouvinte,falante]]}
+ * </pre>
+ * A direção é unitária, do ouvinte para o falante. Uso exclusivo da thread do connector.
+ */
+final class AudibilityGraphTracker {
+
+    /** Variação mínima de volume para reenviar uma aresta. */
+    static final double VOLUME_EPSILON = 0.01;
+    /** Cosseno do menor ângulo (~6°) que conta como mudança de direção. */
+    static final double DIRECTION_COS = 0.995;
+
+    /** ouvinte → falante → último valor enviado */
+    private final Map<UUID, Map<UUID, Sent>> sent = new HashMap<>();
+    private final StringBuilder sb = new StringBuilder(4096);
+    private final ListenerGraph.DirectedEdgeConsumer visitor = this::visit;
+
+    private boolean keyframe;
+    private long round;
+    private int setCount;
+    private int unsetCount;
+
+    private long seq;
+    private int sinceKeyframe;
+    private boolean resync = true;
+
+    /**
+     * Monta o envio do grafo atual de todos os mundos.
+     * Retorna null se for delta e nada mudou.
+     */
+    String buildFrame(boolean deltaEnabled, int keyframeInterval) {
+        keyframe = !deltaEnabled || resync || sinceKeyframe + 1 >= keyframeInterval;
+        round++;
+        setCount = 0;
+        unsetCount = 0;
+
+        sb.setLength(0);
+        sb.append("{\"type\":\"graph\",\"mode\":\"").append(keyframe ? "full" : "delta").append("\",");
+        sb.append("\"seq\":").append(seq + 1).append(",");
+        sb.append("\"set\":[");
+        for (var graph : VoiceSessionManager.INSTANCE.getGraphs()) {
+            graph.forEachEdge(visitor);
+        }
+        sb.append("],\"unset\":[");
+
+        var listeners = sent.entrySet().iterator();
+        while (listeners.hasNext()) {
+            var listener = listeners.next();
+            var speakers = listener.getValue().entrySet().iterator();
+            while (speakers.hasNext()) {
+                var speaker = speakers.next();
+                if (speaker.getValue().round == round) continue;
+                speakers.remove();
+                if (unsetCount++ > 0) sb.append(",");
+                sb.append("[\"").append(listener.getKey()).append("\",\"").append(speaker.getKey()).append("\"]");
+            }
+            if (listener.getValue().isEmpty()) listeners.remove();
+        }
+        sb.append("]}");
+
+        if (!keyframe && setCount == 0 && unsetCount == 0) return null;
+        return sb.toString();
+    }
+
+    /** O backend confirmou o envio atual. */
+    void acknowledge() {
+        seq++;
+        sinceKeyframe = keyframe ? 0 : sinceKeyframe + 1;
+        resync = false;
+    }
+
+    /** Força keyframe no próximo envio. */
+    void requestKeyframe() {
+        resync = true;
+    }
+
+    private void visit(UUID speakerId, UUID listenerId, double volume, double dirX, double dirY, double dirZ) {
+        var speakers = sent.computeIfAbsent(listenerId, id -> new HashMap<>());
+        var prev = speakers.get(speakerId);
+        boolean added = prev == null;
+        if (added) {
+            prev = new Sent();
+            speakers.put(speakerId, prev);
+        }
+        prev.round = round;
+        if (!keyframe && !added && !prev.changed(volume, dirX, dirY, dirZ)) return;
+
+        prev.volume = volume;
+        prev.dirX = dirX;
+        prev.dirY = dirY;
+        prev.dirZ = dirZ;
+        if (setCount++ > 0) sb.append(",");
+        sb.append("{\"l\":\"").append(listenerId).append("\",\"s\":\"").append(speakerId).append("\",");
+        sb.append("\"v\":").append(round3(volume)).append(",");
+        sb.append("\"d\":[").append(round3(dirX)).append(",").append(round3(dirY)).append(",").append(round3(dirZ)).append("]}");
+    }
+
+    private static double round3(double v) {
+        return Math.round(v * 1000) / 1000.0;
+    }
+
+    private static final class Sent {
+        double volume;
+        double dirX, dirY, dirZ;
+        long round;
+
+        boolean changed(double v, double dx, double dy, double dz) {
+            if (Math.abs(v - volume) > VOLUME_EPSILON) return true;
+            boolean wasZero = dirX == 0 && dirY == 0 && dirZ == 0;
+            boolean isZero = dx == 0 && dy == 0 && dz == 0;
+            if (wasZero || isZero) return wasZero != isZero;
+            return dx * dirX + dy * dirY + dz * dirZ < DIRECTION_COS;
+        }
+    }
+}
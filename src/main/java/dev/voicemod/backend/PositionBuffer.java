@@ -1,57 +1,216 @@
 package dev.voicemod.backend;
 
-import java.util.*;
+import dev.voicemod.voice.VoiceSessionManager;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Buffer thread-safe de posições dos jogadores.
  * Preenchido pelo VoiceProximitySystem (na thread do mundo) e lido pelo connector.
+ *
+ * Cada jogador tem um slot fixo em páginas struct-of-arrays (x, y, z em double[]).
+ * A escrita é feita no lugar, sem alocar; os ids em texto são calculados uma vez por slot.
+ * Cada slot tem um seqlock (versão ímpar = escrita em andamento): o leitor repete a
+ * leitura se a versão mudou, então nunca vê x/y/z misturados de duas escritas. O slot tem
+ * dois escritores (put na thread do mundo, remove na desconexão), então a escrita só começa
+ * com um CAS da versão de par para ímpar: um espera o outro terminar.
+ *
+ * Um put atrasado, que chega depois do remove, não recria o jogador: o slot é conferido
+ * pelo dono dentro da escrita e só se aloca outro enquanto a sessão de voz existe.
+ * O flag "ativo" (falando ou perto de quem fala) fica fora do seqlock: é uma dica para a
+ * taxa de envio e pode chegar um tick atrasado.
  */
 public final class PositionBuffer {
 
     public static final PositionBuffer INSTANCE = new PositionBuffer();
 
-    private final Map<String, PlayerPosition> positions = new ConcurrentHashMap<>();
+    /** Recebe uma posição consistente de um slot. */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(String playerId, String username, double x, double y, double z, String worldId, boolean active);
+    }
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final VarHandle VERSION = MethodHandles.arrayElementVarHandle(long[].class);
+    /** A marca de ativo é escrita pelo worker de proximidade fora do seqlock: só acessos opacos. */
+    private static final VarHandle ACTIVE = MethodHandles.arrayElementVarHandle(boolean[].class);
+
+    private final Map<UUID, Integer> slots = new ConcurrentHashMap<>();
+    private final Map<UUID, String> worldIds = new ConcurrentHashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    /** Diretório de páginas; as páginas nunca mudam de lugar, só o diretório cresce. */
+    private volatile Page[] pages = new Page[0];
+    private volatile int highWater;
 
     private PositionBuffer() {}
 
-    /** Registra ou atualiza a posição de um jogador. Chamar da thread do mundo. */
-    public void put(String playerId, String username, double x, double y, double z, String worldId) {
-        positions.put(playerId, new PlayerPosition(playerId, username, x, y, z, worldId));
+    /**
+     * Registra ou atualiza a posição de um jogador. Chamar da thread do mundo.
+     * Retorna o slot do jogador (para {@link #markActive}), ou -1 se a sessão dele já acabou.
+     */
+    public int put(UUID playerId, String username, double x, double y, double z, UUID worldId) {
+        var world = worldIds.computeIfAbsent(worldId, UUID::toString);
+        while (true) {
+            var slot = slots.get(playerId);
+            if (slot == null) {
+                slot = allocate(playerId);
+                if (slot == null) return -1;
+            }
+            var page = pages[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+
+            long v = beginWrite(page, i);
+            if (!playerId.equals(page.owners[i])) {
+                // removido (e talvez reusado) entre o get e a escrita: procura de novo
+                VERSION.setRelease(page.versions, i, v + 2);
+                continue;
+            }
+            page.x[i] = x;
+            page.y[i] = y;
+            page.z[i] = z;
+            page.worldIds[i] = world;
+            page.usernames[i] = username;
+            VERSION.setRelease(page.versions, i, v + 2);
+            return slot;
+        }
+    }
+
+    /**
+     * Marca o slot como ativo (falando ou ao alcance de quem fala) para a taxa adaptativa.
+     * Se o slot foi liberado e reutilizado nesse meio tempo, o outro jogador recebe a
+     * marca por um tick, o que só antecipa um envio.
+     */
+    public void markActive(int slot, boolean active) {
+        var dir = pages;
+        if ((slot >>> PAGE_SHIFT) >= dir.length) return;
+        ACTIVE.setOpaque(dir[slot >>> PAGE_SHIFT].active, slot & PAGE_MASK, active);
     }
 
     /** Remove jogador (ex: ao desconectar). */
-    public void remove(String playerId) {
-        positions.remove(playerId);
-    }
-
-    /** Retorna snapshot das posições para envio. Thread-safe. */
-    public List<Map<String, Object>> snapshot() {
-        var list = new ArrayList<Map<String, Object>>();
-        for (var p : positions.values()) {
-            list.add(Map.of(
-                "playerId", p.playerId,
-                "username", p.username,
-                "x", p.x,
-                "y", p.y,
-                "z", p.z,
-                "worldId", p.worldId
-            ));
+    public void remove(UUID playerId) {
+        synchronized (this) {
+            var slot = slots.remove(playerId);
+            if (slot == null) return;
+            var page = pages[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+            long v = beginWrite(page, i);
+            page.owners[i] = null;
+            page.playerIds[i] = null;
+            page.usernames[i] = null;
+            page.worldIds[i] = null;
+            ACTIVE.setOpaque(page.active, i, false);
+            VERSION.setRelease(page.versions, i, v + 2);
+            freeSlots.push(slot);
+        }
+    }
+
+    /** Quantidade de jogadores com slot. */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Visita cada jogador com uma cópia consistente do seu slot, sem boxing.
+     * Thread-safe; retorna quantos jogadores foram visitados.
+     */
+    public int forEach(Visitor visitor) {
+        var dir = pages;
+        int limit = Math.min(highWater, dir.length << PAGE_SHIFT);
+        int visited = 0;
+        for (int slot = 0; slot < limit; slot++) {
+            var page = dir[slot >>> PAGE_SHIFT];
+            int i = slot & PAGE_MASK;
+            String playerId, username, worldId;
+            double x, y, z;
+            long before;
+            do {
+                before = (long) VERSION.getAcquire(page.versions, i);
+                while ((before & 1) != 0) {
+                    Thread.onSpinWait();
+                    before = (long) VERSION.getAcquire(page.versions, i);
+                }
+                playerId = page.playerIds[i];
+                username = page.usernames[i];
+                worldId = page.worldIds[i];
+                x = page.x[i];
+                y = page.y[i];
+                z = page.z[i];
+                VarHandle.loadLoadFence();
+            } while ((long) VERSION.getOpaque(page.versions, i) != before);
+
+            if (playerId == null || worldId == null) continue;
+            visitor.accept(playerId, username, x, y, z, worldId, (boolean) ACTIVE.getOpaque(page.active, i));
+            visited++;
         }
-        return list;
+        return visited;
     }
 
-    private static final class PlayerPosition {
-        final String playerId, username, worldId;
-        final double x, y, z;
+    /**
+     * Slot novo para o jogador, ou null se a sessão de voz dele já acabou. A desconexão
+     * encerra a sessão antes do {@link #remove}, e os dois passam por este monitor: um put
+     * atrasado ou aloca antes do remove (que então limpa) ou vê a sessão encerrada.
+     */
+    private synchronized Integer allocate(UUID playerId) {
+        var existing = slots.get(playerId);
+        if (existing != null) return existing;
+        if (VoiceSessionManager.INSTANCE.getState(playerId) == null) return null;
+
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+        } else {
+            slot = highWater;
+            int pageIndex = slot >>> PAGE_SHIFT;
+            if (pageIndex == pages.length) {
+                var grown = Arrays.copyOf(pages, pageIndex + 1);
+                grown[pageIndex] = new Page();
+                pages = grown;
+            }
+            highWater = slot + 1;
+        }
+        var page = pages[slot >>> PAGE_SHIFT];
+        int i = slot & PAGE_MASK;
+        long v = beginWrite(page, i);
+        page.owners[i] = playerId;
+        page.playerIds[i] = playerId.toString();
+        page.worldIds[i] = null;
+        VERSION.setRelease(page.versions, i, v + 2);
+
+        Integer boxed = slot;
+        slots.put(playerId, boxed);
+        return boxed;
+    }
 
-        PlayerPosition(String playerId, String username, double x, double y, double z, String worldId) {
-            this.playerId = playerId;
-            this.username = username;
-            this.x = x;
-            this.y = y;
-            this.z = z;
-            this.worldId = worldId;
+    /**
+     * Entra na escrita do slot: CAS da versão de par para ímpar (o CAS já ordena as escritas
+     * seguintes). Retorna a versão par; a escrita termina com {@code setRelease(v + 2)}.
+     */
+    private static long beginWrite(Page page, int i) {
+        while (true) {
+            long v = (long) VERSION.getOpaque(page.versions, i);
+            if ((v & 1) == 0 && VERSION.compareAndSet(page.versions, i, v, v + 1)) return v;
+            Thread.onSpinWait();
         }
     }
+
+    private static final class Page {
+        final long[] versions = new long[PAGE_SIZE];
+        final double[] x = new double[PAGE_SIZE];
+        final double[] y = new double[PAGE_SIZE];
+        final double[] z = new double[PAGE_SIZE];
+        /** Dono do slot; só lido e escrito dentro da escrita do seqlock. */
+        final UUID[] owners = new UUID[PAGE_SIZE];
+        final String[] playerIds = new String[PAGE_SIZE];
+        final String[] usernames = new String[PAGE_SIZE];
+        final String[] worldIds = new String[PAGE_SIZE];
+        final boolean[] active = new boolean[PAGE_SIZE];
+    }
 }
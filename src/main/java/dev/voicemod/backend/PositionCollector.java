@@ -1,8 +1,8 @@
 package dev.voicemod.backend;
 
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
-import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import dev.voicemod.voice.PlayerRefIndex;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
@@ -12,6 +12,7 @@ import java.util.Map;
 /**
  * Coleta posições dos jogadores de todos os mundos.
  * Usa PlayerRef.getReference().getStore() para acessar TransformComponent.
+ * Itera o PlayerRefIndex compartilhado em vez de Universe.getPlayers().
  */
 public final class PositionCollector {
 
@@ -23,10 +24,7 @@ public final class PositionCollector {
     public static List<Map<String, Object>> collectAll() {
         var out = new ArrayList<Map<String, Object>>();
         try {
-            var universe = Universe.get();
-            if (universe == null) return out;
-
-            for (var playerRef : universe.getPlayers()) {
+            for (var playerRef : PlayerRefIndex.INSTANCE.players()) {
                 try {
                     var data = collectOne(playerRef);
                     if (data != null) {
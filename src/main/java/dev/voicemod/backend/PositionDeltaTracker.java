@@ -0,0 +1,186 @@
+package dev.voicemod.backend;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decide o que entra em cada envio de posições.
+ * Em keyframe vão todos os jogadores; em delta só quem entrou e quem andou mais que
+ * o epsilon (ou trocou de mundo). Quem saiu é sempre informado ao sink. A cada N
+ * envios sai um keyframe para o backend ressincronizar. Uso exclusivo da thread do connector.
+ *
+ * Com taxa adaptativa cada jogador tem seu próprio intervalo entre envios: quem está ativo
+ * (falando ou ao alcance de quem fala) sai no intervalo mínimo; os demais saem a cada
+ * {@link #ERROR_BUDGET} blocos percorridos na velocidade atual, entre o mínimo e o máximo.
+ * Parado ou devagar e longe de todos cai para o máximo.
+ */
+final class PositionDeltaTracker {
+
+    /** Recebe as entradas do envio atual. */
+    interface Sink {
+        void player(String playerId, String username, boolean joined, double x, double y, double z, String worldId);
+
+        void left(String playerId);
+    }
+
+    private final Map<String, Sent> lastSent = new HashMap<>();
+    private final PositionBuffer.Visitor visitor = this::visit;
+
+    private Sink sink;
+    private double epsilonSq;
+    private boolean keyframe;
+    private long round;
+    private int entries;
+    private int leaves;
+
+    private long seq;
+    private int sinceKeyframe;
+    private boolean resync = true;
+
+    /** Erro de posição (blocos) aceito no backend entre dois envios de quem não está ativo. */
+    static final double ERROR_BUDGET = 0.5;
+
+    private boolean adaptive;
+    private long minIntervalNanos;
+    private long maxIntervalNanos;
+    private long frameNanos;
+
+    /** Configura a taxa por jogador (chamar antes de beginFrame; a config pode ser recarregada). */
+    void configureRate(boolean adaptive, int minIntervalMs, int maxIntervalMs) {
+        this.adaptive = adaptive;
+        this.minIntervalNanos = minIntervalMs * 1_000_000L;
+        this.maxIntervalNanos = Math.max(minIntervalMs, maxIntervalMs) * 1_000_000L;
+    }
+
+    /** Começa um envio; retorna true se for keyframe. */
+    boolean beginFrame(boolean deltaEnabled, int keyframeInterval) {
+        return beginFrame(deltaEnabled, keyframeInterval, System.nanoTime());
+    }
+
+    boolean beginFrame(boolean deltaEnabled, int keyframeInterval, long nowNanos) {
+        keyframe = !deltaEnabled || resync || sinceKeyframe + 1 >= keyframeInterval;
+        frameNanos = nowNanos;
+        round++;
+        entries = 0;
+        leaves = 0;
+        return keyframe;
+    }
+
+    /**
+     * Percorre o PositionBuffer e entrega ao sink as entradas do envio.
+     * Retorna quantos jogadores existem no buffer.
+     */
+    int collect(double epsilon, Sink sink) {
+        this.sink = sink;
+        this.epsilonSq = epsilon * epsilon;
+        int online = PositionBuffer.INSTANCE.forEach(visitor);
+
+        var it = lastSent.entrySet().iterator();
+        while (it.hasNext()) {
+            var entry = it.next();
+            if (entry.getValue().round == round) continue;
+            it.remove();
+            sink.left(entry.getKey());
+            leaves++;
+        }
+        this.sink = null;
+        return online;
+    }
+
+    boolean isKeyframe() {
+        return keyframe;
+    }
+
+    /** Jogadores incluídos no envio atual. */
+    int entries() {
+        return entries;
+    }
+
+    int leaves() {
+        return leaves;
+    }
+
+    /** Número de sequência do envio atual. */
+    long frameSeq() {
+        return seq + 1;
+    }
+
+    /** O backend confirmou o envio atual. */
+    void acknowledge() {
+        seq++;
+        sinceKeyframe = keyframe ? 0 : sinceKeyframe + 1;
+        resync = false;
+    }
+
+    /** Força keyframe no próximo envio (falha de envio ou pedido de resync do backend). */
+    void requestKeyframe() {
+        resync = true;
+    }
+
+    private void visit(String playerId, String username, double x, double y, double z, String worldId, boolean active) {
+        var prev = lastSent.get(playerId);
+        boolean joined = prev == null;
+        if (joined) {
+            prev = new Sent();
+            lastSent.put(playerId, prev);
+        } else {
+            prev.observe(x, y, z, frameNanos);
+        }
+        prev.obsX = x;
+        prev.obsY = y;
+        prev.obsZ = z;
+        prev.obsNanos = frameNanos;
+        prev.round = round;
+        if (!keyframe && !joined) {
+            if (!prev.movedBeyond(x, y, z, worldId, epsilonSq)) return;
+            // Troca de mundo sai na hora; o resto espera o intervalo do jogador
+            if (adaptive && worldId.equals(prev.worldId) && !due(prev, active)) return;
+        }
+
+        prev.sentNanos = frameNanos;
+        prev.x = x;
+        prev.y = y;
+        prev.z = z;
+        prev.worldId = worldId;
+        sink.player(playerId, username, joined, x, y, z, worldId);
+        entries++;
+    }
+
+    /** O intervalo do jogador já passou? (meio intervalo mínimo de folga para o jitter do agendador) */
+    private boolean due(Sent prev, boolean active) {
+        return frameNanos - prev.sentNanos + minIntervalNanos / 2 >= intervalNanos(prev.speed, active);
+    }
+
+    long intervalNanos(double speed, boolean active) {
+        if (active) return minIntervalNanos;
+        if (speed <= 0) return maxIntervalNanos;
+        long interval = (long) (ERROR_BUDGET / speed * 1e9);
+        return Math.max(minIntervalNanos, Math.min(maxIntervalNanos, interval));
+    }
+
+    private static final class Sent {
+        double x, y, z;
+        String worldId;
+        long round;
+        long sentNanos;
+        /** Última posição observada (enviada ou não), para a velocidade */
+        double obsX, obsY, obsZ;
+        long obsNanos;
+        /** Velocidade suavizada (blocos/s) */
+        double speed;
+
+        void observe(double nx, double ny, double nz, long nowNanos) {
+            long dt = nowNanos - obsNanos;
+            if (dt <= 0) return;
+            double dx = nx - obsX, dy = ny - obsY, dz = nz - obsZ;
+            double instant = Math.sqrt(dx * dx + dy * dy + dz * dz) * 1e9 / dt;
+            speed = speed * 0.5 + instant * 0.5;
+        }
+
+        boolean movedBeyond(double nx, double ny, double nz, String nWorldId, double epsilonSq) {
+            if (!nWorldId.equals(worldId)) return true;
+            double dx = nx - x, dy = ny - y, dz = nz - z;
+            return dx * dx + dy * dy + dz * dz > epsilonSq;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package dev.voicemod.backend;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Codifica envios de posição no formato binário (Content-Type {@value #CONTENT_TYPE}).
+ *
+ * Layout (big-endian), versão 1:
+ * <pre>
+ *   u16 magic 0x564D ("VM") | u8 versão | u8 flags (bit0 = keyframe)
+ *   u32 seq | u32 sessão
+ *   u16 nMundos   × (u16 idMundo, u8 len, utf8 nome)
+ *   u16 nDefs     × (u16 pid, u64 uuidMsb, u64 uuidLsb, u8 len, utf8 username)
+ *   u16 nUpdates  × (u16 pid, u16 idMundo, f32 x, f32 y, f32 z)
+ *   u16 nLeft     × (u16 pid)
+ * </pre>
+ * Os ids curtos de jogador/mundo valem para a sessão; cada um é definido uma vez e
+ * redefinido em todo keyframe (o backend zera os dicionários ao receber um keyframe).
+ * Uso exclusivo da thread do connector; o ByteBuffer é reutilizado entre envios.
+ */
+final class PositionFrameEncoder implements PositionDeltaTracker.Sink {
+
+    static final String CONTENT_TYPE = "application/x-voicemod-positions";
+    static final int MAGIC = 0x564D;
+    static final int VERSION = 1;
+    static final int FLAG_KEYFRAME = 1;
+
+    private final int session = ThreadLocalRandom.current().nextInt();
+
+    private final Map<String, Integer> playerIds = new HashMap<>();
+    private final ArrayDeque<Integer> freePlayerIds = new ArrayDeque<>();
+    private final BitSet definedPlayers = new BitSet();
+    private int nextPlayerId;
+
+    private final Map<String, Integer> worldIds = new HashMap<>();
+    private final BitSet definedWorlds = new BitSet();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+    private boolean keyframe;
+    private long seq;
+
+    private int[] worldDefs = new int[8];
+    private byte[][] worldDefNames = new byte[8][];
+    private int worldDefCount;
+
+    private int[] defPids = new int[32];
+    private String[] defUuids = new String[32];
+    private byte[][] defNames = new byte[32][];
+    private int defCount;
+
+    private int[] upPids = new int[64];
+    private int[] upWorlds = new int[64];
+    private float[] upX = new float[64];
+    private float[] upY = new float[64];
+    private float[] upZ = new float[64];
+    private int upCount;
+
+    private int[] leftPids = new int[16];
+    private int leftCount;
+
+    /** Começa um novo frame. */
+    void begin(boolean keyframe, long seq) {
+        this.keyframe = keyframe;
+        this.seq = seq;
+        if (keyframe) {
+            definedPlayers.clear();
+            definedWorlds.clear();
+        }
+        Arrays.fill(defUuids, 0, defCount, null);
+        Arrays.fill(defNames, 0, defCount, null);
+        Arrays.fill(worldDefNames, 0, worldDefCount, null);
+        worldDefCount = 0;
+        defCount = 0;
+        upCount = 0;
+        leftCount = 0;
+    }
+
+    @Override
+    public void player(String playerId, String username, boolean joined, double x, double y, double z, String worldId) {
+        int pid = playerIdFor(playerId);
+        if (!definedPlayers.get(pid)) {
+            definedPlayers.set(pid);
+            addPlayerDef(pid, playerId, username);
+        }
+        int world = worldIdFor(worldId);
+        if (upCount == upPids.length) {
+            int size = upCount * 2;
+            upPids = Arrays.copyOf(upPids, size);
+            upWorlds = Arrays.copyOf(upWorlds, size);
+            upX = Arrays.copyOf(upX, size);
+            upY = Arrays.copyOf(upY, size);
+            upZ = Arrays.copyOf(upZ, size);
+        }
+        upPids[upCount] = pid;
+        upWorlds[upCount] = world;
+        upX[upCount] = (float) x;
+        upY[upCount] = (float) y;
+        upZ[upCount] = (float) z;
+        upCount++;
+    }
+
+    @Override
+    public void left(String playerId) {
+        var pid = playerIds.remove(playerId);
+        if (pid == null) return;
+        if (leftCount == leftPids.length) {
+            leftPids = Arrays.copyOf(leftPids, leftCount * 2);
+        }
+        leftPids[leftCount++] = pid;
+    }
+
+    /**
+     * Escreve o frame no buffer reutilizado e retorna o buffer pronto para leitura
+     * (posição 0, limite = tamanho do frame). Válido até o próximo begin().
+     */
+    ByteBuffer finish() {
+        int size = 12 + 2 + 2 + 2 + 2 + upCount * 16 + leftCount * 2;
+        for (int i = 0; i < worldDefCount; i++) size += 3 + worldDefNames[i].length;
+        for (int i = 0; i < defCount; i++) size += 2 + 16 + 1 + defNames[i].length;
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+        }
+
+        var out = buffer;
+        out.clear();
+        out.putShort((short) MAGIC);
+        out.put((byte) VERSION);
+        out.put((byte) (keyframe ? FLAG_KEYFRAME : 0));
+        out.putInt((int) seq);
+        out.putInt(session);
+
+        out.putShort((short) worldDefCount);
+        for (int i = 0; i < worldDefCount; i++) {
+            out.putShort((short) worldDefs[i]);
+            out.put((byte) worldDefNames[i].length);
+            out.put(worldDefNames[i]);
+        }
+
+        out.putShort((short) defCount);
+        for (int i = 0; i < defCount; i++) {
+            var uuid = UUID.fromString(defUuids[i]);
+            out.putShort((short) defPids[i]);
+            out.putLong(uuid.getMostSignificantBits());
+            out.putLong(uuid.getLeastSignificantBits());
+            out.put((byte) defNames[i].length);
+            out.put(defNames[i]);
+        }
+
+        out.putShort((short) upCount);
+        for (int i = 0; i < upCount; i++) {
+            out.putShort((short) upPids[i]);
+            out.putShort((short) upWorlds[i]);
+            out.putFloat(upX[i]);
+            out.putFloat(upY[i]);
+            out.putFloat(upZ[i]);
+        }
+
+        out.putShort((short) leftCount);
+        for (int i = 0; i < leftCount; i++) {
+            out.putShort((short) leftPids[i]);
+        }
+
+        // Ids de quem saiu só voltam a ser usados a partir do próximo frame
+        for (int i = 0; i < leftCount; i++) {
+            int pid = leftPids[i];
+            definedPlayers.clear(pid);
+            freePlayerIds.add(pid);
+        }
+
+        out.flip();
+        return out;
+    }
+
+    private int playerIdFor(String playerId) {
+        var pid = playerIds.get(playerId);
+        if (pid == null) {
+            pid = freePlayerIds.isEmpty() ? nextPlayerId++ : freePlayerIds.poll();
+            playerIds.put(playerId, pid);
+        }
+        return pid;
+    }
+
+    private int worldIdFor(String worldId) {
+        var id = worldIds.get(worldId);
+        if (id == null) {
+            id = worldIds.size();
+            worldIds.put(worldId, id);
+        }
+        if (!definedWorlds.get(id)) {
+            definedWorlds.set(id);
+            if (worldDefCount == worldDefs.length) {
+                worldDefs = Arrays.copyOf(worldDefs, worldDefCount * 2);
+                worldDefNames = Arrays.copyOf(worldDefNames, worldDefCount * 2);
+            }
+            worldDefs[worldDefCount] = id;
+            worldDefNames[worldDefCount] = utf8(worldId);
+            worldDefCount++;
+        }
+        return id;
+    }
+
+    private void addPlayerDef(int pid, String playerId, String username) {
+        if (defCount == defPids.length) {
+            int size = defCount * 2;
+            defPids = Arrays.copyOf(defPids, size);
+            defUuids = Arrays.copyOf(defUuids, size);
+            defNames = Arrays.copyOf(defNames, size);
+        }
+        defPids[defCount] = pid;
+        defUuids[defCount] = playerId;
+        defNames[defCount] = utf8(username != null ? username : "?");
+        defCount++;
+    }
+
+    /** UTF-8 limitado a 255 bytes (cabe no prefixo u8). */
+    private static byte[] utf8(String s) {
+        var bytes = s.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= 255 ? bytes : Arrays.copyOf(bytes, 255);
+    }
+}
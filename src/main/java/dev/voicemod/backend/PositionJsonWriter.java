@@ -0,0 +1,61 @@
+package dev.voicemod.backend;
+
+/**
+ * Monta o envio de posições em JSON num StringBuilder reutilizado.
+ * Formato: {"type":"full"|"delta","seq":N,"players":[...],"left":[...]}
+ * Uso exclusivo da thread do connector.
+ */
+final class PositionJsonWriter implements PositionDeltaTracker.Sink {
+
+    private final StringBuilder sb = new StringBuilder(4096);
+    private PositionDeltaTracker tracker;
+
+    /** Começa o JSON do envio atual do tracker (já em beginFrame); depois, tracker.collect(..., this). */
+    void begin(PositionDeltaTracker tracker) {
+        this.tracker = tracker;
+        sb.setLength(0);
+        sb.append("{\"type\":\"").append(tracker.isKeyframe() ? "full" : "delta").append("\",");
+        sb.append("\"seq\":").append(tracker.frameSeq()).append(",");
+        sb.append("\"players\":[");
+    }
+
+    /** Fecha e retorna o JSON. */
+    String finish() {
+        sb.append("]}");
+        tracker = null;
+        return sb.toString();
+    }
+
+    @Override
+    public void player(String playerId, String username, boolean joined, double x, double y, double z, String worldId) {
+        if (sb.charAt(sb.length() - 1) != '[') sb.append(",");
+        sb.append("{");
+        sb.append("\"playerId\":\"").append(playerId).append("\",");
+        if (joined || tracker.isKeyframe()) {
+            sb.append("\"username\":\"").append(escape(username)).append("\",");
+        }
+        sb.append("\"x\":").append(x).append(",");
+        sb.append("\"y\":").append(y).append(",");
+        sb.append("\"z\":").append(z).append(",");
+        sb.append("\"worldId\":\"").append(worldId).append("\"");
+        sb.append("}");
+    }
+
+    @Override
+    public void left(String playerId) {
+        if (tracker.leaves() == 0) {
+            sb.append("],\"left\":[");
+        } else {
+            sb.append(",");
+        }
+        sb.append("\"").append(playerId).append("\"");
+    }
+
+    private static String escape(Object o) {
+        if (o == null) return "";
+        return o.toString()
+            .replace("\\", "\\\\")
+            .replace("\"", "\\\"")
+            .replace("\n", "\\n");
+    }
+}
@@ -1,23 +1,47 @@
 package dev.voicemod.backend;
 
 import dev.voicemod.config.VoiceModConfig;
+import dev.voicemod.metrics.VoiceModMetrics;
+import dev.voicemod.relay.RelayJson;
+import dev.voicemod.voice.VoiceSessionManager;
 
 import javax.annotation.Nonnull;
-import java.io.OutputStream;
+import javax.annotation.Nullable;
+import java.net.ConnectException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Envia posições dos jogadores ao backend via HTTP POST.
+ * Envia posições dos jogadores ao backend via HTTP POST ou, com backend.transport=websocket,
+ * por uma conexão WebSocket persistente ({@link WebSocketTransport}).
+ * No modo delta só vão entradas/saídas e quem se moveu além do epsilon,
+ * com keyframe completo periódico para o backend ressincronizar.
+ * Formato binário ({@link PositionFrameEncoder}) por padrão; se o backend responder
+ * 415 o connector volta para JSON. Um 400 (frame recusado) só pede keyframe.
+ *
+ * O envio HTTP é assíncrono (sendAsync) com no máximo uma requisição em voo. Os ticks
+ * só marcam a caixa de envio; enquanto há requisição em voo nenhum frame é montado, e
+ * quando a resposta chega o próximo frame sai do estado mais novo do PositionBuffer
+ * (o mais recente vence, nada velho fica na fila). Todo o estado do tracker/encoder é
+ * confinado à thread do connector; as respostas voltam para ela via scheduler.
+ *
+ * Com backend.graph.enabled o connector também envia o grafo de audibilidade
+ * ({@link AudibilityGraphTracker}) em POST /graph ou pelo WebSocket, com sua própria
+ * requisição em voo; o backend só distribui as arestas.
  */
 public final class VoiceBackendConnector {
 
@@ -33,6 +57,32 @@ public final class VoiceBackendConnector {
     /** Última quantidade de jogadores enviada */
     private volatile int lastPlayersSent;
 
+    private final PositionDeltaTracker tracker = new PositionDeltaTracker();
+    private final VoiceModMetrics metrics = VoiceModMetrics.INSTANCE;
+    private final PositionJsonWriter jsonWriter = new PositionJsonWriter();
+    private final PositionFrameEncoder binaryEncoder = new PositionFrameEncoder();
+    private final WebSocketTransport webSocket;
+    /** Jogadores online no último frame montado (binário ou JSON). Só na thread do connector. */
+    private int collectedPlayers;
+    private boolean binaryFormat;
+
+    private final AudibilityGraphTracker graphTracker = new AudibilityGraphTracker();
+    private boolean graphEnabled;
+    private boolean graphInFlight;
+    private volatile boolean graphResyncRequested;
+
+    /** Há um tick pedindo envio (caixa "o mais recente vence"). Só na thread do connector. */
+    private boolean sendRequested;
+    /** Requisição HTTP em voo. Só na thread do connector. */
+    private boolean inFlight;
+    /** Latência ponta a ponta do último envio: snapshot do buffer → confirmação (ms) */
+    private volatile double lastLatencyMs;
+    /**
+     * Média móvel exponencial da latência (ms), em bits de double. Atualizada por CAS: o
+     * WebSocket confirma envios das próprias threads, em paralelo com a do connector.
+     */
+    private final AtomicLong avgLatencyBits = new AtomicLong();
+
     public VoiceBackendConnector(@Nonnull VoiceModConfig config) {
         this.config = config;
         this.httpClient = HttpClient.newBuilder()
@@ -44,21 +94,34 @@ public final class VoiceBackendConnector {
             return t;
         });
         this.running = false;
+        this.binaryFormat = "binary".equalsIgnoreCase(config.getBackendFormat());
+        this.graphEnabled = config.isBackendGraphEnabled();
+        this.webSocket = "websocket".equalsIgnoreCase(config.getBackendTransport())
+            ? new WebSocketTransport(httpClient, config.getBackendUrl(), config.getBackendMaxInFlight(), scheduler,
+                this::recordLatency, this::onBackendMessage)
+            : null;
     }
 
     public void start() {
         if (running) return;
         running = true;
+        if (webSocket != null) {
+            webSocket.connect();
+        }
+        // Taxa adaptativa: o connector tica no intervalo mínimo e o tracker decide por jogador
         scheduler.scheduleAtFixedRate(
-            this::sendPositions,
+            this::onTick,
             500,  // delay inicial 500ms
-            100,  // a cada 100ms
+            config.isBackendRateAdaptive() ? config.getBackendRateMinMs() : 100,
             TimeUnit.MILLISECONDS
         );
     }
 
     public void stop() {
         running = false;
+        if (webSocket != null) {
+            webSocket.close();
+        }
         scheduler.shutdown();
         try {
             scheduler.awaitTermination(2, TimeUnit.SECONDS);
@@ -67,65 +130,279 @@ public final class VoiceBackendConnector {
         }
     }
 
+    private void onTick() {
+        sendRequested = true;
+        sendPositions();
+        sendGraph();
+    }
+
     private void sendPositions() {
-        if (!running) return;
+        if (!running || inFlight || !sendRequested) return;
+        sendRequested = false;
         try {
-            var allPlayers = PositionBuffer.INSTANCE.snapshot();
-            if (allPlayers.isEmpty()) {
-                lastError = "Buffer vazio";
+            if (webSocket != null) {
+                if (webSocket.consumeFreshConnection()) {
+                    tracker.requestKeyframe();
+                    graphTracker.requestKeyframe();
+                }
+                if (webSocket.consumeResyncRequest()) tracker.requestKeyframe();
+                if (!webSocket.canSend()) {
+                    // Desconectado ou fila cheia: pula o tick, o próximo delta cobre a diferença
+                    return;
+                }
+            }
+
+            long snapshotNanos = System.nanoTime();
+            tracker.configureRate(config.isBackendRateAdaptive(), config.getBackendRateMinMs(), config.getBackendRateMaxMs());
+            var keyframe = tracker.beginFrame(config.isBackendDeltaEnabled(), config.getBackendKeyframeInterval(), snapshotNanos);
+            boolean sentBinary = binaryFormat;
+            ByteBuffer frame = null;
+            String json = null;
+            long collected;
+            if (sentBinary) {
+                binaryEncoder.begin(keyframe, tracker.frameSeq());
+                collectedPlayers = tracker.collect(config.getBackendDeltaEpsilon(), binaryEncoder);
+                collected = System.nanoTime();
+                frame = binaryEncoder.finish();
+            } else {
+                jsonWriter.begin(tracker);
+                collectedPlayers = tracker.collect(config.getBackendDeltaEpsilon(), jsonWriter);
+                collected = System.nanoTime();
+                json = jsonWriter.finish();
+            }
+            metrics.recordSnapshot(collected - snapshotNanos);
+            metrics.recordEncode(System.nanoTime() - collected);
+            if (!keyframe && tracker.entries() == 0 && tracker.leaves() == 0) {
+                // Ninguém se moveu: nada a enviar até o próximo keyframe
+                if (collectedPlayers == 0) lastError = "Buffer vazio";
+                return;
+            }
+            // Buffer vazio ainda envia: quem saiu por último (left) ou o keyframe vazio que limpa o backend
+
+            if (webSocket != null) {
+                if (frame != null) {
+                    metrics.recordSent(frame.remaining());
+                    webSocket.send(frame, snapshotNanos);
+                } else {
+                    metrics.recordSent(json.length());
+                    webSocket.send(json, snapshotNanos);
+                }
+                tracker.acknowledge();
+                lastPlayersSent = collectedPlayers;
+                lastError = null;
                 return;
             }
 
-            var json = buildJson(allPlayers);
+            var body = frame != null
+                ? HttpRequest.BodyPublishers.ofByteArray(frame.array(), 0, frame.limit())
+                : HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8);
+            var contentType = frame != null ? PositionFrameEncoder.CONTENT_TYPE : "application/json";
             var url = config.getBackendUrl().replaceAll("/$", "") + "/positions";
+            var request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", contentType)
+                .timeout(Duration.ofSeconds(15))
+                .POST(body)
+                .build();
+
+            metrics.recordSent(frame != null ? frame.limit() : (int) body.contentLength());
+            inFlight = true;
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, err) -> {
+                    try {
+                        scheduler.execute(() -> onResponse(response, err, sentBinary, snapshotNanos));
+                    } catch (RejectedExecutionException ignored) {
+                        // connector parado
+                    }
+                });
+        } catch (Exception e) {
+            tracker.requestKeyframe();
+            metrics.recordError(VoiceModMetrics.ErrorCause.OTHER);
+            lastError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+    }
+
+    /** Trata a resposta na thread do connector e, se algum tick pediu envio nesse meio tempo, envia já. */
+    private void onResponse(HttpResponse<String> response, Throwable err, boolean sentBinary, long snapshotNanos) {
+        inFlight = false;
+        if (err != null) {
+            tracker.requestKeyframe();
+            var cause = err.getCause() != null ? err.getCause() : err;
+            metrics.recordError(causeOf(cause));
+            lastError = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        } else if (response.statusCode() >= 200 && response.statusCode() < 300) {
+            tracker.acknowledge();
+            if (response.body() != null) {
+                var fields = parseMessage(response.body());
+                if ("true".equals(fields.get("resync"))) {
+                    tracker.requestKeyframe();
+                }
+                applySpeaking(fields);
+            }
+            recordLatency(snapshotNanos);
+            lastSuccessMs = System.currentTimeMillis();
+            lastPlayersSent = collectedPlayers;
+            lastError = null;
+        } else if (sentBinary && response.statusCode() == 415) {
+            // Backend antigo (só JSON): negocia para JSON e reenvia tudo
+            binaryFormat = false;
+            tracker.requestKeyframe();
+            metrics.recordError(VoiceModMetrics.ErrorCause.UNSUPPORTED_FORMAT);
+            lastError = "Backend sem suporte a binário; usando JSON";
+        } else if (response.statusCode() == 400) {
+            // Frame recusado (delta sem base, decode falhou): o formato continua, reenvia tudo
+            tracker.requestKeyframe();
+            metrics.recordError(VoiceModMetrics.ErrorCause.HTTP_4XX);
+            lastError = "HTTP 400 (frame recusado); reenviando keyframe";
+        } else {
+            tracker.requestKeyframe();
+            metrics.recordError(response.statusCode() >= 500
+                ? VoiceModMetrics.ErrorCause.HTTP_5XX
+                : VoiceModMetrics.ErrorCause.HTTP_4XX);
+            lastError = "HTTP " + response.statusCode();
+        }
+        sendPositions();
+    }
+
+    /** Envia o grafo de audibilidade (se habilitado); pula o tick se o envio anterior ainda está em voo. */
+    private void sendGraph() {
+        if (!running || !graphEnabled || graphInFlight) return;
+        try {
+            if (graphResyncRequested) {
+                graphResyncRequested = false;
+                graphTracker.requestKeyframe();
+            }
+            if (webSocket != null && !webSocket.canSend()) return;
+
+            long snapshotNanos = System.nanoTime();
+            var json = graphTracker.buildFrame(config.isBackendDeltaEnabled(), config.getBackendKeyframeInterval());
+            if (json == null) return;
+            metrics.recordSent(json.length());
+
+            if (webSocket != null) {
+                webSocket.send(json, snapshotNanos);
+                graphTracker.acknowledge();
+                return;
+            }
+
+            var url = config.getBackendUrl().replaceAll("/$", "") + "/graph";
             var request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .timeout(Duration.ofSeconds(15))
                 .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
                 .build();
+            graphInFlight = true;
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, err) -> {
+                    try {
+                        scheduler.execute(() -> onGraphResponse(response, err));
+                    } catch (RejectedExecutionException ignored) {
+                        // connector parado
+                    }
+                });
+        } catch (Exception e) {
+            graphTracker.requestKeyframe();
+            metrics.recordError(VoiceModMetrics.ErrorCause.OTHER);
+        }
+    }
 
-            var response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                lastSuccessMs = System.currentTimeMillis();
-                lastPlayersSent = allPlayers.size();
-                lastError = null;
-            } else {
-                lastError = "HTTP " + response.statusCode();
+    private void onGraphResponse(HttpResponse<String> response, Throwable err) {
+        graphInFlight = false;
+        if (err != null) {
+            graphTracker.requestKeyframe();
+            metrics.recordError(causeOf(err.getCause() != null ? err.getCause() : err));
+        } else if (response.statusCode() >= 200 && response.statusCode() < 300) {
+            graphTracker.acknowledge();
+            if ("true".equals(parseMessage(response.body()).get("resync"))) {
+                graphTracker.requestKeyframe();
             }
-        } catch (Exception e) {
-            lastError = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        } else if (response.statusCode() == 404) {
+            // Backend antigo sem /graph: ele continua calculando proximidade sozinho
+            graphEnabled = false;
+            metrics.recordError(VoiceModMetrics.ErrorCause.UNSUPPORTED_FORMAT);
+            lastError = "Backend sem suporte a /graph; exportação do grafo desativada";
+        } else {
+            graphTracker.requestKeyframe();
+            metrics.recordError(response.statusCode() >= 500
+                ? VoiceModMetrics.ErrorCause.HTTP_5XX
+                : VoiceModMetrics.ErrorCause.HTTP_4XX);
         }
     }
 
-    public long getLastSuccessMs() { return lastSuccessMs; }
-    public String getLastError() { return lastError; }
-    public int getLastPlayersSent() { return lastPlayersSent; }
+    /** Mensagem de texto do backend pelo WebSocket (thread do WebSocket). */
+    private void onBackendMessage(Map<String, String> fields) {
+        if ("graph-resync".equals(fields.get("type"))) {
+            graphResyncRequested = true;
+        }
+        applySpeaking(fields);
+    }
 
-    private String buildJson(List<Map<String, Object>> players) {
-        var sb = new StringBuilder();
-        sb.append("{\"players\":[");
-        for (int i = 0; i < players.size(); i++) {
-            if (i > 0) sb.append(",");
-            var p = players.get(i);
-            sb.append("{");
-            sb.append("\"playerId\":\"").append(escape(p.get("playerId"))).append("\",");
-            sb.append("\"username\":\"").append(escape(p.get("username"))).append("\",");
-            sb.append("\"x\":").append(p.get("x")).append(",");
-            sb.append("\"y\":").append(p.get("y")).append(",");
-            sb.append("\"z\":").append(p.get("z")).append(",");
-            sb.append("\"worldId\":\"").append(escape(p.get("worldId"))).append("\"");
-            sb.append("}");
+    /**
+     * Campos de nível de cima de uma resposta/mensagem do backend ({@link RelayJson}); vazio
+     * se não houver corpo ou ele não for um objeto JSON válido.
+     */
+    static Map<String, String> parseMessage(@Nullable String body) {
+        if (body == null || body.isBlank()) return Map.of();
+        try {
+            return RelayJson.fields(body);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return Map.of();
+        }
+    }
+
+    /**
+     * Aplica {@code "speaking":["uuid",...]} de uma resposta/mensagem do backend no
+     * VoiceSessionManager. Sem o campo (backend antigo) não mexe em nada.
+     */
+    static void applySpeaking(Map<String, String> fields) {
+        var raw = fields.get("speaking");
+        if (raw == null) return;
+        var speaking = new HashSet<UUID>();
+        try {
+            for (var id : RelayJson.strings(raw)) {
+                try {
+                    speaking.add(UUID.fromString(id));
+                } catch (IllegalArgumentException ignored) {
+                    // id inválido
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return;
         }
-        sb.append("]}");
-        return sb.toString();
+        VoiceSessionManager.INSTANCE.applySpeaking(speaking);
     }
 
-    private static String escape(Object o) {
-        if (o == null) return "";
-        return o.toString()
-            .replace("\\", "\\\\")
-            .replace("\"", "\\\"")
-            .replace("\n", "\\n");
+    private static VoiceModMetrics.ErrorCause causeOf(Throwable cause) {
+        if (cause instanceof HttpTimeoutException) return VoiceModMetrics.ErrorCause.TIMEOUT;
+        if (cause instanceof ConnectException) return VoiceModMetrics.ErrorCause.CONNECT;
+        return VoiceModMetrics.ErrorCause.OTHER;
     }
+
+    private void recordLatency(long snapshotNanos) {
+        long nanos = System.nanoTime() - snapshotNanos;
+        metrics.recordSendLatency(nanos);
+        double ms = nanos / 1_000_000.0;
+        lastLatencyMs = ms;
+        long bits = avgLatencyBits.get();
+        while (true) {
+            double avg = Double.longBitsToDouble(bits);
+            double next = avg == 0 ? ms : avg * 0.9 + ms * 0.1;
+            if (avgLatencyBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) break;
+            bits = avgLatencyBits.get();
+        }
+    }
+
+    public long getLastSuccessMs() {
+        return webSocket != null ? webSocket.getLastDeliveredMs() : lastSuccessMs;
+    }
+
+    public String getLastError() {
+        if (lastError == null && webSocket != null) return webSocket.getLastError();
+        return lastError;
+    }
+
+    public int getLastPlayersSent() { return lastPlayersSent; }
+    public double getLastLatencyMs() { return lastLatencyMs; }
+    public double getAvgLatencyMs() { return Double.longBitsToDouble(avgLatencyBits.get()); }
 }
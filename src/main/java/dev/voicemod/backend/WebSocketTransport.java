@@ -0,0 +1,254 @@
+package dev.voicemod.backend;
+
+import dev.voicemod.metrics.VoiceModMetrics;
+
+import javax.annotation.Nonnull;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Transporte de posições por uma única conexão WebSocket longa com o backend (/plugin).
+ *
+ * O java.net.http.WebSocket só aceita um envio pendente por vez, então os frames vão
+ * para uma fila limitada a {@code maxInFlight}; quando a fila está cheia {@link #canSend()}
+ * retorna false e o connector pula o tick (o próximo delta cobre o que ficou para trás).
+ * Frames binários são copiados para buffers de um pool porque o encoder reutiliza o seu.
+ * Ao cair, reconecta com backoff exponencial com jitter.
+ */
+final class WebSocketTransport implements WebSocket.Listener {
+
+    private static final long BACKOFF_BASE_MS = 500;
+    private static final long BACKOFF_MAX_MS = 30_000;
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final int maxInFlight;
+    private final ScheduledExecutorService scheduler;
+    /** Recebe o System.nanoTime() do snapshot de cada frame entregue. */
+    private final LongConsumer onDelivered;
+    /** Recebe os campos de cada mensagem de texto do backend (ex.: lista de quem está falando). */
+    private final Consumer<Map<String, String>> onMessage;
+
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> pool = new ArrayDeque<>();
+    private boolean sending;
+    private int attempts;
+    private boolean closed;
+
+    private volatile WebSocket socket;
+    private volatile boolean freshConnection;
+    private volatile boolean resyncRequested;
+    private volatile long lastDeliveredMs;
+    private volatile String lastError = "Conectando...";
+
+    private final StringBuilder incoming = new StringBuilder();
+
+    WebSocketTransport(@Nonnull HttpClient httpClient, @Nonnull String backendUrl, int maxInFlight,
+                       @Nonnull ScheduledExecutorService scheduler, @Nonnull LongConsumer onDelivered,
+                       @Nonnull Consumer<Map<String, String>> onMessage) {
+        this.httpClient = httpClient;
+        this.uri = URI.create(backendUrl.replaceAll("/$", "").replaceFirst("^http", "ws") + "/plugin");
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.scheduler = scheduler;
+        this.onDelivered = onDelivered;
+        this.onMessage = onMessage;
+    }
+
+    void connect() {
+        if (closed) return;
+        httpClient.newWebSocketBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .buildAsync(uri, this)
+            .whenComplete((ws, err) -> {
+                if (err != null) {
+                    VoiceModMetrics.INSTANCE.recordError(VoiceModMetrics.ErrorCause.CONNECT);
+                    lastError = "WebSocket: " + describe(err);
+                    scheduleReconnect();
+                }
+            });
+    }
+
+    /** Conectado e com espaço na fila. */
+    boolean canSend() {
+        if (socket == null) return false;
+        synchronized (queue) {
+            return queue.size() + (sending ? 1 : 0) < maxInFlight;
+        }
+    }
+
+    /** Enfileira um frame binário (copiado; o chamador pode reutilizar o buffer). */
+    void send(@Nonnull ByteBuffer frame, long snapshotNanos) {
+        ByteBuffer copy;
+        synchronized (queue) {
+            copy = pool.poll();
+        }
+        if (copy == null || copy.capacity() < frame.remaining()) {
+            copy = ByteBuffer.allocate(Math.max(frame.remaining(), 8192));
+        }
+        copy.clear();
+        copy.put(frame.duplicate());
+        copy.flip();
+        enqueue(new Pending(copy, null, snapshotNanos));
+    }
+
+    /** Enfileira um frame de texto (JSON). */
+    void send(@Nonnull String json, long snapshotNanos) {
+        enqueue(new Pending(null, json, snapshotNanos));
+    }
+
+    /** true uma vez após cada (re)conexão: o backend precisa de keyframe. */
+    boolean consumeFreshConnection() {
+        if (!freshConnection) return false;
+        freshConnection = false;
+        return true;
+    }
+
+    /** true uma vez após o backend pedir resync. */
+    boolean consumeResyncRequest() {
+        if (!resyncRequested) return false;
+        resyncRequested = false;
+        return true;
+    }
+
+    long getLastDeliveredMs() {
+        return lastDeliveredMs;
+    }
+
+    String getLastError() {
+        return lastError;
+    }
+
+    boolean isConnected() {
+        return socket != null;
+    }
+
+    void close() {
+        closed = true;
+        var ws = socket;
+        socket = null;
+        if (ws != null) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+        }
+    }
+
+    private void enqueue(Pending frame) {
+        synchronized (queue) {
+            queue.add(frame);
+        }
+        drain();
+    }
+
+    /** Envia o próximo frame da fila se não houver envio pendente. */
+    private void drain() {
+        Pending frame;
+        WebSocket ws;
+        synchronized (queue) {
+            ws = socket;
+            if (sending || ws == null || queue.isEmpty()) return;
+            frame = queue.poll();
+            sending = true;
+        }
+        var future = frame.binary != null
+            ? ws.sendBinary(frame.binary, true)
+            : ws.sendText(frame.text, true);
+        future.whenComplete((w, err) -> {
+            synchronized (queue) {
+                sending = false;
+                if (frame.binary != null && pool.size() < maxInFlight) {
+                    pool.add(frame.binary);
+                }
+            }
+            if (err != null) {
+                onFailure(ws, err);
+            } else {
+                lastDeliveredMs = System.currentTimeMillis();
+                lastError = null;
+                onDelivered.accept(frame.snapshotNanos);
+                drain();
+            }
+        });
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        synchronized (queue) {
+            queue.clear();
+            sending = false;
+        }
+        attempts = 0;
+        socket = webSocket;
+        freshConnection = true;
+        lastError = null;
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        incoming.append(data);
+        if (last) {
+            var fields = VoiceBackendConnector.parseMessage(incoming.toString());
+            if ("true".equals(fields.get("resync")) || "resync".equals(fields.get("type"))) {
+                resyncRequested = true;
+            }
+            onMessage.accept(fields);
+            incoming.setLength(0);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        onFailure(webSocket, null);
+        lastError = "WebSocket fechado (" + statusCode + (reason != null && !reason.isEmpty() ? ": " + reason : "") + ")";
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        onFailure(webSocket, error);
+    }
+
+    private void onFailure(WebSocket ws, Throwable err) {
+        synchronized (queue) {
+            if (socket != ws) return;
+            socket = null;
+            queue.clear();
+            sending = false;
+        }
+        VoiceModMetrics.INSTANCE.recordError(VoiceModMetrics.ErrorCause.WEBSOCKET);
+        if (err != null) {
+            lastError = "WebSocket: " + describe(err);
+        }
+        ws.abort();
+        scheduleReconnect();
+    }
+
+    /** Backoff exponencial com jitter total: espera aleatória em [base*2^n/2, base*2^n], limitada. */
+    private void scheduleReconnect() {
+        if (closed || scheduler.isShutdown()) return;
+        long cap = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(attempts, 16));
+        attempts++;
+        long delay = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+        scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private record Pending(ByteBuffer binary, String text, long snapshotNanos) {
+    }
+
+    private static String describe(Throwable t) {
+        var cause = t.getCause() != null ? t.getCause() : t;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
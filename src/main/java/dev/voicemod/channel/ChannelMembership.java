@@ -0,0 +1,80 @@
+package dev.voicemod.channel;
+
+import javax.annotation.Nullable;
+
+/**
+ * Participação de um jogador nos canais: o slot (bit) dele nos bitsets dos canais, o canal
+ * isolado em que entrou (no máximo um) e a zona em que está. A zona é trocada pelo worker
+ * de proximidade do mundo do jogador, em {@link #locate}, e limpa uma última vez quando ele sai
+ * do servidor ({@link #release}). As duas trocas são no monitor da participação: depois de
+ * liberada, um worker atrasado não põe mais o bit do slot (que pode ir para outro jogador) em zona.
+ */
+public final class ChannelMembership {
+
+    private final int slot;
+    /** Canal {@link ChannelMode#ISOLATE} em que o jogador entrou, ou null. */
+    volatile VoiceChannel isolated;
+
+    // Escritos no monitor (worker de proximidade ou release); lidos sem lock pelo worker
+    private volatile VoiceChannel zone;
+    private ZoneIndex zoneIndex = ZoneIndex.EMPTY;
+    private volatile boolean released;
+
+    ChannelMembership(int slot) {
+        this.slot = slot;
+    }
+
+    public int slot() {
+        return slot;
+    }
+
+    @Nullable
+    public VoiceChannel zone() {
+        return zone;
+    }
+
+    /**
+     * Acerta a zona para a posição atual. Incremental: quem continua dentro de uma zona que não
+     * encosta em outra não consulta o índice; os demais olham só a coluna da posição.
+     * False se o jogador já saiu do servidor (participação liberada).
+     */
+    public boolean locate(ZoneIndex zones, double x, double y, double z) {
+        if (released) return false;
+        var current = zone;
+        if (zoneIndex == zones) {
+            if (current == null ? zones.isEmpty() : current.zone().contains(x, y, z) && !zones.isOverlapped(current)) {
+                return true;
+            }
+        }
+        synchronized (this) {
+            if (released) return false;
+            zoneIndex = zones;
+            var next = zones.find(x, y, z);
+            if (next == current) return true;
+            if (current != null) current.remove(slot);
+            if (next != null) next.add(slot);
+            zone = next;
+            return true;
+        }
+    }
+
+    /**
+     * Chave de isolamento: jogadores com chaves diferentes não se ouvem. Canal isolado manual
+     * tem prioridade sobre zona isolada; -1 fora de qualquer um.
+     */
+    public int isolationKey() {
+        var channel = isolated;
+        if (channel != null) return channel.id();
+        var current = zone;
+        return current != null && current.mode() == ChannelMode.ISOLATE ? current.id() : -1;
+    }
+
+    /** Jogador saiu do servidor: sai da zona e {@link #locate} não mexe mais em nada. */
+    synchronized void release() {
+        released = true;
+        var current = zone;
+        if (current != null) current.remove(slot);
+        zone = null;
+        zoneIndex = ZoneIndex.EMPTY;
+    }
+}
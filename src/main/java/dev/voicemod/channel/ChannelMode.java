@@ -0,0 +1,24 @@
+package dev.voicemod.channel;
+
+import javax.annotation.Nullable;
+
+/**
+ * Como um canal combina com a proximidade.
+ */
+public enum ChannelMode {
+    /** Membros se ouvem em qualquer distância dentro do mundo, além de quem está perto. */
+    AUGMENT,
+    /** Membros só ouvem membros (e só são ouvidos por eles), pela proximidade. */
+    ISOLATE;
+
+    /** Aceita os nomes do comando ({@code soma}/{@code isola}) e os do enum; null se não reconhecer. */
+    @Nullable
+    public static ChannelMode parse(@Nullable String value) {
+        if (value == null) return null;
+        return switch (value.trim().toLowerCase()) {
+            case "soma", "augment" -> AUGMENT;
+            case "isola", "isolate" -> ISOLATE;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package dev.voicemod.channel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Canal de voz (grupo, time ou zona). Membros num bitset compacto indexado pelo slot do
+ * jogador ({@link ChannelMembership#slot()}): {@link #contains} é O(1) e sem lock. O array de
+ * bits é trocado inteiro a cada entrada/saída (raras), então quem lê nunca vê um meio-termo.
+ *
+ * Guarda quem criou o canal e quem foi convidado: num canal manual só entram o dono e os
+ * convidados ({@link #mayJoin}); quem decide o resto (permissões) é o comando.
+ */
+public final class VoiceChannel {
+
+    private final int id;
+    private final String name;
+    private final ChannelMode mode;
+    private final double volume;
+    @Nullable
+    private final ZoneBox zone;
+    @Nullable
+    private final UUID owner;
+    /** Convidados, cópia na escrita. */
+    private volatile Set<UUID> invited = Set.of();
+    private volatile long[] members = new long[1];
+    private volatile int memberCount;
+
+    VoiceChannel(int id, @Nonnull String name, @Nonnull ChannelMode mode, double volume, @Nullable ZoneBox zone, @Nullable UUID owner) {
+        this.id = id;
+        this.name = name;
+        this.mode = mode;
+        this.volume = volume;
+        this.zone = zone;
+        this.owner = owner;
+    }
+
+    /** Índice denso do canal (chave de isolamento no passe de proximidade). */
+    public int id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public ChannelMode mode() {
+        return mode;
+    }
+
+    /** Volume entre membros fora do raio de voz ({@link ChannelMode#AUGMENT}). */
+    public double volume() {
+        return volume;
+    }
+
+    /** Caixa da zona, ou null para canal de entrada manual. */
+    @Nullable
+    public ZoneBox zone() {
+        return zone;
+    }
+
+    /** Quem criou o canal, ou null (criado pelo servidor: aberto a todos). */
+    @Nullable
+    public UUID owner() {
+        return owner;
+    }
+
+    public boolean isOwner(@Nonnull UUID playerId) {
+        return playerId.equals(owner);
+    }
+
+    /** Se o jogador pode entrar sem permissão extra: canal sem dono, o dono ou um convidado. */
+    public boolean mayJoin(@Nonnull UUID playerId) {
+        return owner == null || owner.equals(playerId) || invited.contains(playerId);
+    }
+
+    /** Convida o jogador; false se já estava convidado. */
+    public synchronized boolean invite(@Nonnull UUID playerId) {
+        if (invited.contains(playerId)) return false;
+        var next = new HashSet<>(invited);
+        next.add(playerId);
+        invited = Set.copyOf(next);
+        return true;
+    }
+
+    public boolean contains(int slot) {
+        var bits = members;
+        int word = slot >>> 6;
+        return word < bits.length && (bits[word] & (1L << slot)) != 0;
+    }
+
+    public int memberCount() {
+        return memberCount;
+    }
+
+    /** Bits de membros, bit {@code slot} ligado para cada membro (não modificar). */
+    public long[] bits() {
+        return members;
+    }
+
+    synchronized boolean add(int slot) {
+        if (contains(slot)) return false;
+        int word = slot >>> 6;
+        var bits = Arrays.copyOf(members, Math.max(members.length, word + 1));
+        bits[word] |= 1L << slot;
+        members = bits;
+        memberCount++;
+        return true;
+    }
+
+    synchronized boolean remove(int slot) {
+        if (!contains(slot)) return false;
+        var bits = members.clone();
+        bits[slot >>> 6] &= ~(1L << slot);
+        members = bits;
+        memberCount--;
+        return true;
+    }
+}
@@ -0,0 +1,219 @@
+package dev.voicemod.channel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canais de voz ao lado do {@link dev.voicemod.voice.VoiceSessionManager}: grupos e times
+ * (entrada manual) e zonas (caixas por mundo, entrada pela posição).
+ *
+ * Cada jogador ganha um slot denso ao entrar no servidor, o bit dele nos bitsets de membros dos
+ * canais; slots voltam para reuso quando o jogador sai do servidor. Criar/remover canal e entrar/sair são raros e
+ * serializados por um lock; o worker de proximidade lê sem lock ({@link #augmenting},
+ * {@link #zonesIn}, bitsets imutáveis) e só paga algo quando existe algum canal.
+ */
+public final class VoiceChannels {
+
+    public static final VoiceChannels INSTANCE = new VoiceChannels();
+
+    private static final VoiceChannel[] NONE = new VoiceChannel[0];
+
+    private final Map<String, VoiceChannel> byName = new ConcurrentHashMap<>();
+    private final Map<UUID, ChannelMembership> memberships = new ConcurrentHashMap<>();
+    /** Canais {@link ChannelMode#AUGMENT} (manuais e zonas), cópia na escrita. */
+    private volatile VoiceChannel[] augmenting = NONE;
+    /** worldUuid → índice de zonas (trocado inteiro quando uma zona muda). */
+    private volatile Map<UUID, ZoneIndex> zones = Map.of();
+    private final Object lock = new Object();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextSlot;
+    private int nextId;
+
+    private VoiceChannels() {
+    }
+
+    /** Cria o canal de entrada manual com esse dono, ou devolve o existente com esse nome. */
+    @Nonnull
+    public VoiceChannel create(@Nonnull String name, @Nonnull ChannelMode mode, double volume, @Nullable UUID owner) {
+        return create(name, mode, volume, null, owner);
+    }
+
+    /** Cria (ou substitui) a zona com esse nome. */
+    @Nonnull
+    public VoiceChannel createZone(@Nonnull String name, @Nonnull ChannelMode mode, double volume, @Nonnull ZoneBox box,
+                                   @Nullable UUID owner) {
+        synchronized (lock) {
+            var existing = byName.get(name);
+            if (existing != null && existing.zone() != null) remove(name);
+            return create(name, mode, volume, box, owner);
+        }
+    }
+
+    private VoiceChannel create(String name, ChannelMode mode, double volume, @Nullable ZoneBox box, @Nullable UUID owner) {
+        synchronized (lock) {
+            var existing = byName.get(name);
+            if (existing != null) return existing;
+            var channel = new VoiceChannel(nextId++, name, mode, Math.max(0, Math.min(1, volume)), box, owner);
+            byName.put(name, channel);
+            republish();
+            return channel;
+        }
+    }
+
+    /** Remove o canal e tira todos dele. */
+    public boolean remove(@Nonnull String name) {
+        synchronized (lock) {
+            var channel = byName.remove(name);
+            if (channel == null) return false;
+            for (var membership : memberships.values()) {
+                if (membership.isolated == channel) membership.isolated = null;
+            }
+            republish();
+            return true;
+        }
+    }
+
+    @Nullable
+    public VoiceChannel get(@Nonnull String name) {
+        return byName.get(name);
+    }
+
+    @Nonnull
+    public Collection<VoiceChannel> all() {
+        return Collections.unmodifiableCollection(byName.values());
+    }
+
+    /** Se não há canal nenhum (o passe de proximidade pula tudo). */
+    public boolean isEmpty() {
+        return byName.isEmpty();
+    }
+
+    /**
+     * Põe o jogador no canal manual. Num canal isolado ele sai do isolado anterior.
+     * False se o canal não existe ou é zona (zonas são pela posição).
+     */
+    public boolean join(@Nonnull String name, @Nonnull UUID playerId) {
+        synchronized (lock) {
+            var channel = byName.get(name);
+            if (channel == null || channel.zone() != null) return false;
+            var membership = register(playerId);
+            if (channel.mode() == ChannelMode.ISOLATE) {
+                var previous = membership.isolated;
+                if (previous != null && previous != channel) previous.remove(membership.slot());
+                membership.isolated = channel;
+            }
+            channel.add(membership.slot());
+            return true;
+        }
+    }
+
+    /** Tira o jogador do canal manual. */
+    public boolean leave(@Nonnull String name, @Nonnull UUID playerId) {
+        synchronized (lock) {
+            var channel = byName.get(name);
+            var membership = memberships.get(playerId);
+            if (channel == null || membership == null || channel.zone() != null) return false;
+            if (membership.isolated == channel) membership.isolated = null;
+            return channel.remove(membership.slot());
+        }
+    }
+
+    /** Tira o jogador de todos os canais manuais (a zona segue a posição). */
+    public void leaveAll(@Nonnull UUID playerId) {
+        synchronized (lock) {
+            var membership = memberships.get(playerId);
+            if (membership == null) return;
+            membership.isolated = null;
+            for (var channel : byName.values()) {
+                if (channel.zone() == null) channel.remove(membership.slot());
+            }
+        }
+    }
+
+    /** Jogador entrou no servidor: ganha a participação (e o slot) usada pelas zonas e canais. */
+    public void onPlayerJoin(@Nonnull UUID playerId) {
+        register(playerId);
+    }
+
+    /** Jogador saiu do servidor: sai de tudo e o slot volta para reuso. */
+    public void onPlayerLeave(@Nonnull UUID playerId) {
+        synchronized (lock) {
+            var membership = memberships.remove(playerId);
+            if (membership == null) return;
+            membership.isolated = null;
+            // depois do release nenhum worker atrasado põe o slot numa zona de novo
+            membership.release();
+            for (var channel : byName.values()) {
+                channel.remove(membership.slot());
+            }
+            freeSlots.push(membership.slot());
+        }
+    }
+
+    /** Canais em que o jogador está agora (manuais e zona). */
+    @Nonnull
+    public List<VoiceChannel> channelsOf(@Nonnull UUID playerId) {
+        var membership = memberships.get(playerId);
+        if (membership == null) return List.of();
+        var out = new ArrayList<VoiceChannel>();
+        for (var channel : byName.values()) {
+            if (channel.contains(membership.slot())) out.add(channel);
+        }
+        return out;
+    }
+
+    /** Participação do jogador, ou null se ele não está no servidor (nunca cria). */
+    @Nullable
+    public ChannelMembership membership(@Nonnull UUID playerId) {
+        return memberships.get(playerId);
+    }
+
+    /** Participação do jogador, criada com um slot livre se ainda não existe. */
+    private ChannelMembership register(UUID playerId) {
+        var membership = memberships.get(playerId);
+        if (membership != null) return membership;
+        synchronized (lock) {
+            return memberships.computeIfAbsent(playerId,
+                id -> new ChannelMembership(freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop()));
+        }
+    }
+
+    /** Canais que somam voz fora do raio (não modificar o array). */
+    @Nonnull
+    public VoiceChannel[] augmenting() {
+        return augmenting;
+    }
+
+    /** Índice de zonas do mundo (nunca null). */
+    @Nonnull
+    public ZoneIndex zonesIn(@Nonnull UUID worldId) {
+        return zones.getOrDefault(worldId, ZoneIndex.EMPTY);
+    }
+
+    /** Refaz as visões de leitura; só com o lock. */
+    private void republish() {
+        var augment = new ArrayList<VoiceChannel>();
+        var byWorld = new HashMap<UUID, List<VoiceChannel>>();
+        for (var channel : byName.values()) {
+            if (channel.mode() == ChannelMode.AUGMENT) augment.add(channel);
+            if (channel.zone() != null) {
+                byWorld.computeIfAbsent(channel.zone().worldId(), id -> new ArrayList<>()).add(channel);
+            }
+        }
+        var index = new HashMap<UUID, ZoneIndex>();
+        for (var e : byWorld.entrySet()) {
+            index.put(e.getKey(), new ZoneIndex(e.getValue()));
+        }
+        augmenting = augment.toArray(NONE);
+        zones = index;
+    }
+}
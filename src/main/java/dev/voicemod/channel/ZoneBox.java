@@ -0,0 +1,36 @@
+package dev.voicemod.channel;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+
+/**
+ * Caixa alinhada aos eixos de uma zona num mundo (limites inclusivos).
+ */
+public record ZoneBox(@Nonnull UUID worldId, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+
+    /**
+     * Maior meia aresta aceita por {@link #around}: o {@link ZoneIndex} percorre cada coluna de
+     * 64 blocos da zona sob o lock dos canais, então uma zona enorme travaria quem a cria.
+     */
+    public static final int MAX_HALF = 512;
+
+    public ZoneBox {
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            throw new IllegalArgumentException("zona com mínimo maior que máximo");
+        }
+    }
+
+    /** Cubo de meia aresta {@code half} (até {@link #MAX_HALF}) em volta do ponto. */
+    public static ZoneBox around(@Nonnull UUID worldId, double x, double y, double z, double half) {
+        half = Math.min(half, MAX_HALF);
+        return new ZoneBox(worldId, x - half, y - half, z - half, x + half, y + half, z + half);
+    }
+
+    public boolean contains(double x, double y, double z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    double volume() {
+        return (maxX - minX) * (maxY - minY) * (maxZ - minZ);
+    }
+}
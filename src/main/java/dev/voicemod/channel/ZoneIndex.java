@@ -0,0 +1,109 @@
+package dev.voicemod.channel;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Índice das zonas de um mundo por colunas de {@link #CELL_SIZE} blocos em x/z: cada coluna
+ * guarda as zonas que a tocam, da menor para a maior (zona dentro de zona ganha a de dentro).
+ * Achar a zona de uma posição é uma busca na coluna e um teste de caixa por zona dela. As
+ * colunas ficam numa tabela aberta de chaves {@code long} (sem caixas no {@link #find} por tick).
+ * Imutável; o {@link VoiceChannels} troca o índice do mundo inteiro quando uma zona muda.
+ */
+public final class ZoneIndex {
+
+    public static final ZoneIndex EMPTY = new ZoneIndex(List.of());
+
+    static final double CELL_SIZE = 64;
+    private static final VoiceChannel[] NONE = new VoiceChannel[0];
+
+    /** Endereçamento aberto coluna → zonas; {@code cellZones[h] == null} marca posição vazia. */
+    private final long[] cellKeys;
+    private final VoiceChannel[][] cellZones;
+    private final boolean empty;
+    /** Zonas que encostam em outra: nelas não dá para confiar só no "ainda estou dentro". */
+    private final Set<VoiceChannel> overlapped = new HashSet<>();
+
+    ZoneIndex(List<VoiceChannel> zones) {
+        var sorted = new ArrayList<>(zones);
+        sorted.sort(Comparator.comparingDouble(zone -> zone.zone().volume()));
+        var lists = new HashMap<Long, List<VoiceChannel>>();
+        for (var zone : sorted) {
+            var box = zone.zone();
+            for (int cx = cell(box.minX()); cx <= cell(box.maxX()); cx++) {
+                for (int cz = cell(box.minZ()); cz <= cell(box.maxZ()); cz++) {
+                    lists.computeIfAbsent(key(cx, cz), k -> new ArrayList<>()).add(zone);
+                }
+            }
+        }
+        empty = lists.isEmpty();
+        int size = Integer.highestOneBit(Math.max(4, lists.size() * 2) - 1) << 1;
+        cellKeys = new long[size];
+        cellZones = new VoiceChannel[size][];
+        for (var e : lists.entrySet()) {
+            long key = e.getKey();
+            int h = hash(key) & (size - 1);
+            while (cellZones[h] != null) h = (h + 1) & (size - 1);
+            cellKeys[h] = key;
+            cellZones[h] = e.getValue().toArray(NONE);
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            for (int j = i + 1; j < sorted.size(); j++) {
+                if (intersects(sorted.get(i).zone(), sorted.get(j).zone())) {
+                    overlapped.add(sorted.get(i));
+                    overlapped.add(sorted.get(j));
+                }
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /** Zona (a menor) que contém a posição, ou null. */
+    @Nullable
+    public VoiceChannel find(double x, double y, double z) {
+        if (empty) return null;
+        long key = key(cell(x), cell(z));
+        int mask = cellKeys.length - 1;
+        int h = hash(key) & mask;
+        VoiceChannel[] zones;
+        while ((zones = cellZones[h]) != null && cellKeys[h] != key) h = (h + 1) & mask;
+        if (zones == null) return null;
+        for (var zone : zones) {
+            if (zone.zone().contains(x, y, z)) return zone;
+        }
+        return null;
+    }
+
+    /** Se quem está dentro da zona pode ter entrado em outra sem sair dela. */
+    boolean isOverlapped(VoiceChannel zone) {
+        return overlapped.contains(zone);
+    }
+
+    private static int cell(double v) {
+        return (int) Math.floor(v / CELL_SIZE);
+    }
+
+    private static long key(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean intersects(ZoneBox a, ZoneBox b) {
+        return a.worldId().equals(b.worldId())
+            && a.minX() <= b.maxX() && b.minX() <= a.maxX()
+            && a.minY() <= b.maxY() && b.minY() <= a.maxY()
+            && a.minZ() <= b.maxZ() && b.minZ() <= a.maxZ();
+    }
+}
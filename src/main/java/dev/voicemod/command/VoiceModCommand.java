@@ -7,25 +7,47 @@ import com.hypixel.hytale.server.core.command.system.arguments.system.DefaultArg
 import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
 import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import dev.voicemod.VoiceModPlugin;
+import dev.voicemod.channel.ChannelMode;
+import dev.voicemod.channel.VoiceChannels;
+import dev.voicemod.channel.ZoneBox;
 import dev.voicemod.config.VoiceModConfig;
+import dev.voicemod.metrics.Histogram;
+import dev.voicemod.metrics.VoiceModMetrics;
+import dev.voicemod.voice.VoiceSessionManager;
 
 import javax.annotation.Nonnull;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * Comando /voicemod
+ *
+ * Canais têm dono (quem criou): num canal existente só entram o dono, convidados
+ * ({@code convidar}) e quem tem {@link #PERMISSION_ADMIN}; só o dono ou um admin remove.
+ * Zonas isolam quem estiver dentro, então criar uma pede {@link #PERMISSION_ZONE}.
  */
 public final class VoiceModCommand extends AbstractCommand {
 
+    /** Cria zonas. */
+    public static final String PERMISSION_ZONE = "voicemod.zona";
+    /** Entra em qualquer canal e remove canais e zonas de outros. */
+    public static final String PERMISSION_ADMIN = "voicemod.admin";
+
     private final VoiceModPlugin plugin;
     private final DefaultArg<String> subArg;
     private final OptionalArg<Integer> blocosArg;
+    private final OptionalArg<String> nomeArg;
+    private final OptionalArg<String> modoArg;
+    private final OptionalArg<String> jogadorArg;
 
     public VoiceModCommand(VoiceModPlugin plugin) {
         super("voicemod", "Configura o voice chat com proximidade e áudio 3D");
         this.plugin = plugin;
-        this.subArg = withDefaultArg("acao", "help|raio|status|reload|uuid", ArgTypes.STRING, "help", "padrão: help");
-        this.blocosArg = withOptionalArg("blocos", "Raio em blocos (4-128) para raio", ArgTypes.INTEGER);
+        this.subArg = withDefaultArg("acao", "help|raio|status|metrics|reload|uuid|canal|convidar|sair|zona|canais|remover", ArgTypes.STRING, "help", "padrão: help");
+        this.blocosArg = withOptionalArg("blocos", "Raio em blocos (4-128) para raio; meia aresta para zona", ArgTypes.INTEGER);
+        this.nomeArg = withOptionalArg("nome", "Nome do canal ou zona", ArgTypes.STRING);
+        this.modoArg = withOptionalArg("modo", "soma|isola (canal: soma, zona: isola)", ArgTypes.STRING);
+        this.jogadorArg = withOptionalArg("jogador", "Nome do jogador a convidar", ArgTypes.STRING);
         addAliases("vm");
     }
 
@@ -44,8 +66,15 @@ public final class VoiceModCommand extends AbstractCommand {
         return switch (sub.toLowerCase()) {
             case "raio", "radius" -> handleRadius(context, sender);
             case "status" -> handleStatus(context, sender);
+            case "metrics", "metricas" -> handleMetrics(context, sender);
             case "reload" -> handleReload(context, sender);
             case "uuid" -> handleUuid(context, sender);
+            case "canal", "channel" -> handleJoinChannel(context, sender);
+            case "convidar", "invite" -> handleInvite(context, sender);
+            case "sair", "leave" -> handleLeaveChannel(context, sender);
+            case "zona", "zone" -> handleZone(context, sender);
+            case "canais", "channels" -> handleChannels(context, sender);
+            case "remover", "remove" -> handleRemoveChannel(context, sender);
             default -> handleHelp(context, sender);
         };
     }
@@ -55,8 +84,14 @@ public final class VoiceModCommand extends AbstractCommand {
         sender.sendMessage(Message.raw("VoiceMod - Voice chat com proximidade"));
         sender.sendMessage(Message.raw("/voicemod raio [--blocos N] - Raio atual: " + cfg.getVoiceRadius()));
         sender.sendMessage(Message.raw("/voicemod status - Mostra status"));
+        sender.sendMessage(Message.raw("/voicemod metrics - Métricas de desempenho"));
         sender.sendMessage(Message.raw("/voicemod reload - Recarrega config"));
         sender.sendMessage(Message.raw("/voicemod uuid - Mostra seu UUID para o cliente de voz"));
+        sender.sendMessage(Message.raw("/voicemod canal --nome X [--modo soma|isola] - Entra no canal (cria se não existe)"));
+        sender.sendMessage(Message.raw("/voicemod convidar --nome X --jogador Y - Convida para o seu canal"));
+        sender.sendMessage(Message.raw("/voicemod sair [--nome X] - Sai do canal (sem nome: de todos)"));
+        sender.sendMessage(Message.raw("/voicemod zona --nome X --blocos N [--modo isola|soma] - Zona em volta de você"));
+        sender.sendMessage(Message.raw("/voicemod canais - Lista canais e zonas | remover --nome X - Remove"));
         return CompletableFuture.completedFuture(null);
     }
 
@@ -88,12 +123,29 @@ public final class VoiceModCommand extends AbstractCommand {
         var conn = plugin.getBackendConnector();
         sender.sendMessage(Message.raw("VoiceMod Status"));
         sender.sendMessage(Message.raw("Raio: " + cfg.getVoiceRadius() + " blocos | Áudio 3D: " + (cfg.isEnable3DAudio() ? "Ativado" : "Desativado")));
-        sender.sendMessage(Message.raw("Backend: " + cfg.getBackendUrl()));
+        var relay = plugin.getRelayServer();
+        if (relay != null) {
+            sender.sendMessage(Message.raw("Relay embutido: porta " + relay.getPort() + " | " + relay.clientCount() + " cliente(s) de voz"));
+        } else {
+            sender.sendMessage(Message.raw("Backend: " + cfg.getBackendUrl()));
+        }
+        var uuid = sender.getUuid();
+        var world = uuid != null ? VoiceSessionManager.INSTANCE.worldOf(uuid) : null;
+        if (world != null) {
+            var states = VoiceSessionManager.INSTANCE.getStates(world);
+            int speaking = 0;
+            for (var state : states) {
+                if (state.isSpeaking()) speaking++;
+            }
+            sender.sendMessage(Message.raw("Jogadores no seu mundo: " + states.size() + " (" + speaking + " falando)"
+                + " | total: " + VoiceSessionManager.INSTANCE.getAllStates().size()));
+        }
         if (conn != null) {
             long last = conn.getLastSuccessMs();
             if (last > 0) {
                 long secAgo = (System.currentTimeMillis() - last) / 1000;
                 sender.sendMessage(Message.raw("Último envio: " + secAgo + "s atrás (" + conn.getLastPlayersSent() + " jogadores)"));
+                sender.sendMessage(Message.raw(String.format("Latência: %.0fms (média %.0fms)", conn.getLastLatencyMs(), conn.getAvgLatencyMs())));
             } else if (conn.getLastError() != null) {
                 sender.sendMessage(Message.raw("Conexão: " + conn.getLastError()));
             } else {
@@ -103,6 +155,211 @@ public final class VoiceModCommand extends AbstractCommand {
         return CompletableFuture.completedFuture(null);
     }
 
+    private CompletableFuture<Void> handleMetrics(CommandContext context, com.hypixel.hytale.server.core.command.system.CommandSender sender) {
+        var m = VoiceModMetrics.INSTANCE;
+        sender.sendMessage(Message.raw("VoiceMod Métricas (desde o início, " + m.uptimeSeconds() + "s)"));
+        sender.sendMessage(Message.raw("Proximidade (worker): " + timing(m.proximityTickNanos())));
+        sender.sendMessage(Message.raw("Proximidade (tick do mundo): " + timing(m.proximityHandoffNanos())
+            + " | pulados: " + m.proximitySkipped()));
+        if (m.proximityErrors() > 0) {
+            sender.sendMessage(Message.raw("Proximidade com erro: " + m.proximityErrors() + " passe(s), último: " + m.lastProximityError()));
+        }
+        sender.sendMessage(Message.raw("Pares/tick: " + counts(m.pairsEvaluated()) + " | Arestas/tick: " + counts(m.listenerEdges())));
+        sender.sendMessage(Message.raw("Snapshot: " + timing(m.snapshotNanos())));
+        sender.sendMessage(Message.raw("Encode: " + timing(m.encodeNanos())));
+        sender.sendMessage(Message.raw("Latência envio: " + timing(m.sendLatencyNanos())));
+        sender.sendMessage(Message.raw(String.format("Enviado: %.1f KB/s | %d frames | %d KB",
+            m.bytesPerSecond() / 1024, m.framesSent(), m.bytesSent() / 1024)));
+        var errors = new StringBuilder();
+        for (var cause : VoiceModMetrics.ErrorCause.values()) {
+            long n = m.errors(cause);
+            if (n > 0) errors.append(errors.isEmpty() ? "" : ", ").append(cause.label()).append('=').append(n);
+        }
+        sender.sendMessage(Message.raw("Erros: " + (errors.isEmpty() ? "nenhum" : errors)));
+        if (plugin.getRelayServer() != null) {
+            sender.sendMessage(Message.raw(String.format("Relay: %d frames codificados → %d entregues (%d KB)",
+                m.relayFramesEncoded(), m.relayFramesQueued(), m.relayBytesQueued() / 1024)));
+            if (m.mixNanos().count() > 0) {
+                sender.sendMessage(Message.raw("Mixagem: " + timing(m.mixNanos()) + " | ouvintes/quadro: " + counts(m.mixListeners())));
+            }
+            if (m.mixErrors() > 0) {
+                sender.sendMessage(Message.raw("Mixagem com erro: " + m.mixErrors() + " quadro(s), último: " + m.lastMixError()));
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static String timing(Histogram h) {
+        if (h.count() == 0) return "sem dados";
+        return String.format("p50 %.2fms | p99 %.2fms | máx %.2fms (n=%d)",
+            h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.max() / 1e6, h.count());
+    }
+
+    private static String counts(Histogram h) {
+        if (h.count() == 0) return "sem dados";
+        return "p50 " + h.percentile(50) + " | p99 " + h.percentile(99) + " | máx " + h.max();
+    }
+
+    private CompletableFuture<Void> handleJoinChannel(CommandContext context, com.hypixel.hytale.server.core.command.system.CommandSender sender) {
+        String name = context.get(nomeArg);
+        var uuid = sender.getUuid();
+        if (name == null || name.isBlank() || uuid == null) {
+            sender.sendMessage(Message.raw("Uso: /voicemod canal --nome <canal> [--modo soma|isola]"));
+            return CompletableFuture.completedFuture(null);
+        }
+        var mode = modeOr(context, ChannelMode.AUGMENT);
+        if (mode == null) {
+            sender.sendMessage(Message.raw("Modo inválido: use soma ou isola."));
+            return CompletableFuture.completedFuture(null);
+        }
+        var channel = VoiceChannels.INSTANCE.create(name, mode, 1.0, uuid);
+        if (channel.zone() == null && !channel.mayJoin(uuid) && !sender.hasPermission(PERMISSION_ADMIN)) {
+            sender.sendMessage(Message.raw("O canal " + name + " é de outro jogador: peça um convite a ele."));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!VoiceChannels.INSTANCE.join(name, uuid)) {
+            sender.sendMessage(Message.raw("'" + name + "' é uma zona: entre nela andando."));
+            return CompletableFuture.completedFuture(null);
+        }
+        sender.sendMessage(Message.raw("Você entrou no canal " + name + " (" + modeLabel(channel.mode()) + ", "
+            + channel.memberCount() + " membro(s))."));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Void> handleInvite(CommandContext context, com.hypixel.hytale.server.core.command.system.CommandSender sender) {
+        String name = context.get(nomeArg);
+        String target = context.get(jogadorArg);
+        var uuid = sender.getUuid();
+        if (name == null || name.isBlank() || target == null || target.isBlank() || uuid == null) {
+            sender.sendMessage(Message.raw("Uso: /voicemod convidar --nome <canal> --jogador <nome>"));
+            return CompletableFuture.completedFuture(null);
+        }
+        var channel = VoiceChannels.INSTANCE.get(name);
+        if (channel == null || channel.zone() != null) {
+            sender.sendMessage(Message.raw("Não existe canal " + name + "."));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!channel.isOwner(uuid) && !sender.hasPermission(PERMISSION_ADMIN)) {
+            sender.sendMessage(Message.raw("Só o dono do canal " + name + " pode convidar."));
+            return CompletableFuture.completedFuture(null);
+        }
+        UUID invitedId = null;
+        for (var state : VoiceSessionManager.INSTANCE.getAllStates()) {
+            if (state.getUsername().equalsIgnoreCase(target.trim())) {
+                invitedId = state.getPlayerId();
+                break;
+            }
+        }
+        if (invitedId == null) {
+            sender.sendMessage(Message.raw("Jogador " + target + " não está online."));
+            return CompletableFuture.completedFuture(null);
+        }
+        channel.invite(invitedId);
+        sender.sendMessage(Message.raw(target + " pode entrar no canal " + name + " (/voicemod canal --nome " + name + ")."));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Void> handleLeaveChannel(CommandContext context, com.hypixel.hytale.server.core.command.system.CommandSender sender) {
+        String name = context.get(nomeArg);
+        var uuid = sender.getUuid();
+        if (uuid == null) return CompletableFuture.completedFuture(null);
+        if (name == null || name.isBlank()) {
+            VoiceChannels.INSTANCE.leaveAll(uuid);
+            sender.sendMessage(Message.raw("Você saiu de todos os canais."));
+        } else if (VoiceChannels.INSTANCE.leave(name, uuid)) {
+            sender.sendMessage(Message.raw("Você saiu do canal " + name + "."));
+        } else {
+            sender.sendMessage(Message.raw("Você não está no canal " + name + "."));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Void> handleZone(CommandContext context, com.hypixel.hytale.server.core.command.system.CommandSender sender) {
+        String name = context.get(nomeArg);
+        Integer half = context.get(blocosArg);
+        var uuid = sender.getUuid();
+        if (name == null || name.isBlank() || half == null || half < 1 || uuid == null) {
+            sender.sendMessage(Message.raw("Uso: /voicemod zona --nome <zona> --blocos <meia aresta, 1-" + ZoneBox.MAX_HALF + "> [--modo isola|soma]"));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!sender.hasPermission(PERMISSION_ZONE) && !sender.hasPermission(PERMISSION_ADMIN)) {
+            sender.sendMessage(Message.raw("Você não tem permissão para criar zonas (" + PERMISSION_ZONE + ")."));
+            return CompletableFuture.completedFuture(null);
+        }
+        half = Math.min(half, ZoneBox.MAX_HALF);
+        var mode = modeOr(context, ChannelMode.ISOLATE);
+        if (mode == null) {
+            sender.sendMessage(Message.raw("Modo inválido: use soma ou isola."));
+            return CompletableFuture.completedFuture(null);
+        }
+        var existing = VoiceChannels.INSTANCE.get(name);
+        if (existing != null && existing.zone() == null) {
+            sender.sendMessage(Message.raw("Já existe um canal " + name + "; escolha outro nome."));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (existing != null && !existing.isOwner(uuid) && !sender.hasPermission(PERMISSION_ADMIN)) {
+            sender.sendMessage(Message.raw("A zona " + name + " é de outro jogador; escolha outro nome."));
+            return CompletableFuture.completedFuture(null);
+        }
+        var world = VoiceSessionManager.INSTANCE.worldOf(uuid);
+        var pos = new double[3];
+        if (world == null || !VoiceSessionManager.INSTANCE.getGraph(world).positionOf(uuid, pos)) {
+            sender.sendMessage(Message.raw("Posição ainda não conhecida; tente de novo em instantes."));
+            return CompletableFuture.completedFuture(null);
+        }
+        VoiceChannels.INSTANCE.createZone(name, mode, 1.0, ZoneBox.around(world, pos[0], pos[1], pos[2], half), uuid);
+        sender.sendMessage(Message.raw(String.format("Zona %s (%s) criada: %d blocos em volta de %.0f, %.0f, %.0f.",
+            name, modeLabel(mode), half, pos[0], pos[1], pos[2])));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Void> handleChannels(CommandContext context, com.hypixel.hytale.server.core.command.system.CommandSender sender) {
+        var all = VoiceChannels.INSTANCE.all();
+        if (all.isEmpty()) {
+            sender.sendMessage(Message.raw("Nenhum canal ou zona."));
+            return CompletableFuture.completedFuture(null);
+        }
+        for (var channel : all) {
+            sender.sendMessage(Message.raw((channel.zone() != null ? "Zona " : "Canal ") + channel.name()
+                + " (" + modeLabel(channel.mode()) + "): " + channel.memberCount() + " membro(s)"));
+        }
+        var uuid = sender.getUuid();
+        if (uuid != null) {
+            var mine = new StringBuilder();
+            for (var channel : VoiceChannels.INSTANCE.channelsOf(uuid)) {
+                mine.append(mine.isEmpty() ? "" : ", ").append(channel.name());
+            }
+            sender.sendMessage(Message.raw("Seus canais: " + (mine.isEmpty() ? "nenhum" : mine)));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Void> handleRemoveChannel(CommandContext context, com.hypixel.hytale.server.core.command.system.CommandSender sender) {
+        String name = context.get(nomeArg);
+        var uuid = sender.getUuid();
+        var channel = name != null ? VoiceChannels.INSTANCE.get(name) : null;
+        if (name == null || name.isBlank()) {
+            sender.sendMessage(Message.raw("Uso: /voicemod remover --nome <canal ou zona>"));
+        } else if (channel != null && (uuid == null || !channel.isOwner(uuid)) && !sender.hasPermission(PERMISSION_ADMIN)) {
+            sender.sendMessage(Message.raw("Só o dono de " + name + " (ou " + PERMISSION_ADMIN + ") pode removê-lo."));
+        } else if (VoiceChannels.INSTANCE.remove(name)) {
+            sender.sendMessage(Message.raw("Removido: " + name + "."));
+        } else {
+            sender.sendMessage(Message.raw("Não existe canal ou zona " + name + "."));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** Modo pedido em --modo, o padrão se ausente, ou null se inválido. */
+    private ChannelMode modeOr(CommandContext context, ChannelMode fallback) {
+        String value = context.get(modoArg);
+        return value == null || value.isBlank() ? fallback : ChannelMode.parse(value);
+    }
+
+    private static String modeLabel(ChannelMode mode) {
+        return mode == ChannelMode.ISOLATE ? "isolado" : "soma";
+    }
+
     private CompletableFuture<Void> handleReload(CommandContext context, com.hypixel.hytale.server.core.command.system.CommandSender sender) {
         plugin.getConfig().load();
         sender.sendMessage(Message.raw("Config do VoiceMod recarregada."));
@@ -1,5 +1,8 @@
 package dev.voicemod.config;
 
+import dev.voicemod.proximity.FalloffCurve;
+import dev.voicemod.proximity.FalloffTable;
+import dev.voicemod.proximity.OcclusionMaterials;
 
 import javax.annotation.Nonnull;
 import java.nio.file.Files;
@@ -17,11 +20,36 @@ public final class VoiceModConfig {
     private int voiceRadius = 32;
     private double attenuationFactor = 0.02;
     private boolean enable3DAudio = true;
+    private String falloff = "exponential";
+    private double falloffReference = 2.0;
+    private String falloffPoints = "0:1,8:0.8,32:0";
+    private volatile FalloffTable falloffTable;
+    private int maxSpeakers = 0;
     private int websocketPort = 25566;
+    private boolean relayEnabled = false;
+    private boolean mixEnabled = false;
+    private String mixCodec = "adpcm";
     private String backendUrl = "https://voicemod.onrender.com";
+    private boolean backendDeltaEnabled = true;
+    private double backendDeltaEpsilon = 0.05;
+    private int backendKeyframeInterval = 50;
+    private String backendFormat = "binary";
+    private String backendTransport = "http";
+    private int backendMaxInFlight = 4;
+    private boolean backendRateAdaptive = true;
+    private boolean backendGraphEnabled = false;
+    private int backendRateMinMs = 50;
+    private int backendRateMaxMs = 1000;
+    private int metricsPrometheusPort = 0;
+    private boolean occlusionEnabled = false;
+    private double occlusionBlockLoss = 0.35;
+    private int occlusionRaysPerTick = 64;
+    private String occlusionMaterialOverrides = "";
+    private volatile OcclusionMaterials occlusionMaterials = OcclusionMaterials.parse(0.35, "");
 
     public VoiceModConfig(@Nonnull Path pluginDir) {
         this.configPath = pluginDir.resolve(CONFIG_FILE);
+        rebuildFalloff();
     }
 
     public void load() {
@@ -35,11 +63,35 @@ public final class VoiceModConfig {
             voiceRadius = Integer.parseInt(props.getProperty("voice.radius", "32"));
             attenuationFactor = Double.parseDouble(props.getProperty("voice.attenuation", "0.02"));
             enable3DAudio = Boolean.parseBoolean(props.getProperty("voice.3d.enabled", "true"));
+            falloff = props.getProperty("voice.falloff", "exponential");
+            falloffReference = Math.max(0.1, Double.parseDouble(props.getProperty("voice.falloff.reference", "2.0")));
+            falloffPoints = props.getProperty("voice.falloff.points", "0:1,8:0.8,32:0");
+            maxSpeakers = Math.max(0, Integer.parseInt(props.getProperty("voice.max-speakers", "0")));
             websocketPort = Integer.parseInt(props.getProperty("websocket.port", "25566"));
+            relayEnabled = Boolean.parseBoolean(props.getProperty("relay.enabled", "false"));
+            mixEnabled = Boolean.parseBoolean(props.getProperty("voice.mix.enabled", "false"));
+            mixCodec = props.getProperty("voice.mix.codec", "adpcm");
             backendUrl = props.getProperty("backend.url", "https://voicemod.onrender.com");
+            backendDeltaEnabled = Boolean.parseBoolean(props.getProperty("backend.delta.enabled", "true"));
+            backendDeltaEpsilon = Double.parseDouble(props.getProperty("backend.delta.epsilon", "0.05"));
+            backendKeyframeInterval = Math.max(1, Integer.parseInt(props.getProperty("backend.keyframe.interval", "50")));
+            backendFormat = props.getProperty("backend.format", "binary");
+            backendTransport = props.getProperty("backend.transport", "http");
+            backendMaxInFlight = Math.max(1, Integer.parseInt(props.getProperty("backend.websocket.max-inflight", "4")));
+            backendRateAdaptive = Boolean.parseBoolean(props.getProperty("backend.rate.adaptive", "true"));
+            backendRateMinMs = Math.max(10, Integer.parseInt(props.getProperty("backend.rate.min-ms", "50")));
+            backendRateMaxMs = Math.max(backendRateMinMs, Integer.parseInt(props.getProperty("backend.rate.max-ms", "1000")));
+            backendGraphEnabled = Boolean.parseBoolean(props.getProperty("backend.graph.enabled", "false"));
+            metricsPrometheusPort = Integer.parseInt(props.getProperty("metrics.prometheus.port", "0"));
+            occlusionEnabled = Boolean.parseBoolean(props.getProperty("voice.occlusion.enabled", "false"));
+            occlusionBlockLoss = Math.max(0, Double.parseDouble(props.getProperty("voice.occlusion.block-loss", "0.35")));
+            occlusionRaysPerTick = Math.max(0, Integer.parseInt(props.getProperty("voice.occlusion.rays-per-tick", "64")));
+            occlusionMaterialOverrides = props.getProperty("voice.occlusion.materials", "");
+            occlusionMaterials = OcclusionMaterials.parse(occlusionBlockLoss, occlusionMaterialOverrides);
         } catch (Exception e) {
             // Usando defaults em caso de erro
         }
+        rebuildFalloff();
     }
 
     public void save() {
@@ -50,8 +102,30 @@ public final class VoiceModConfig {
                 props.setProperty("voice.radius", String.valueOf(voiceRadius));
                 props.setProperty("voice.attenuation", String.valueOf(attenuationFactor));
                 props.setProperty("voice.3d.enabled", String.valueOf(enable3DAudio));
+                props.setProperty("voice.falloff", falloff);
+                props.setProperty("voice.falloff.reference", String.valueOf(falloffReference));
+                props.setProperty("voice.falloff.points", falloffPoints);
+                props.setProperty("voice.max-speakers", String.valueOf(maxSpeakers));
                 props.setProperty("websocket.port", String.valueOf(websocketPort));
+                props.setProperty("relay.enabled", String.valueOf(relayEnabled));
+                props.setProperty("voice.mix.enabled", String.valueOf(mixEnabled));
+                props.setProperty("voice.mix.codec", mixCodec);
                 props.setProperty("backend.url", backendUrl);
+                props.setProperty("backend.delta.enabled", String.valueOf(backendDeltaEnabled));
+                props.setProperty("backend.delta.epsilon", String.valueOf(backendDeltaEpsilon));
+                props.setProperty("backend.keyframe.interval", String.valueOf(backendKeyframeInterval));
+                props.setProperty("backend.format", backendFormat);
+                props.setProperty("backend.transport", backendTransport);
+                props.setProperty("backend.websocket.max-inflight", String.valueOf(backendMaxInFlight));
+                props.setProperty("backend.rate.adaptive", String.valueOf(backendRateAdaptive));
+                props.setProperty("backend.rate.min-ms", String.valueOf(backendRateMinMs));
+                props.setProperty("backend.rate.max-ms", String.valueOf(backendRateMaxMs));
+                props.setProperty("backend.graph.enabled", String.valueOf(backendGraphEnabled));
+                props.setProperty("metrics.prometheus.port", String.valueOf(metricsPrometheusPort));
+                props.setProperty("voice.occlusion.enabled", String.valueOf(occlusionEnabled));
+                props.setProperty("voice.occlusion.block-loss", String.valueOf(occlusionBlockLoss));
+                props.setProperty("voice.occlusion.rays-per-tick", String.valueOf(occlusionRaysPerTick));
+                props.setProperty("voice.occlusion.materials", occlusionMaterialOverrides);
                 props.store(writer, "VoiceMod Configuration");
             }
         } catch (Exception e) {
@@ -71,19 +145,123 @@ public final class VoiceModConfig {
         return enable3DAudio;
     }
 
+    /**
+     * Curva de volume pré-calculada para o raio atual. Trocada inteira (nunca alterada)
+     * ao recarregar ou mudar raio/atenuação; quem usa lê uma vez por tick.
+     */
+    public FalloffTable getFalloffTable() {
+        return falloffTable;
+    }
+
     public int getWebsocketPort() {
         return websocketPort;
     }
 
+    /** Relay embutido em websocket.port no lugar do backend Node. */
+    public boolean isRelayEnabled() {
+        return relayEnabled;
+    }
+
+    /** Máximo de falantes ouvidos por jogador (0 = todos ao alcance). */
+    public int getMaxSpeakers() {
+        return maxSpeakers;
+    }
+
+    /** Mixagem de áudio no servidor (só com o relay embutido). */
+    public boolean isMixEnabled() {
+        return mixEnabled;
+    }
+
+    public String getMixCodec() {
+        return mixCodec;
+    }
+
     public String getBackendUrl() {
         return backendUrl;
     }
 
+    /** Envia só o que mudou desde o último envio (com keyframes periódicos). */
+    public boolean isBackendDeltaEnabled() {
+        return backendDeltaEnabled;
+    }
+
+    /** Deslocamento mínimo (blocos) para um jogador entrar num delta. */
+    public double getBackendDeltaEpsilon() {
+        return backendDeltaEpsilon;
+    }
+
+    /** A cada quantos envios sai um keyframe completo. */
+    public int getBackendKeyframeInterval() {
+        return backendKeyframeInterval;
+    }
+
+    /** Formato do envio de posições: binary (padrão) ou json (depuração). */
+    public String getBackendFormat() {
+        return backendFormat;
+    }
+
+    /** Transporte das posições: http (POST a cada envio) ou websocket (conexão persistente). */
+    public String getBackendTransport() {
+        return backendTransport;
+    }
+
+    /** Máximo de frames na fila do WebSocket antes de pular envios. */
+    public int getBackendMaxInFlight() {
+        return backendMaxInFlight;
+    }
+
+    /** Taxa de envio por jogador conforme movimento e fala (senão todos a cada 100ms). */
+    public boolean isBackendRateAdaptive() {
+        return backendRateAdaptive;
+    }
+
+    /** Intervalo (ms) de quem está falando ou perto de quem fala; também o período do connector. */
+    public int getBackendRateMinMs() {
+        return backendRateMinMs;
+    }
+
+    /** Intervalo máximo (ms) de quem está parado/devagar e longe de quem fala. */
+    public int getBackendRateMaxMs() {
+        return backendRateMaxMs;
+    }
+
+    /** Envia o grafo de audibilidade ao backend (que deixa de calcular proximidade). */
+    public boolean isBackendGraphEnabled() {
+        return backendGraphEnabled;
+    }
+
+    /** Porta do endpoint Prometheus local (127.0.0.1/metrics); 0 desliga. */
+    public int getMetricsPrometheusPort() {
+        return metricsPrometheusPort;
+    }
+
+    /** Atenua a voz pelos blocos entre os jogadores (raycast). */
+    public boolean isOcclusionEnabled() {
+        return occlusionEnabled;
+    }
+
+    /** Máximo de raios de oclusão por tick em cada mundo. */
+    public int getOcclusionRaysPerTick() {
+        return occlusionRaysPerTick;
+    }
+
+    /** Perda por bloco atravessado (padrão e por id de bloco). */
+    public OcclusionMaterials getOcclusionMaterials() {
+        return occlusionMaterials;
+    }
+
     public void setVoiceRadius(int voiceRadius) {
         this.voiceRadius = Math.max(4, Math.min(128, voiceRadius));
+        rebuildFalloff();
     }
 
     public void setAttenuationFactor(double attenuationFactor) {
         this.attenuationFactor = Math.max(0.001, Math.min(0.1, attenuationFactor));
+        rebuildFalloff();
+    }
+
+    private void rebuildFalloff() {
+        var curve = FalloffCurve.of(falloff, attenuationFactor, falloffReference, falloffPoints);
+        falloffTable = new FalloffTable(curve, voiceRadius);
     }
 }
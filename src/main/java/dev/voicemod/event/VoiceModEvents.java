@@ -4,6 +4,8 @@ import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import dev.voicemod.VoiceModPlugin;
 import dev.voicemod.backend.PositionBuffer;
+import dev.voicemod.channel.VoiceChannels;
+import dev.voicemod.voice.PlayerRefIndex;
 import dev.voicemod.voice.VoiceSessionManager;
 
 import javax.annotation.Nonnull;
@@ -23,15 +25,20 @@ public final class VoiceModEvents {
     public void onPlayerConnect(@Nonnull PlayerConnectEvent event) {
         var playerRef = event.getPlayerRef();
         if (playerRef != null) {
+            PlayerRefIndex.INSTANCE.register(playerRef);
             VoiceSessionManager.INSTANCE.onPlayerJoin(playerRef);
+            VoiceChannels.INSTANCE.onPlayerJoin(playerRef.getUuid());
         }
     }
 
     public void onPlayerDisconnect(@Nonnull PlayerDisconnectEvent event) {
         var playerRef = event.getPlayerRef();
         if (playerRef != null) {
-            PositionBuffer.INSTANCE.remove(playerRef.getUuid().toString());
+            // sessão antes do buffer: um put atrasado da thread do mundo não recria o slot
             VoiceSessionManager.INSTANCE.onPlayerLeave(playerRef);
+            PositionBuffer.INSTANCE.remove(playerRef.getUuid());
+            VoiceChannels.INSTANCE.onPlayerLeave(playerRef.getUuid());
+            PlayerRefIndex.INSTANCE.unregister(playerRef);
         }
     }
 }
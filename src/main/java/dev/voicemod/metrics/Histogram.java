@@ -0,0 +1,94 @@
+package dev.voicemod.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma log-linear sem locks, no estilo do HdrHistogram.
+ * Valores até 63 têm bucket exato; acima disso cada potência de dois é dividida em
+ * 32 buckets (erro relativo de até ~3%). Gravar custa um incremento atômico num array
+ * fixo, então pode ser chamado do tick do mundo e da thread do connector ao mesmo tempo.
+ * Os valores são acumulados desde o início do servidor.
+ */
+public final class Histogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR = SUB_COUNT * 2;
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Grava um valor (negativos contam como 0). */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum() / n;
+    }
+
+    /**
+     * Valor no percentil (0-100), aproximado pelo meio do bucket.
+     * Leitura concorrente com gravações: o resultado pode estar atrasado por alguns valores.
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(max(), lowerBound(i) + (bucketWidth(i) - 1) / 2);
+            }
+        }
+        return max();
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR + (shift - 1) * SUB_COUNT + (top - SUB_COUNT);
+    }
+
+    static long lowerBound(int index) {
+        if (index < LINEAR) return index;
+        int shift = (index - LINEAR) / SUB_COUNT + 1;
+        long top = SUB_COUNT + (index - LINEAR) % SUB_COUNT;
+        return top << shift;
+    }
+
+    private static long bucketWidth(int index) {
+        if (index < LINEAR) return 1;
+        return 1L << ((index - LINEAR) / SUB_COUNT + 1);
+    }
+}
@@ -0,0 +1,108 @@
+package dev.voicemod.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Endpoint local /metrics no formato texto do Prometheus (opcional, metrics.prometheus.port).
+ * Só escuta em 127.0.0.1; histogramas saem como summary (quantis acumulados + _sum/_count).
+ */
+public final class PrometheusExporter {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final VoiceModMetrics metrics;
+    private HttpServer server;
+
+    public PrometheusExporter(VoiceModMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        var body = render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /** Texto de exposição com todas as métricas. */
+    public String render() {
+        var sb = new StringBuilder(2048);
+        summary(sb, "voicemod_proximity_tick_seconds", "Tempo do passe de proximidade por mundo (worker)", metrics.proximityTickNanos(), 1e-9);
+        summary(sb, "voicemod_proximity_handoff_seconds", "Parte da proximidade na thread do mundo", metrics.proximityHandoffNanos(), 1e-9);
+        summary(sb, "voicemod_proximity_pairs", "Pares avaliados por tick", metrics.pairsEvaluated(), 1);
+        summary(sb, "voicemod_listener_edges", "Arestas ouvinte produzidas por tick", metrics.listenerEdges(), 1);
+        summary(sb, "voicemod_snapshot_seconds", "Leitura do PositionBuffer por envio", metrics.snapshotNanos(), 1e-9);
+        summary(sb, "voicemod_encode_seconds", "Serialização do frame por envio", metrics.encodeNanos(), 1e-9);
+        summary(sb, "voicemod_send_latency_seconds", "Snapshot até a confirmação do backend", metrics.sendLatencyNanos(), 1e-9);
+        summary(sb, "voicemod_mix_seconds", "Mixagem de um quadro de áudio no servidor", metrics.mixNanos(), 1e-9);
+        summary(sb, "voicemod_mix_listeners", "Ouvintes com áudio mixado por quadro", metrics.mixListeners(), 1);
+
+        sb.append("# HELP voicemod_sent_bytes_total Bytes enviados ao backend\n");
+        sb.append("# TYPE voicemod_sent_bytes_total counter\n");
+        sb.append("voicemod_sent_bytes_total ").append(metrics.bytesSent()).append('\n');
+        sb.append("# HELP voicemod_sent_frames_total Frames enviados ao backend\n");
+        sb.append("# TYPE voicemod_sent_frames_total counter\n");
+        sb.append("voicemod_sent_frames_total ").append(metrics.framesSent()).append('\n');
+
+        sb.append("# HELP voicemod_proximity_skipped_total Posições substituídas antes do worker calcular\n");
+        sb.append("# TYPE voicemod_proximity_skipped_total counter\n");
+        sb.append("voicemod_proximity_skipped_total ").append(metrics.proximitySkipped()).append('\n');
+        sb.append("# HELP voicemod_proximity_errors_total Passes de proximidade que falharam\n");
+        sb.append("# TYPE voicemod_proximity_errors_total counter\n");
+        sb.append("voicemod_proximity_errors_total ").append(metrics.proximityErrors()).append('\n');
+
+        sb.append("# HELP voicemod_relay_frames_encoded_total Frames codificados pelo relay embutido\n");
+        sb.append("# TYPE voicemod_relay_frames_encoded_total counter\n");
+        sb.append("voicemod_relay_frames_encoded_total ").append(metrics.relayFramesEncoded()).append('\n');
+        sb.append("# HELP voicemod_relay_frames_queued_total Frames postos nas filas dos clientes do relay\n");
+        sb.append("# TYPE voicemod_relay_frames_queued_total counter\n");
+        sb.append("voicemod_relay_frames_queued_total ").append(metrics.relayFramesQueued()).append('\n');
+        sb.append("# HELP voicemod_relay_bytes_queued_total Bytes postos nas filas dos clientes do relay\n");
+        sb.append("# TYPE voicemod_relay_bytes_queued_total counter\n");
+        sb.append("voicemod_relay_bytes_queued_total ").append(metrics.relayBytesQueued()).append('\n');
+        sb.append("# HELP voicemod_mix_errors_total Quadros de mixagem que falharam\n");
+        sb.append("# TYPE voicemod_mix_errors_total counter\n");
+        sb.append("voicemod_mix_errors_total ").append(metrics.mixErrors()).append('\n');
+
+        sb.append("# HELP voicemod_errors_total Erros de envio por causa\n");
+        sb.append("# TYPE voicemod_errors_total counter\n");
+        for (var cause : VoiceModMetrics.ErrorCause.values()) {
+            sb.append("voicemod_errors_total{cause=\"").append(cause.label()).append("\"} ")
+                .append(metrics.errors(cause)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void summary(StringBuilder sb, String name, String help, Histogram h, double scale) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" summary\n");
+        for (var q : QUANTILES) {
+            sb.append(name).append("{quantile=\"").append(q).append("\"} ")
+                .append(h.percentile(q * 100) * scale).append('\n');
+        }
+        sb.append(name).append("_sum ").append(h.sum() * scale).append('\n');
+        sb.append(name).append("_count ").append(h.count()).append('\n');
+    }
+}
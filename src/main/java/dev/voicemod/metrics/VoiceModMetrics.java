@@ -0,0 +1,233 @@
+package dev.voicemod.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas do VoiceMod: tempos do tick de proximidade e do envio ao backend.
+ * Tudo sem locks (histogramas e LongAdder); gravar é barato o bastante para o tick do mundo.
+ * Lido pelo /voicemod metrics e pelo {@link PrometheusExporter}.
+ */
+public final class VoiceModMetrics {
+
+    public static final VoiceModMetrics INSTANCE = new VoiceModMetrics();
+
+    /** Causas de erro (conjunto fechado para manter a cardinalidade baixa no Prometheus). */
+    public enum ErrorCause {
+        TIMEOUT("timeout"),
+        CONNECT("connect"),
+        HTTP_4XX("http_4xx"),
+        HTTP_5XX("http_5xx"),
+        UNSUPPORTED_FORMAT("unsupported_format"),
+        WEBSOCKET("websocket"),
+        OTHER("other");
+
+        private final String label;
+
+        ErrorCause(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private final Histogram proximityTickNanos = new Histogram();
+    private final Histogram proximityHandoffNanos = new Histogram();
+    private final LongAdder proximitySkipped = new LongAdder();
+    private final LongAdder proximityErrors = new LongAdder();
+    private volatile String lastProximityError;
+    private final Histogram pairsEvaluated = new Histogram();
+    private final Histogram listenerEdges = new Histogram();
+    private final Histogram snapshotNanos = new Histogram();
+    private final Histogram encodeNanos = new Histogram();
+    private final Histogram sendLatencyNanos = new Histogram();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder[] errors = new LongAdder[ErrorCause.values().length];
+    private final Histogram mixNanos = new Histogram();
+    private final Histogram mixListeners = new Histogram();
+    private final LongAdder mixErrors = new LongAdder();
+    private volatile String lastMixError;
+    private final LongAdder relayFramesEncoded = new LongAdder();
+    private final LongAdder relayFramesQueued = new LongAdder();
+    private final LongAdder relayBytesQueued = new LongAdder();
+
+    private final long startedNanos = System.nanoTime();
+    private long rateSampleNanos = startedNanos;
+    private long rateSampleBytes;
+    private double bytesPerSecond;
+
+    private VoiceModMetrics() {
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = new LongAdder();
+        }
+    }
+
+    /** Parte do tick de proximidade que roda na thread do mundo (cópia das posições e entrega). */
+    public void recordProximityHandoff(long nanos) {
+        proximityHandoffNanos.record(nanos);
+    }
+
+    /** Posições de um mundo substituídas antes do worker calculá-las (worker atrasado). */
+    public void recordProximitySkipped() {
+        proximitySkipped.increment();
+    }
+
+    /** Passe de proximidade que falhou (o grafo anterior continua publicado). */
+    public void recordProximityError(Throwable error) {
+        proximityErrors.increment();
+        lastProximityError = error.toString();
+    }
+
+    /** Fim do passe de proximidade de um mundo (no worker). */
+    public void recordProximityTick(long nanos, int pairs, int edges) {
+        proximityTickNanos.record(nanos);
+        pairsEvaluated.record(pairs);
+        listenerEdges.record(edges);
+    }
+
+    /** Leitura do PositionBuffer e seleção do delta. */
+    public void recordSnapshot(long nanos) {
+        snapshotNanos.record(nanos);
+    }
+
+    /** Serialização do frame (binário ou JSON). */
+    public void recordEncode(long nanos) {
+        encodeNanos.record(nanos);
+    }
+
+    /** Frame entregue ao transporte. */
+    public void recordSent(int bytes) {
+        bytesSent.add(bytes);
+        framesSent.increment();
+    }
+
+    /** Do snapshot até a confirmação do backend. */
+    public void recordSendLatency(long nanos) {
+        sendLatencyNanos.record(nanos);
+    }
+
+    public void recordError(@Nonnull ErrorCause cause) {
+        errors[cause.ordinal()].increment();
+    }
+
+    /** Um quadro da mixagem no servidor: tempo total e ouvintes que receberam áudio. */
+    public void recordMix(long nanos, int listeners) {
+        mixNanos.record(nanos);
+        mixListeners.record(listeners);
+    }
+
+    /** Quadro de mixagem que falhou (os ouvintes ficam sem esse quadro). */
+    public void recordMixError(Throwable error) {
+        mixErrors.increment();
+        lastMixError = error.toString();
+    }
+
+    /** Frame do relay embutido codificado uma vez e posto na fila de {@code recipients} clientes. */
+    public void recordRelayFrame(int bytes, int recipients) {
+        relayFramesEncoded.increment();
+        relayFramesQueued.add(recipients);
+        relayBytesQueued.add((long) bytes * recipients);
+    }
+
+    public Histogram proximityTickNanos() {
+        return proximityTickNanos;
+    }
+
+    public Histogram proximityHandoffNanos() {
+        return proximityHandoffNanos;
+    }
+
+    public long proximitySkipped() {
+        return proximitySkipped.sum();
+    }
+
+    public long proximityErrors() {
+        return proximityErrors.sum();
+    }
+
+    /** Último erro de um passe de proximidade, ou null. */
+    public String lastProximityError() {
+        return lastProximityError;
+    }
+
+    public Histogram pairsEvaluated() {
+        return pairsEvaluated;
+    }
+
+    public Histogram listenerEdges() {
+        return listenerEdges;
+    }
+
+    public Histogram snapshotNanos() {
+        return snapshotNanos;
+    }
+
+    public Histogram encodeNanos() {
+        return encodeNanos;
+    }
+
+    public Histogram sendLatencyNanos() {
+        return sendLatencyNanos;
+    }
+
+    public long bytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long framesSent() {
+        return framesSent.sum();
+    }
+
+    public Histogram mixNanos() {
+        return mixNanos;
+    }
+
+    public Histogram mixListeners() {
+        return mixListeners;
+    }
+
+    public long mixErrors() {
+        return mixErrors.sum();
+    }
+
+    /** Último erro de um quadro de mixagem, ou null. */
+    public String lastMixError() {
+        return lastMixError;
+    }
+
+    public long relayFramesEncoded() {
+        return relayFramesEncoded.sum();
+    }
+
+    public long relayFramesQueued() {
+        return relayFramesQueued.sum();
+    }
+
+    public long relayBytesQueued() {
+        return relayBytesQueued.sum();
+    }
+
+    public long errors(@Nonnull ErrorCause cause) {
+        return errors[cause.ordinal()].sum();
+    }
+
+    public long uptimeSeconds() {
+        return (System.nanoTime() - startedNanos) / 1_000_000_000L;
+    }
+
+    /** Bytes/s desde a amostra anterior (a amostra avança no máximo uma vez por segundo). */
+    public synchronized double bytesPerSecond() {
+        long now = System.nanoTime();
+        long elapsed = now - rateSampleNanos;
+        if (elapsed >= 1_000_000_000L) {
+            long bytes = bytesSent();
+            bytesPerSecond = (bytes - rateSampleBytes) * 1e9 / elapsed;
+            rateSampleBytes = bytes;
+            rateSampleNanos = now;
+        }
+        return bytesPerSecond;
+    }
+}
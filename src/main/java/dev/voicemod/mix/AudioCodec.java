@@ -0,0 +1,41 @@
+package dev.voicemod.mix;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * Codec dos quadros de áudio do modo de mixagem no servidor. Entrada: um quadro mono de
+ * {@link AudioFormat#FRAME_SAMPLES} amostras por pacote; saída: o quadro estéreo mixado.
+ * Amostras em float, -1..1. Implementações guardam estado (Opus guarda), então cada
+ * falante/ouvinte usa a sua instância via {@link #newInstance()}.
+ */
+public interface AudioCodec {
+
+    String name();
+
+    /** Nova instância com estado zerado, mesmo codec. */
+    AudioCodec newInstance();
+
+    /** Decodifica um pacote em {@code out}; retorna amostras escritas (0 = pacote inválido). */
+    int decode(byte[] packet, int offset, int length, float[] out);
+
+    /** Codifica um quadro estéreo em {@code out}; retorna os bytes escritos. */
+    int encode(float[] left, float[] right, byte[] out);
+
+    /** Maior pacote que {@link #encode} pode produzir. */
+    int maxPacketBytes();
+
+    /**
+     * Codec pelo nome da config, ou null se não há esse codec. Vêm embutidos o PCM de 16 bits
+     * e o IMA ADPCM (4:1); Opus precisa de uma biblioteca nativa (libopus) que o plugin não traz.
+     */
+    @Nullable
+    static AudioCodec of(@Nonnull String name) {
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "pcm16" -> new Pcm16Codec();
+            case "adpcm" -> new ImaAdpcmCodec();
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package dev.voicemod.mix;
+
+/** Formato fixo do modo de mixagem: 48 kHz, quadros de 20 ms. */
+public final class AudioFormat {
+
+    public static final int SAMPLE_RATE = 48_000;
+    public static final int FRAME_MS = 20;
+    public static final int FRAME_SAMPLES = SAMPLE_RATE * FRAME_MS / 1000;
+
+    private AudioFormat() {
+    }
+}
@@ -0,0 +1,39 @@
+package dev.voicemod.mix;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Pool de quadros float de {@link AudioFormat#FRAME_SAMPLES} amostras, para a mixagem não
+ * alocar por quadro. Thread-safe; quadros além de {@code capacity} devolvidos vão para o GC.
+ */
+final class FramePool {
+
+    private final ArrayDeque<float[]> free = new ArrayDeque<>();
+    private final int capacity;
+
+    FramePool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /** Quadro com conteúdo indefinido. */
+    synchronized float[] acquire() {
+        var frame = free.poll();
+        return frame != null ? frame : new float[AudioFormat.FRAME_SAMPLES];
+    }
+
+    /** Quadro zerado (para acumular). */
+    float[] acquireSilent() {
+        var frame = acquire();
+        Arrays.fill(frame, 0f);
+        return frame;
+    }
+
+    synchronized void release(float[] frame) {
+        if (frame != null && free.size() < capacity) free.push(frame);
+    }
+
+    synchronized int size() {
+        return free.size();
+    }
+}
@@ -0,0 +1,125 @@
+package dev.voicemod.mix;
+
+/**
+ * IMA ADPCM, 4 bits por amostra (1/4 do PCM 16 bits), em Java puro. Cada canal do pacote
+ * começa com um cabeçalho de 4 bytes (preditor int16 LE, índice do passo, zero) seguido das
+ * amostras, duas por byte, nibble baixo primeiro; no estéreo vem o bloco da esquerda e depois
+ * o da direita. O cabeçalho deixa cada pacote decodificável sozinho; o encoder continua o
+ * preditor de um quadro para o outro, então cada ouvinte usa a sua instância.
+ */
+public final class ImaAdpcmCodec implements AudioCodec {
+
+    private static final int HEADER_BYTES = 4;
+
+    private static final int[] INDEX_TABLE = {-1, -1, -1, -1, 2, 4, 6, 8};
+
+    private static final int[] STEP_TABLE = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+            50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+            337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+            2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899,
+            15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+    };
+
+    /** Estado do encoder por canal: preditor e índice do passo. */
+    private final int[] predictor = new int[2];
+    private final int[] index = new int[2];
+
+    @Override
+    public String name() {
+        return "adpcm";
+    }
+
+    @Override
+    public AudioCodec newInstance() {
+        return new ImaAdpcmCodec();
+    }
+
+    @Override
+    public int decode(byte[] packet, int offset, int length, float[] out) {
+        if (length <= HEADER_BYTES) return 0;
+        int pred = (short) ((packet[offset + 1] << 8) | (packet[offset] & 0xFF));
+        int idx = packet[offset + 2] & 0xFF;
+        if (idx >= STEP_TABLE.length) return 0;
+        int samples = Math.min((length - HEADER_BYTES) * 2, out.length);
+        int base = offset + HEADER_BYTES;
+        for (int i = 0; i < samples; i++) {
+            int b = packet[base + (i >> 1)];
+            int nibble = (i & 1) == 0 ? b & 0x0F : (b >> 4) & 0x0F;
+            int step = STEP_TABLE[idx];
+            int diff = step >> 3;
+            if ((nibble & 4) != 0) diff += step;
+            if ((nibble & 2) != 0) diff += step >> 1;
+            if ((nibble & 1) != 0) diff += step >> 2;
+            pred = clamp((nibble & 8) != 0 ? pred - diff : pred + diff);
+            idx = Math.max(0, Math.min(STEP_TABLE.length - 1, idx + INDEX_TABLE[nibble & 7]));
+            out[i] = pred * (1f / 32768f);
+        }
+        return samples;
+    }
+
+    @Override
+    public int encode(float[] left, float[] right, byte[] out) {
+        int samples = Math.min(left.length, right.length) & ~1;
+        int block = HEADER_BYTES + samples / 2;
+        if (out.length < 2 * block) return 0;
+        encodeChannel(0, left, samples, out, 0);
+        encodeChannel(1, right, samples, out, block);
+        return 2 * block;
+    }
+
+    @Override
+    public int maxPacketBytes() {
+        return 2 * (HEADER_BYTES + AudioFormat.FRAME_SAMPLES / 2);
+    }
+
+    private void encodeChannel(int channel, float[] in, int samples, byte[] out, int offset) {
+        int pred = predictor[channel];
+        int idx = index[channel];
+        out[offset] = (byte) pred;
+        out[offset + 1] = (byte) (pred >> 8);
+        out[offset + 2] = (byte) idx;
+        out[offset + 3] = 0;
+        int base = offset + HEADER_BYTES;
+        for (int i = 0; i < samples; i++) {
+            int sample = clamp((int) (in[i] * 32767f));
+            int step = STEP_TABLE[idx];
+            int delta = sample - pred;
+            int nibble = 0;
+            if (delta < 0) {
+                nibble = 8;
+                delta = -delta;
+            }
+            // mesma conta do decoder, para o preditor dos dois lados andar junto
+            int diff = step >> 3;
+            if (delta >= step) {
+                nibble |= 4;
+                delta -= step;
+                diff += step;
+            }
+            if (delta >= step >> 1) {
+                nibble |= 2;
+                delta -= step >> 1;
+                diff += step >> 1;
+            }
+            if (delta >= step >> 2) {
+                nibble |= 1;
+                diff += step >> 2;
+            }
+            pred = clamp((nibble & 8) != 0 ? pred - diff : pred + diff);
+            idx = Math.max(0, Math.min(STEP_TABLE.length - 1, idx + INDEX_TABLE[nibble & 7]));
+            if ((i & 1) == 0) {
+                out[base + (i >> 1)] = (byte) nibble;
+            } else {
+                out[base + (i >> 1)] |= (byte) (nibble << 4);
+            }
+        }
+        predictor[channel] = pred;
+        index[channel] = idx;
+    }
+
+    /** Satura em vez de estourar (a soma de vários falantes passa de 1). */
+    private static int clamp(int v) {
+        return Math.max(-32768, Math.min(32767, v));
+    }
+}
@@ -0,0 +1,54 @@
+package dev.voicemod.mix;
+
+/**
+ * PCM 16 bits little-endian sem compressão: entrada mono, saída estéreo intercalada.
+ * Sem estado; serve para rede local e como referência para outros codecs.
+ */
+public final class Pcm16Codec implements AudioCodec {
+
+    @Override
+    public String name() {
+        return "pcm16";
+    }
+
+    @Override
+    public AudioCodec newInstance() {
+        return this;
+    }
+
+    @Override
+    public int decode(byte[] packet, int offset, int length, float[] out) {
+        int samples = Math.min(length / 2, out.length);
+        for (int i = 0; i < samples; i++) {
+            int lo = packet[offset + 2 * i] & 0xFF;
+            int hi = packet[offset + 2 * i + 1];
+            out[i] = (short) (hi << 8 | lo) * (1f / 32768f);
+        }
+        return samples;
+    }
+
+    @Override
+    public int encode(float[] left, float[] right, byte[] out) {
+        int samples = Math.min(Math.min(left.length, right.length), out.length / 4);
+        for (int i = 0; i < samples; i++) {
+            int l = toShort(left[i]);
+            int r = toShort(right[i]);
+            out[4 * i] = (byte) l;
+            out[4 * i + 1] = (byte) (l >> 8);
+            out[4 * i + 2] = (byte) r;
+            out[4 * i + 3] = (byte) (r >> 8);
+        }
+        return samples * 4;
+    }
+
+    @Override
+    public int maxPacketBytes() {
+        return AudioFormat.FRAME_SAMPLES * 4;
+    }
+
+    /** Satura em vez de estourar (a soma de vários falantes passa de 1). */
+    private static int toShort(float v) {
+        int s = (int) (v * 32767f);
+        return Math.max(-32768, Math.min(32767, s));
+    }
+}
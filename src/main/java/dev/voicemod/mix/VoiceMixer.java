@@ -0,0 +1,200 @@
+package dev.voicemod.mix;
+
+import dev.voicemod.voice.ListenerGraph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Mixagem no servidor: cada falante manda um quadro mono por pacote e cada ouvinte recebe
+ * um único quadro estéreo com todos que ele ouve, já com o volume do grafo de proximidade e
+ * pan pela direção do falante. Troca as N conexões P2P por cliente por uma só.
+ *
+ * {@link #submit} roda na thread de leitura de cada conexão: decodifica na hora num quadro do
+ * pool e guarda até {@link #MAX_BUFFERED} por falante (jitter). {@link #mixFrame} roda a cada
+ * {@link AudioFormat#FRAME_MS} numa thread só: tira um quadro de cada falante, percorre os
+ * ouvintes de cada um no grafo publicado (sem custo extra por par) e acumula nos quadros do
+ * ouvinte com laços simples sobre float[] que o JIT vetoriza. Buffers vêm de um pool.
+ *
+ * O pan é no espaço do ouvinte: a direção horizontal até o falante projetada no vetor
+ * "direita" da cabeça dele (yaw do grafo, {@link ListenerGraph#poseOf}); o volume já inclui
+ * distância e oclusão.
+ */
+public final class VoiceMixer {
+
+    /** Quadros guardados por falante; chegando mais, o mais velho é descartado. */
+    static final int MAX_BUFFERED = 4;
+
+    /** Recebe o pacote mixado de um ouvinte (válido só durante a chamada). */
+    @FunctionalInterface
+    public interface MixSink {
+        void accept(UUID listenerId, byte[] packet, int length);
+    }
+
+    private final AudioCodec codec;
+    private final FramePool pool = new FramePool(1024);
+    private final Map<UUID, SpeakerQueue> speakers = new ConcurrentHashMap<>();
+    /** Encoder de cada ouvinte (codecs com estado). */
+    private final Map<UUID, AudioCodec> encoders = new ConcurrentHashMap<>();
+
+    // Só na thread do mixer
+    private final Map<UUID, float[]> current = new HashMap<>();
+    private final Map<UUID, Mix> mixes = new HashMap<>();
+    private final ArrayDeque<Mix> spareMixes = new ArrayDeque<>();
+    private final ListenerGraph.EdgeConsumer accumulate = this::accumulate;
+    private final double[] speakerPos = new double[3];
+    /** x, y, z e yaw do ouvinte */
+    private final double[] listenerPose = new double[4];
+    private final byte[] packet;
+    private ListenerGraph graph;
+    private float[] source;
+    private Predicate<UUID> listening;
+
+    public VoiceMixer(AudioCodec codec) {
+        this.codec = codec;
+        this.packet = new byte[codec.maxPacketBytes()];
+    }
+
+    public AudioCodec codec() {
+        return codec;
+    }
+
+    /** Pacote de áudio de um falante (qualquer thread). Pacote que não decodifica é ignorado. */
+    public void submit(UUID speakerId, byte[] data, int offset, int length) {
+        var queue = speakers.computeIfAbsent(speakerId, id -> new SpeakerQueue(codec.newInstance()));
+        var frame = pool.acquire();
+        int samples = queue.decoder.decode(data, offset, length, frame);
+        if (samples == 0) {
+            pool.release(frame);
+            return;
+        }
+        if (samples < frame.length) Arrays.fill(frame, samples, frame.length, 0f);
+        pool.release(queue.offer(frame));
+    }
+
+    /** Jogador saiu: descarta o que ele mandou e o estado do encoder dele. */
+    public void remove(UUID playerId) {
+        encoders.remove(playerId);
+        var queue = speakers.remove(playerId);
+        if (queue != null) {
+            float[] frame;
+            while ((frame = queue.poll()) != null) {
+                pool.release(frame);
+            }
+        }
+    }
+
+    /**
+     * Mixa um quadro para todos os ouvintes aceitos por {@code listening} que ouvem alguém
+     * falando agora. Retorna quantos ouvintes receberam pacote.
+     */
+    public int mixFrame(Iterable<ListenerGraph> graphs, Predicate<UUID> listening, MixSink sink) {
+        current.clear();
+        for (var e : speakers.entrySet()) {
+            var frame = e.getValue().poll();
+            if (frame != null) current.put(e.getKey(), frame);
+        }
+        if (current.isEmpty()) return 0;
+
+        this.listening = listening;
+        for (var g : graphs) {
+            graph = g;
+            for (var e : current.entrySet()) {
+                if (!g.positionOf(e.getKey(), speakerPos)) continue;
+                source = e.getValue();
+                g.forEachListener(e.getKey(), accumulate);
+            }
+        }
+        graph = null;
+        source = null;
+        this.listening = null;
+
+        int served = 0;
+        for (var e : mixes.entrySet()) {
+            var mix = e.getValue();
+            var encoder = encoders.computeIfAbsent(e.getKey(), id -> codec.newInstance());
+            int length = encoder.encode(mix.left, mix.right, packet);
+            if (length > 0) {
+                sink.accept(e.getKey(), packet, length);
+                served++;
+            }
+            pool.release(mix.left);
+            pool.release(mix.right);
+            mix.left = null;
+            mix.right = null;
+            spareMixes.push(mix);
+        }
+        mixes.clear();
+        for (var frame : current.values()) {
+            pool.release(frame);
+        }
+        current.clear();
+        return served;
+    }
+
+    private void accumulate(UUID listenerId, double volume) {
+        if (volume <= 0 || !listening.test(listenerId) || !graph.poseOf(listenerId, listenerPose)) return;
+        var mix = mixes.get(listenerId);
+        if (mix == null) {
+            mix = spareMixes.isEmpty() ? new Mix() : spareMixes.pop();
+            mix.left = pool.acquireSilent();
+            mix.right = pool.acquireSilent();
+            mixes.put(listenerId, mix);
+        }
+        double pan = pan(speakerPos[0] - listenerPose[0], speakerPos[2] - listenerPose[2], listenerPose[3]);
+        // pan de potência constante: -1 = só esquerda, 1 = só direita
+        double angle = (pan + 1) * Math.PI / 4;
+        addScaled(mix.left, source, (float) (volume * Math.cos(angle)));
+        addScaled(mix.right, source, (float) (volume * Math.sin(angle)));
+    }
+
+    /**
+     * Lado do falante para um ouvinte com a cabeça em {@code yaw} (radianos; 0 = olhando para
+     * -Z, crescendo para oeste, como no Transform do Hytale): -1 esquerda, 1 direita, 0 à frente,
+     * atrás ou em cima. A frente é (-sen yaw, -cos yaw) em x/z e a direita (cos yaw, -sen yaw).
+     */
+    static double pan(double dx, double dz, double yaw) {
+        double length = Math.sqrt(dx * dx + dz * dz);
+        if (length == 0) return 0;
+        return (dx * Math.cos(yaw) - dz * Math.sin(yaw)) / length;
+    }
+
+    /** dst += gain * src (laço contíguo sem dependências: vetorizado pelo C2). */
+    static void addScaled(float[] dst, float[] src, float gain) {
+        int n = Math.min(dst.length, src.length);
+        for (int i = 0; i < n; i++) {
+            dst[i] += gain * src[i];
+        }
+    }
+
+    private static final class Mix {
+        float[] left;
+        float[] right;
+    }
+
+    /** Quadros decodificados de um falante, com o decoder dele. */
+    private static final class SpeakerQueue {
+        final AudioCodec decoder;
+        private final ArrayDeque<float[]> frames = new ArrayDeque<>(MAX_BUFFERED);
+
+        SpeakerQueue(AudioCodec decoder) {
+            this.decoder = decoder;
+        }
+
+        /** Enfileira; retorna o quadro descartado (o mais velho) ou null. */
+        synchronized float[] offer(float[] frame) {
+            var dropped = frames.size() >= MAX_BUFFERED ? frames.pollFirst() : null;
+            frames.addLast(frame);
+            return dropped;
+        }
+
+        synchronized float[] poll() {
+            return frames.pollFirst();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package dev.voicemod.proximity;
+
+/**
+ * Acesso de leitura aos blocos de um mundo para a oclusão.
+ * Na thread do mundo vem de World.getBlock; nos benchmarks, de um mundo falso.
+ */
+@FunctionalInterface
+public interface BlockSampler {
+
+    /** Id do bloco na posição (0 = ar). */
+    int blockAt(int x, int y, int z);
+}
@@ -0,0 +1,83 @@
+package dev.voicemod.proximity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Curva de queda do volume com a distância (1 = volume cheio, 0 = inaudível).
+ * Não é avaliada no loop de pares: {@link FalloffTable} a pré-calcula por distância².
+ */
+@FunctionalInterface
+public interface FalloffCurve {
+
+    /** Volume (0..1) a {@code distance} blocos, com o raio de voz {@code radius}. */
+    double volume(double distance, double radius);
+
+    /** exp(-k·d): a curva original do VoiceMod. */
+    static FalloffCurve exponential(double attenuation) {
+        return (d, r) -> Math.exp(-attenuation * d);
+    }
+
+    /** Cai em linha reta até 0 no raio. */
+    static FalloffCurve linear() {
+        return (d, r) -> 1 - d / r;
+    }
+
+    /** (ref/d)², volume cheio até {@code reference} blocos. */
+    static FalloffCurve inverseSquare(double reference) {
+        return (d, r) -> d <= reference ? 1 : (reference * reference) / (d * d);
+    }
+
+    /** 1 - ln(1+d)/ln(1+raio): cai rápido perto e devagar longe. */
+    static FalloffCurve logarithmic() {
+        return (d, r) -> 1 - Math.log1p(d) / Math.log1p(r);
+    }
+
+    /**
+     * Interpolação linear entre pontos "distância:volume" (ex.: "0:1,8:0.8,32:0").
+     * Antes do primeiro e depois do último ponto o volume fica constante.
+     */
+    static FalloffCurve piecewise(String points) {
+        var parsed = new ArrayList<double[]>();
+        for (var entry : points.split(",")) {
+            var parts = entry.trim().split(":");
+            if (parts.length != 2) continue;
+            try {
+                parsed.add(new double[] { Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()) });
+            } catch (NumberFormatException ignored) {
+                // ponto inválido
+            }
+        }
+        if (parsed.isEmpty()) return linear();
+        parsed.sort((p, q) -> Double.compare(p[0], q[0]));
+        double[] ds = new double[parsed.size()];
+        double[] vs = new double[parsed.size()];
+        for (int i = 0; i < ds.length; i++) {
+            ds[i] = parsed.get(i)[0];
+            vs[i] = parsed.get(i)[1];
+        }
+        return (d, r) -> {
+            int i = Arrays.binarySearch(ds, d);
+            if (i >= 0) return vs[i];
+            i = -i - 1;
+            if (i == 0) return vs[0];
+            if (i == ds.length) return vs[ds.length - 1];
+            double t = (d - ds[i - 1]) / (ds[i] - ds[i - 1]);
+            return vs[i - 1] + t * (vs[i] - vs[i - 1]);
+        };
+    }
+
+    /**
+     * Curva pelo nome da config: exponential, linear, inverse-square, logarithmic ou piecewise.
+     * Nome desconhecido cai na exponencial.
+     */
+    static FalloffCurve of(String name, double attenuation, double reference, String points) {
+        return switch (name == null ? "" : name.trim().toLowerCase()) {
+            case "linear" -> linear();
+            case "inverse-square" -> inverseSquare(reference);
+            case "logarithmic" -> logarithmic();
+            case "piecewise" -> piecewise(points == null ? "" : points);
+            default -> exponential(attenuation);
+        };
+    }
+}
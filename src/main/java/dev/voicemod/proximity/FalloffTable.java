@@ -0,0 +1,43 @@
+package dev.voicemod.proximity;
+
+/**
+ * {@link FalloffCurve} pré-calculada para um raio, indexada pela distância² quantizada:
+ * o loop de pares consulta o volume sem sqrt nem exp. Entre duas entradas interpola
+ * linearmente. Imutável; a config troca a tabela inteira ao recarregar.
+ */
+public final class FalloffTable {
+
+    /** Entradas da tabela (intervalos de raio²/STEPS). */
+    static final int STEPS = 4096;
+
+    private final double radius;
+    private final double radiusSq;
+    private final double scale;
+    private final float[] volumes;
+
+    public FalloffTable(FalloffCurve curve, double radius) {
+        this.radius = radius;
+        this.radiusSq = radius * radius;
+        this.scale = STEPS / radiusSq;
+        this.volumes = new float[STEPS + 2];
+        for (int i = 0; i <= STEPS; i++) {
+            double distance = Math.sqrt(i / scale);
+            volumes[i] = (float) Math.max(0, Math.min(1, curve.volume(distance, radius)));
+        }
+        volumes[STEPS + 1] = volumes[STEPS];
+    }
+
+    public double radius() {
+        return radius;
+    }
+
+    /** Volume a uma distância² (0 fora do raio). */
+    public double volumeSq(double distanceSq) {
+        if (distanceSq > radiusSq) return 0;
+        if (distanceSq <= 0) return volumes[0];
+        double pos = distanceSq * scale;
+        int i = (int) pos;
+        double t = pos - i;
+        return volumes[i] + t * (volumes[i + 1] - volumes[i]);
+    }
+}
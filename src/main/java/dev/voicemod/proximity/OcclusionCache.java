@@ -0,0 +1,280 @@
+package dev.voicemod.proximity;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache de oclusão por par de jogadores de um mundo, com orçamento de raios por tick.
+ *
+ * Dividido entre duas threads: o worker de proximidade consulta {@link #factor} para cada par
+ * (nunca lê blocos) e a thread do mundo, que pode ler blocos, lança os raios em
+ * {@link #castPending} no começo do tick seguinte. Par novo usa volume cheio até o primeiro
+ * raio (um tick). Um par fica sujo quando um dos dois anda mais que {@link #MOVE_THRESHOLD}
+ * blocos ou quando muda bloco num chunk que o último raio atravessou; até ser recalculado usa
+ * o valor anterior. O orçamento vai primeiro para os sujos e depois para os mais antigos
+ * (round-robin), o que também pega mudanças de bloco que não passaram por {@link #invalidateBlock}.
+ * Métodos sincronizados: só as duas threads do mesmo mundo disputam o lock, e os raios
+ * são lançados fora dele.
+ */
+public final class OcclusionCache {
+
+    /** Deslocamento (blocos) de qualquer ponta que torna o par sujo. */
+    static final double MOVE_THRESHOLD = 1.0;
+    /** Perda em que o raio para: exp(-5) ≈ 0.7% do volume. */
+    static final double MAX_LOSS = 5.0;
+    /** Ticks sem ver o par até descartá-lo. */
+    static final long EVICT_TICKS = 100;
+    /** Ticks que uma mudança de bloco fica registrada (o round-robin cobre o resto). */
+    static final long CHUNK_CHANGE_TTL = 1200;
+    /** Pares inspecionados por tick só para despejo, mesmo sem orçamento. */
+    private static final int EVICT_SCAN = 8;
+
+    /** Par (menor UUID primeiro) → entrada. */
+    private final Map<UUID, Map<UUID, Entry>> entries = new HashMap<>();
+    /** Ordem de recálculo: cabeça = calculado há mais tempo. */
+    private final ArrayDeque<Entry> ring = new ArrayDeque<>();
+    private final ArrayDeque<Entry> dirty = new ArrayDeque<>();
+    /** Chave do chunk → tick da última mudança de bloco. */
+    private final Map<Long, Long> chunkChanges = new HashMap<>();
+    private long lastChunkChange = -1;
+
+    private long tick;
+    private int rays;
+
+    // Lote de raios do castPending (só a thread do mundo)
+    private Entry[] batch = new Entry[16];
+    private double[] batchPos = new double[16 * 6];
+    private double[] batchLoss = new double[16];
+    private int[] chunkStart = new int[16];
+    private int[] chunkEnd = new int[16];
+    private int batchSize;
+    private long[] chunks = new long[64];
+    private int chunkCount;
+    private final OcclusionRaycaster.ChunkVisitor chunkSink = this::addChunk;
+
+    /** Começa um passe de pares (worker). */
+    public synchronized void beginTick() {
+        tick++;
+    }
+
+    /**
+     * Fator de volume (0..1) entre dois pontos de escuta. Simétrico: a ordem de a e b não importa.
+     * Não lança raios: pares novos ou sujos entram na fila de {@link #castPending}.
+     */
+    public synchronized double factor(UUID a, double ax, double ay, double az, UUID b, double bx, double by, double bz) {
+        if (a.compareTo(b) > 0) {
+            return factor(b, bx, by, bz, a, ax, ay, az);
+        }
+        var byB = entries.computeIfAbsent(a, id -> new HashMap<>());
+        var entry = byB.get(b);
+        if (entry == null) {
+            entry = new Entry(a, b);
+            byB.put(b, entry);
+            ring.addLast(entry);
+            entry.observe(tick, ax, ay, az, bx, by, bz);
+            markDirty(entry);
+            return entry.factor;
+        }
+        entry.observe(tick, ax, ay, az, bx, by, bz);
+        if (!entry.queued && isStale(entry)) {
+            markDirty(entry);
+        }
+        return entry.factor;
+    }
+
+    /**
+     * Lança até {@code budget} raios (thread do mundo): sujos primeiro, depois round-robin.
+     * Também descarta pares que sumiram. Só a escolha dos pares e a gravação dos resultados
+     * seguram o lock; os raios são lançados fora dele, com as posições copiadas, para o worker
+     * não esperar o lote inteiro em {@link #factor}.
+     */
+    public void castPending(BlockSampler blocks, OcclusionMaterials materials, int budget) {
+        long castTick;
+        synchronized (this) {
+            castTick = tick;
+            batchSize = 0;
+            while (budget > 0 && !dirty.isEmpty()) {
+                var entry = dirty.pollFirst();
+                entry.queued = false;
+                if (!entry.evicted) {
+                    select(entry);
+                    budget--;
+                }
+            }
+
+            int scan = Math.min(ring.size(), budget + EVICT_SCAN);
+            for (int i = 0; i < scan; i++) {
+                var entry = ring.pollFirst();
+                if (tick - entry.lastSeen > EVICT_TICKS) {
+                    evict(entry);
+                    continue;
+                }
+                if (budget > 0 && entry.castTick < tick) {
+                    select(entry);
+                    budget--;
+                }
+                ring.addLast(entry);
+            }
+
+            if (tick % EVICT_TICKS == 0 && !chunkChanges.isEmpty()) {
+                chunkChanges.values().removeIf(changed -> tick - changed > CHUNK_CHANGE_TTL);
+            }
+        }
+
+        // fora do lock: só a thread do mundo mexe no lote
+        chunkCount = 0;
+        for (int i = 0; i < batchSize; i++) {
+            int p = i * 6;
+            chunkStart[i] = chunkCount;
+            batchLoss[i] = OcclusionRaycaster.trace(
+                blocks, materials, MAX_LOSS,
+                batchPos[p], batchPos[p + 1], batchPos[p + 2], batchPos[p + 3], batchPos[p + 4], batchPos[p + 5],
+                chunkSink
+            );
+            chunkEnd[i] = chunkCount;
+        }
+
+        synchronized (this) {
+            rays = batchSize;
+            for (int i = 0; i < batchSize; i++) {
+                var entry = batch[i];
+                batch[i] = null;
+                if (!entry.evicted) apply(entry, i, castTick);
+            }
+        }
+    }
+
+    /** Um bloco mudou: pares cujo raio passou pelo chunk ficam sujos. */
+    public synchronized void invalidateBlock(int x, int z) {
+        chunkChanges.put(OcclusionRaycaster.chunkKey(x, z), tick);
+        lastChunkChange = tick;
+    }
+
+    /** Raios lançados no último {@link #castPending}. */
+    public synchronized int raysThisTick() {
+        return rays;
+    }
+
+    public synchronized int size() {
+        return ring.size();
+    }
+
+    private boolean isStale(Entry entry) {
+        if (entry.moved() > MOVE_THRESHOLD * MOVE_THRESHOLD) return true;
+        if (lastChunkChange < entry.castTick) return false;
+        for (int i = 0; i < entry.chunkCount; i++) {
+            var changed = chunkChanges.get(entry.chunks[i]);
+            if (changed != null && changed >= entry.castTick) return true;
+        }
+        return false;
+    }
+
+    private void markDirty(Entry entry) {
+        entry.queued = true;
+        dirty.addLast(entry);
+    }
+
+    /** Põe o par no lote com as posições atuais (com o lock). */
+    private void select(Entry entry) {
+        if (batchSize == batch.length) {
+            int size = batchSize * 2;
+            batch = Arrays.copyOf(batch, size);
+            batchPos = Arrays.copyOf(batchPos, size * 6);
+            batchLoss = Arrays.copyOf(batchLoss, size);
+            chunkStart = Arrays.copyOf(chunkStart, size);
+            chunkEnd = Arrays.copyOf(chunkEnd, size);
+        }
+        int p = batchSize * 6;
+        batchPos[p] = entry.ax;
+        batchPos[p + 1] = entry.ay;
+        batchPos[p + 2] = entry.az;
+        batchPos[p + 3] = entry.bx;
+        batchPos[p + 4] = entry.by;
+        batchPos[p + 5] = entry.bz;
+        batch[batchSize++] = entry;
+        // já escolhido neste tick: o round-robin não pega de novo
+        entry.castTick = tick;
+    }
+
+    /** Grava o resultado do raio {@code i} do lote (com o lock). */
+    private void apply(Entry entry, int i, long castTick) {
+        int p = i * 6;
+        entry.factor = Math.exp(-batchLoss[i]);
+        // mudança no mesmo tick conta como posterior ao raio (>= em isStale)
+        entry.castTick = castTick;
+        entry.castAx = batchPos[p];
+        entry.castAy = batchPos[p + 1];
+        entry.castAz = batchPos[p + 2];
+        entry.castBx = batchPos[p + 3];
+        entry.castBy = batchPos[p + 4];
+        entry.castBz = batchPos[p + 5];
+        entry.chunkCount = 0;
+        for (int c = chunkStart[i]; c < chunkEnd[i]; c++) {
+            entry.addChunk(chunks[c]);
+        }
+    }
+
+    private void addChunk(long key) {
+        if (chunkCount == chunks.length) chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        chunks[chunkCount++] = key;
+    }
+
+    private void evict(Entry entry) {
+        entry.evicted = true;
+        var byB = entries.get(entry.a);
+        if (byB != null) {
+            byB.remove(entry.b);
+            if (byB.isEmpty()) entries.remove(entry.a);
+        }
+    }
+
+    private static final class Entry {
+        final UUID a;
+        final UUID b;
+        double factor = 1.0;
+        /** Posições mais recentes */
+        double ax, ay, az, bx, by, bz;
+        /** Posições do último raio */
+        double castAx, castAy, castAz, castBx, castBy, castBz;
+        long castTick = Long.MIN_VALUE;
+        long lastSeen;
+        boolean queued;
+        boolean evicted;
+        long[] chunks = new long[4];
+        int chunkCount;
+
+        Entry(UUID a, UUID b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        void observe(long tick, double ax, double ay, double az, double bx, double by, double bz) {
+            this.lastSeen = tick;
+            this.ax = ax;
+            this.ay = ay;
+            this.az = az;
+            this.bx = bx;
+            this.by = by;
+            this.bz = bz;
+        }
+
+        /** Maior deslocamento² das pontas desde o último raio. */
+        double moved() {
+            double da = sq(ax - castAx) + sq(ay - castAy) + sq(az - castAz);
+            double db = sq(bx - castBx) + sq(by - castBy) + sq(bz - castBz);
+            return Math.max(da, db);
+        }
+
+        void addChunk(long key) {
+            if (chunkCount == chunks.length) chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            chunks[chunkCount++] = key;
+        }
+
+        private static double sq(double v) {
+            return v * v;
+        }
+    }
+}
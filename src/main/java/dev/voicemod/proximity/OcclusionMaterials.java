@@ -0,0 +1,52 @@
+package dev.voicemod.proximity;
+
+import java.util.Arrays;
+
+/**
+ * Perda (atenuação exponencial) por bloco atravessado, por id de bloco.
+ * Ar (id 0) não atenua; ids sem valor próprio usam a perda padrão.
+ * Imutável: a config recarregada gera uma nova instância.
+ */
+public final class OcclusionMaterials {
+
+    private final double defaultLoss;
+    private final double[] losses;
+
+    private OcclusionMaterials(double defaultLoss, double[] losses) {
+        this.defaultLoss = defaultLoss;
+        this.losses = losses;
+    }
+
+    /**
+     * Lê a lista "id:perda,id:perda" (ex.: "12:0.1,40:0.8"); entradas inválidas são ignoradas.
+     */
+    public static OcclusionMaterials parse(double defaultLoss, String overrides) {
+        var losses = new double[0];
+        if (overrides != null && !overrides.isBlank()) {
+            for (var entry : overrides.split(",")) {
+                var parts = entry.trim().split(":");
+                if (parts.length != 2) continue;
+                try {
+                    int id = Integer.parseInt(parts[0].trim());
+                    double loss = Double.parseDouble(parts[1].trim());
+                    if (id <= 0 || id > 0xFFFF || loss < 0) continue;
+                    if (id >= losses.length) {
+                        int old = losses.length;
+                        losses = Arrays.copyOf(losses, id + 1);
+                        Arrays.fill(losses, old, losses.length, Double.NaN);
+                    }
+                    losses[id] = loss;
+                } catch (NumberFormatException ignored) {
+                    // entrada inválida
+                }
+            }
+        }
+        return new OcclusionMaterials(defaultLoss, losses);
+    }
+
+    public double lossOf(int blockId) {
+        if (blockId == 0) return 0;
+        if (blockId > 0 && blockId < losses.length && !Double.isNaN(losses[blockId])) return losses[blockId];
+        return defaultLoss;
+    }
+}
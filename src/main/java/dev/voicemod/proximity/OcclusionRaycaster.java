@@ -0,0 +1,70 @@
+package dev.voicemod.proximity;
+
+/**
+ * Raycast por voxels (DDA de Amanatides &amp; Woo) entre duas posições.
+ * Soma a perda dos blocos atravessados, sem contar os blocos das pontas (onde estão
+ * as cabeças dos jogadores), e para assim que a perda passa do máximo.
+ * Informa as colunas de chunk visitadas para a invalidação do cache.
+ */
+public final class OcclusionRaycaster {
+
+    /** Recebe a chave de cada chunk atravessado (pode repetir). */
+    @FunctionalInterface
+    public interface ChunkVisitor {
+        void accept(long chunkKey);
+    }
+
+    /** Chunks de 32x32 blocos em x/z. */
+    public static final int CHUNK_SHIFT = 5;
+
+    private OcclusionRaycaster() {}
+
+    public static long chunkKey(int blockX, int blockZ) {
+        return ((long) (blockX >> CHUNK_SHIFT) << 32) | ((blockZ >> CHUNK_SHIFT) & 0xFFFFFFFFL);
+    }
+
+    /** Perda total entre a e b (0 = linha livre). */
+    public static double trace(BlockSampler blocks, OcclusionMaterials materials, double maxLoss,
+                               double ax, double ay, double az, double bx, double by, double bz,
+                               ChunkVisitor chunks) {
+        int x = (int) Math.floor(ax), y = (int) Math.floor(ay), z = (int) Math.floor(az);
+        int endX = (int) Math.floor(bx), endY = (int) Math.floor(by), endZ = (int) Math.floor(bz);
+        double dx = bx - ax, dy = by - ay, dz = bz - az;
+
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+        double tDeltaX = dx != 0 ? Math.abs(1 / dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = dy != 0 ? Math.abs(1 / dy) : Double.POSITIVE_INFINITY;
+        double tDeltaZ = dz != 0 ? Math.abs(1 / dz) : Double.POSITIVE_INFINITY;
+        double tMaxX = dx != 0 ? (dx > 0 ? (x + 1 - ax) : (ax - x)) * tDeltaX : Double.POSITIVE_INFINITY;
+        double tMaxY = dy != 0 ? (dy > 0 ? (y + 1 - ay) : (ay - y)) * tDeltaY : Double.POSITIVE_INFINITY;
+        double tMaxZ = dz != 0 ? (dz > 0 ? (z + 1 - az) : (az - z)) * tDeltaZ : Double.POSITIVE_INFINITY;
+
+        long lastChunk = chunkKey(x, z);
+        chunks.accept(lastChunk);
+        double loss = 0;
+        int limit = Math.abs(endX - x) + Math.abs(endY - y) + Math.abs(endZ - z);
+        for (int i = 0; i < limit; i++) {
+            if (tMaxX < tMaxY && tMaxX < tMaxZ) {
+                x += stepX;
+                tMaxX += tDeltaX;
+            } else if (tMaxY < tMaxZ) {
+                y += stepY;
+                tMaxY += tDeltaY;
+            } else {
+                z += stepZ;
+                tMaxZ += tDeltaZ;
+            }
+            if (x == endX && y == endY && z == endZ) break;
+            long chunk = chunkKey(x, z);
+            if (chunk != lastChunk) {
+                chunks.accept(chunk);
+                lastChunk = chunk;
+            }
+            loss += materials.lossOf(blocks.blockAt(x, y, z));
+            if (loss >= maxLoss) return maxLoss;
+        }
+        long endChunk = chunkKey(endX, endZ);
+        if (endChunk != lastChunk) chunks.accept(endChunk);
+        return loss;
+    }
+}
@@ -0,0 +1,116 @@
+package dev.voicemod.proximity;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Posições de um mundo num tick, em arrays primitivos (struct-of-arrays).
+ * Preenchido uma vez por tick; {@link #evaluatePairs} visita cada par não ordenado
+ * uma única vez, e quem recebe o par escreve as duas direções (A→B e B→A).
+ * Não é thread-safe: um snapshot por mundo.
+ */
+public final class PositionSnapshot {
+
+    /** Recebe um par (a &lt; b) dentro do raio, com a distância ao quadrado (sem sqrt). */
+    @FunctionalInterface
+    public interface PairSink {
+        void accept(int a, int b, double distanceSq);
+    }
+
+    private final SpatialGrid grid = new SpatialGrid();
+    private UUID[] ids = new UUID[16];
+    private double[] x = new double[16];
+    private double[] y = new double[16];
+    private double[] z = new double[16];
+    private int count;
+
+    public void clear() {
+        Arrays.fill(ids, 0, count, null);
+        count = 0;
+    }
+
+    /** Garante espaço para {@code players} jogadores sem crescer no meio do tick. */
+    public void ensureCapacity(int players) {
+        if (players <= ids.length) return;
+        ids = Arrays.copyOf(ids, players);
+        x = Arrays.copyOf(x, players);
+        y = Arrays.copyOf(y, players);
+        z = Arrays.copyOf(z, players);
+    }
+
+    /** Adiciona um jogador e retorna o seu índice no snapshot. */
+    public int add(UUID id, double px, double py, double pz) {
+        if (count == ids.length) {
+            int size = count * 2;
+            ids = Arrays.copyOf(ids, size);
+            x = Arrays.copyOf(x, size);
+            y = Arrays.copyOf(y, size);
+            z = Arrays.copyOf(z, size);
+        }
+        ids[count] = id;
+        x[count] = px;
+        y[count] = py;
+        z[count] = pz;
+        return count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public UUID id(int i) {
+        return ids[i];
+    }
+
+    public double x(int i) {
+        return x[i];
+    }
+
+    public double y(int i) {
+        return y[i];
+    }
+
+    public double z(int i) {
+        return z[i];
+    }
+
+    /**
+     * Indexa o snapshot na grade e entrega ao sink cada par dentro do raio, uma vez só.
+     * Retorna quantos pares tiveram a distância calculada.
+     */
+    public int evaluatePairs(double radius, PairSink sink) {
+        grid.reset(radius, count);
+        for (int i = 0; i < count; i++) {
+            grid.insert(i, x[i], y[i], z[i]);
+        }
+
+        double radiusSq = radius * radius;
+        int evaluated = 0;
+        for (int i = 0; i < count; i++) {
+            double ix = x[i], iy = y[i], iz = z[i];
+            int cx = grid.cellCoord(ix), cy = grid.cellCoord(iy), cz = grid.cellCoord(iz);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        for (int j = grid.first(cx + dx, cy + dy, cz + dz); j != SpatialGrid.NONE; j = grid.next(j)) {
+                            if (j <= i) continue;
+                            evaluated++;
+                            // caixa do raio por eixo antes da distância²
+                            double ddx = x[j] - ix;
+                            if (ddx > radius || ddx < -radius) continue;
+                            double ddy = y[j] - iy;
+                            if (ddy > radius || ddy < -radius) continue;
+                            double ddz = z[j] - iz;
+                            if (ddz > radius || ddz < -radius) continue;
+                            double distanceSq = ddx * ddx + ddy * ddy + ddz * ddz;
+                            if (distanceSq <= radiusSq) {
+                                sink.accept(i, j, distanceSq);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return evaluated;
+    }
+}
@@ -0,0 +1,138 @@
+package dev.voicemod.proximity;
+
+import java.util.Arrays;
+
+/**
+ * Grade espacial uniforme para consultas de vizinhança.
+ * O tamanho da célula é o raio de voz, então quem está dentro do raio sempre
+ * cai nas 27 células vizinhas (3x3x3) da célula do ouvinte.
+ *
+ * Reconstruída uma vez por tick; reset() é O(1) (marcação por geração) e
+ * a inserção/consulta não aloca depois que os arrays crescem.
+ * Não é thread-safe: cada mundo usa a sua própria instância.
+ */
+public final class SpatialGrid {
+
+    /** Fim de lista / célula vazia. */
+    public static final int NONE = -1;
+
+    private double invCellSize = 1.0 / 32;
+
+    private long[] keys = new long[64];
+    private int[] heads = new int[64];
+    private int[] stamps = new int[64];
+    private int mask = 63;
+    private int generation = 1;
+    private int cells;
+
+    private int[] next = new int[32];
+
+    /** Limpa a grade e define o tamanho das células. */
+    public void reset(double cellSize, int expectedEntries) {
+        this.invCellSize = 1.0 / Math.max(1.0, cellSize);
+        if (next.length < expectedEntries) {
+            next = new int[Math.max(expectedEntries, next.length * 2)];
+        }
+        int needed = tableSizeFor(Math.max(16, expectedEntries * 2));
+        if (keys.length < needed) {
+            keys = new long[needed];
+            heads = new int[needed];
+            stamps = new int[needed];
+            mask = needed - 1;
+            generation = 1;
+        } else if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        cells = 0;
+    }
+
+    /** Coordenada de célula para uma coordenada de mundo. */
+    public int cellCoord(double v) {
+        return (int) Math.floor(v * invCellSize);
+    }
+
+    /** Insere a entrada (índice no snapshot do chamador) na célula da posição. */
+    public void insert(int entry, double x, double y, double z) {
+        if (entry >= next.length) {
+            next = Arrays.copyOf(next, Math.max(entry + 1, next.length * 2));
+        }
+        if ((cells + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        long key = key(cellCoord(x), cellCoord(y), cellCoord(z));
+        int slot = slot(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                next[entry] = heads[slot];
+                heads[slot] = entry;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        stamps[slot] = generation;
+        keys[slot] = key;
+        heads[slot] = entry;
+        next[entry] = NONE;
+        cells++;
+    }
+
+    /** Primeira entrada da célula ou {@link #NONE}. */
+    public int first(int cx, int cy, int cz) {
+        long key = key(cx, cy, cz);
+        int slot = slot(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                return heads[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    /** Próxima entrada na mesma célula ou {@link #NONE}. */
+    public int next(int entry) {
+        return next[entry];
+    }
+
+    /** Quantidade de células ocupadas desde o último reset. */
+    public int occupiedCells() {
+        return cells;
+    }
+
+    private void rehash(int capacity) {
+        var oldKeys = keys;
+        var oldHeads = heads;
+        var oldStamps = stamps;
+        int oldGeneration = generation;
+        keys = new long[capacity];
+        heads = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+        generation = 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] != oldGeneration) continue;
+            int slot = slot(oldKeys[i]);
+            while (stamps[slot] == generation) {
+                slot = (slot + 1) & mask;
+            }
+            stamps[slot] = generation;
+            keys[slot] = oldKeys[i];
+            heads[slot] = oldHeads[i];
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((long) (cx & 0x1FFFFF) << 42) | ((long) (cy & 0x1FFFFF) << 21) | (cz & 0x1FFFFF);
+    }
+
+    private static int tableSizeFor(int n) {
+        int size = Integer.highestOneBit(Math.max(2, n - 1)) << 1;
+        return size < 0 ? 1 << 30 : size;
+    }
+}
@@ -0,0 +1,610 @@
+package dev.voicemod.relay;
+
+import dev.voicemod.config.VoiceModConfig;
+import dev.voicemod.metrics.VoiceModMetrics;
+import dev.voicemod.mix.AudioFormat;
+import dev.voicemod.mix.VoiceMixer;
+import dev.voicemod.voice.ListenerGraph;
+import dev.voicemod.voice.VoiceSessionManager;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Relay de voz embutido no plugin (relay.enabled), no lugar do backend Node: escuta em
+ * websocket.port, serve o cliente web (backend/public, empacotado em /web) e fala o mesmo
+ * protocolo WebSocket do server.js com os clientes de voz (join, nearby/nearby-diff,
+ * speaking, left e o signaling WebRTC).
+ *
+ * Nada passa pela rede até um backend: o nearby de cada cliente sai do {@link ListenerGraph}
+ * publicado pelo worker de proximidade do seu mundo e quem fala vai direto para o
+ * {@link VoiceSessionManager}. Uma thread virtual por conexão (mais uma para a escrita);
+ * o fan-out roda a cada {@link #TICK_MS} numa thread própria, com uma passada pelas arestas
+ * de cada mundo que tem cliente. Frames iguais para vários clientes (speaking, left, nearby
+ * sem posição) são codificados uma vez e o mesmo array vai para todas as filas; o trecho de
+ * cada falante ("id", nome, posição) é montado uma vez por tick e reaproveitado em todos os
+ * nearby que o incluem. O signaling é repassado sem remontar o SDP.
+ *
+ * Com um {@link VoiceMixer} (voice.mix.enabled) os clientes também mandam o áudio do microfone
+ * em frames binários e recebem de volta um único stream mixado a cada
+ * {@link AudioFormat#FRAME_MS}, em vez de uma conexão WebRTC por jogador próximo.
+ */
+public final class EmbeddedRelayServer {
+
+    /** Intervalo do fan-out de nearby (o do server.js). */
+    static final long TICK_MS = 100;
+    /** Variação mínima de volume que gera diff (NEARBY_VOLUME_THRESHOLD do server.js). */
+    static final double VOLUME_THRESHOLD = 0.02;
+
+    private static final int MAX_MESSAGE = 256 * 1024;
+    private static final int MAX_REQUEST_LINE = 8 * 1024;
+    private static final int HANDSHAKE_TIMEOUT_MS = 10_000;
+    private static final Pattern ASSET_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    private final VoiceModConfig config;
+    private final VoiceModMetrics metrics = VoiceModMetrics.INSTANCE;
+    /** Clientes que já mandaram join, por jogador. */
+    private final Map<UUID, RelayClient> clients = new ConcurrentHashMap<>();
+    private final Set<RelayClient> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, byte[]> assets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+    private final VoiceMixer mixer;
+    private final ScheduledExecutorService mixTicker;
+    private final VoiceMixer.MixSink mixSink = this::sendMixed;
+    private volatile ServerSocket server;
+
+    // Estado do fan-out: só na thread do ticker
+    private final Map<UUID, List<RelayClient>> byWorld = new HashMap<>();
+    private final Map<UUID, String> entries = new HashMap<>();
+    private final Map<UUID, RelayClient> worldClients = new HashMap<>();
+    private final double[] position = new double[3];
+    private final StringBuilder sb = new StringBuilder(4096);
+    private final StringBuilder volumesSb = new StringBuilder(1024);
+    private long round;
+
+    public EmbeddedRelayServer(@Nonnull VoiceModConfig config, @Nullable VoiceMixer mixer) {
+        this.config = config;
+        this.mixer = mixer;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            var t = new Thread(r, "voicemod-relay");
+            t.setDaemon(true);
+            return t;
+        });
+        this.mixTicker = mixer == null ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            var t = new Thread(r, "voicemod-mixer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MAX_PRIORITY);
+            return t;
+        });
+    }
+
+    public void start() throws IOException {
+        var socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(config.getWebsocketPort()), 128);
+        server = socket;
+        Thread.ofVirtual().name("voicemod-relay-accept").start(() -> acceptLoop(socket));
+        ticker.scheduleAtFixedRate(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        if (mixTicker != null) {
+            mixTicker.scheduleAtFixedRate(this::mixFrame, AudioFormat.FRAME_MS, AudioFormat.FRAME_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() {
+        var socket = server;
+        server = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        ticker.shutdownNow();
+        if (mixTicker != null) mixTicker.shutdownNow();
+        for (var client : connections) {
+            client.close();
+        }
+        connections.clear();
+        clients.clear();
+    }
+
+    /** Clientes de voz com join feito. */
+    public int clientCount() {
+        return clients.size();
+    }
+
+    public int getPort() {
+        var socket = server;
+        return socket != null ? socket.getLocalPort() : config.getWebsocketPort();
+    }
+
+    private void acceptLoop(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            try {
+                var connection = socket.accept();
+                Thread.ofVirtual().name("voicemod-relay-conn").start(() -> serve(connection));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /** Lê o pedido HTTP: upgrade para WebSocket ou GET de arquivo do cliente web. */
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            var in = new DataInputStream(socket.getInputStream());
+            var requestLine = readLine(in);
+            String key = null;
+            boolean upgrade = false;
+            int headers = 0;
+            for (var line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+                if (++headers > 100) return;
+                int colon = line.indexOf(':');
+                if (colon <= 0) continue;
+                var name = line.substring(0, colon).trim();
+                var value = line.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Sec-WebSocket-Key")) key = value;
+                if (name.equalsIgnoreCase("Upgrade") && value.equalsIgnoreCase("websocket")) upgrade = true;
+            }
+            var parts = requestLine.split(" ");
+            if (parts.length < 3) return;
+            var path = parts[1];
+            int query = path.indexOf('?');
+            if (query >= 0) path = path.substring(0, query);
+
+            var out = socket.getOutputStream();
+            if (upgrade && key != null && !path.equals("/plugin")) {
+                var response = "HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + WebSocketFrames.acceptKey(key) + "\r\n\r\n";
+                out.write(response.getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                socket.setSoTimeout(0);
+                session(new RelayClient(socket), in);
+            } else if (!parts[0].equals("GET")) {
+                respond(out, "405 Method Not Allowed", "text/plain", new byte[0]);
+            } else {
+                serveHttp(out, path);
+            }
+        } catch (EOFException | SocketException e) {
+            // conexão fechada
+        } catch (IOException e) {
+            // pedido inválido ou cliente sumiu
+        }
+    }
+
+    private void serveHttp(OutputStream out, String path) throws IOException {
+        if (path.equals("/status")) {
+            // debug, como no server.js: quem o plugin conhece
+            var body = new StringBuilder("{\"count\":");
+            var states = VoiceSessionManager.INSTANCE.getAllStates();
+            body.append(states.size()).append(",\"playerIds\":[");
+            for (int i = 0; i < states.size(); i++) {
+                if (i > 0) body.append(',');
+                body.append('"').append(states.get(i).getPlayerId()).append('"');
+            }
+            body.append("]}");
+            respond(out, "200 OK", "application/json", body.toString().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        if (path.equals("/favicon.ico")) {
+            respond(out, "204 No Content", "text/plain", new byte[0]);
+            return;
+        }
+        var name = path.equals("/") ? "index.html" : path.substring(1);
+        var data = ASSET_NAME.matcher(name).matches() ? asset(name) : null;
+        if (data == null) {
+            respond(out, "404 Not Found", "text/plain", new byte[0]);
+        } else {
+            respond(out, "200 OK", contentType(name), data);
+        }
+    }
+
+    /** Arquivo do cliente web (recurso /web/...), lido uma vez. */
+    private byte[] asset(String name) throws IOException {
+        var cached = assets.get(name);
+        if (cached != null) return cached;
+        try (var in = EmbeddedRelayServer.class.getResourceAsStream("/web/" + name)) {
+            if (in == null) return null;
+            var data = in.readAllBytes();
+            assets.put(name, data);
+            return data;
+        }
+    }
+
+    /** Loop de leitura de um cliente de voz. */
+    private void session(RelayClient client, DataInputStream in) throws IOException {
+        connections.add(client);
+        try {
+            var message = new ByteArrayOutputStream();
+            int opcode = 0;
+            while (!client.isClosed()) {
+                var frame = WebSocketFrames.read(in, MAX_MESSAGE);
+                switch (frame.opcode()) {
+                    case WebSocketFrames.CLOSE -> {
+                        client.send(WebSocketFrames.encode(WebSocketFrames.CLOSE, frame.payload()));
+                        return;
+                    }
+                    case WebSocketFrames.PING -> client.send(WebSocketFrames.encode(WebSocketFrames.PONG, frame.payload()));
+                    case WebSocketFrames.PONG -> {
+                    }
+                    default -> {
+                        if (frame.fin() && frame.opcode() != 0) {
+                            // mensagem num frame só (o normal): sem cópia
+                            onMessage(client, frame.opcode(), frame.payload(), frame.payload().length);
+                            continue;
+                        }
+                        if (frame.opcode() != 0) {
+                            opcode = frame.opcode();
+                            message.reset();
+                        }
+                        message.write(frame.payload());
+                        if (message.size() > MAX_MESSAGE) return;
+                        if (frame.fin()) {
+                            onMessage(client, opcode, message.toByteArray(), message.size());
+                        }
+                    }
+                }
+            }
+        } finally {
+            connections.remove(client);
+            onClosed(client);
+            client.close();
+        }
+    }
+
+    private void onMessage(RelayClient client, int opcode, byte[] data, int length) {
+        if (opcode == WebSocketFrames.BINARY) {
+            // áudio do microfone (modo de mixagem)
+            var playerId = client.playerId;
+            if (mixer != null && playerId != null) mixer.submit(playerId, data, 0, length);
+            return;
+        }
+        if (opcode == WebSocketFrames.TEXT) {
+            onMessage(client, new String(data, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void onMessage(RelayClient client, String text) {
+        Map<String, String> msg;
+        try {
+            msg = RelayJson.fields(text);
+        } catch (RuntimeException e) {
+            error(client, "JSON inválido");
+            return;
+        }
+        var type = msg.getOrDefault("type", "");
+        switch (type) {
+            case "join" -> onJoin(client, msg);
+            case "speaking" -> onSpeaking(client, "true".equals(msg.get("speaking")));
+            case "webrtc-offer", "webrtc-answer", "webrtc-ice" -> onSignal(client, type, msg.get("to"), text);
+            case "position", "pong" -> {
+                // posição vem do próprio servidor; nada a fazer
+            }
+            default -> error(client, "Unknown message type");
+        }
+    }
+
+    private void onJoin(RelayClient client, Map<String, String> msg) {
+        UUID playerId;
+        try {
+            playerId = UUID.fromString(msg.getOrDefault("playerId", "").trim());
+        } catch (IllegalArgumentException e) {
+            error(client, "playerId inválido");
+            return;
+        }
+        var previousId = client.playerId;
+        if (previousId != null && !previousId.equals(playerId)) {
+            clients.remove(previousId, client);
+        }
+        var state = VoiceSessionManager.INSTANCE.getState(playerId);
+        client.playerId = playerId;
+        client.username = state != null ? state.getUsername() : msg.getOrDefault("username", "Player");
+        client.needsFull = true;
+        var replaced = clients.put(playerId, client);
+        if (replaced != null && replaced != client) {
+            // o mesmo jogador abriu outra aba: a conexão antiga sai
+            replaced.playerId = null;
+            replaced.close();
+        }
+
+        var worldId = state != null ? state.getWorldId() : null;
+        var sb = new StringBuilder(160);
+        sb.append("{\"type\":\"joined\",\"playerId\":\"").append(playerId).append("\",\"debug\":{");
+        sb.append("\"hasPosition\":").append(worldId != null).append(',');
+        sb.append("\"totalPlayers\":").append(VoiceSessionManager.INSTANCE.getAllStates().size()).append(',');
+        sb.append("\"worldId\":").append(worldId != null ? "\"" + worldId + "\"" : "null").append('}');
+        if (mixer != null) {
+            sb.append(",\"mix\":{\"codec\":\"").append(mixer.codec().name()).append("\",");
+            sb.append("\"sampleRate\":").append(AudioFormat.SAMPLE_RATE).append(',');
+            sb.append("\"frameSamples\":").append(AudioFormat.FRAME_SAMPLES).append('}');
+        }
+        sb.append('}');
+        client.send(WebSocketFrames.text(sb.toString()));
+    }
+
+    private void onSpeaking(RelayClient client, boolean speaking) {
+        var playerId = client.playerId;
+        if (playerId == null) return;
+        VoiceSessionManager.INSTANCE.setSpeaking(playerId, speaking);
+        broadcast(WebSocketFrames.text("{\"type\":\"speaking\",\"playerId\":\"" + playerId + "\",\"speaking\":" + speaking + "}"), client);
+    }
+
+    /**
+     * Repassa offer/answer/ice ao destino com "from" (e "volume" no offer) acrescentados no
+     * fim do objeto: chave repetida vale a última, então o cliente não consegue forjar a origem.
+     */
+    private void onSignal(RelayClient client, String type, String to, String text) {
+        var from = client.playerId;
+        if (from == null || to == null) return;
+        UUID targetId;
+        try {
+            targetId = UUID.fromString(to.trim());
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        var target = clients.get(targetId);
+        if (target == null) return;
+        var body = text.strip();
+        var sb = new StringBuilder(body.length() + 96);
+        sb.append(body, 0, body.length() - 1);
+        sb.append(",\"from\":\"").append(from).append('"');
+        if (type.equals("webrtc-offer")) {
+            var volume = VoiceSessionManager.INSTANCE.getListeners(from).get(targetId);
+            sb.append(",\"volume\":").append(round3(volume != null ? volume : 0));
+        }
+        sb.append('}');
+        target.send(WebSocketFrames.text(sb.toString()));
+    }
+
+    private void onClosed(RelayClient client) {
+        var playerId = client.playerId;
+        if (playerId == null || !clients.remove(playerId, client)) return;
+        if (mixer != null) mixer.remove(playerId);
+        VoiceSessionManager.INSTANCE.setSpeaking(playerId, false);
+        broadcast(WebSocketFrames.text("{\"type\":\"left\",\"playerId\":\"" + playerId + "\"}"), null);
+    }
+
+    /** Mesmo frame (mesmo array) para todos os clientes com join, menos {@code except}. */
+    private void broadcast(byte[] frame, RelayClient except) {
+        int recipients = 0;
+        for (var client : clients.values()) {
+            if (client == except) continue;
+            client.send(frame);
+            recipients++;
+        }
+        metrics.recordRelayFrame(frame.length, recipients);
+    }
+
+    private static void error(RelayClient client, String message) {
+        var sb = new StringBuilder("{\"type\":\"error\",\"message\":");
+        RelayJson.quote(sb, message).append('}');
+        client.send(WebSocketFrames.text(sb.toString()));
+    }
+
+    /** Um quadro de áudio mixado para cada cliente que ouve alguém falando. */
+    private void mixFrame() {
+        try {
+            long start = System.nanoTime();
+            int served = mixer.mixFrame(VoiceSessionManager.INSTANCE.getGraphs(), clients::containsKey, mixSink);
+            if (served > 0) metrics.recordMix(System.nanoTime() - start, served);
+        } catch (RuntimeException e) {
+            // o próximo quadro tenta de novo
+            metrics.recordMixError(e);
+        }
+    }
+
+    private void sendMixed(UUID listenerId, byte[] packet, int length) {
+        var client = clients.get(listenerId);
+        if (client != null) client.send(WebSocketFrames.encode(WebSocketFrames.BINARY, packet, length));
+    }
+
+    /** Fan-out do nearby: uma passada pelas arestas de cada mundo com cliente conectado. */
+    private void tick() {
+        try {
+            round++;
+            entries.clear();
+            for (var list : byWorld.values()) {
+                list.clear();
+            }
+            int total = VoiceSessionManager.INSTANCE.getAllStates().size();
+            List<RelayClient> withoutPosition = null;
+            for (var client : clients.values()) {
+                var playerId = client.playerId;
+                if (playerId == null) continue;
+                var worldId = VoiceSessionManager.INSTANCE.worldOf(playerId);
+                if (worldId == null || !VoiceSessionManager.INSTANCE.getGraph(worldId).contains(playerId)) {
+                    if (client.hasPosition != Boolean.FALSE || client.needsFull) {
+                        if (withoutPosition == null) withoutPosition = new ArrayList<>();
+                        withoutPosition.add(client);
+                    }
+                    continue;
+                }
+                byWorld.computeIfAbsent(worldId, id -> new ArrayList<>()).add(client);
+            }
+            if (withoutPosition != null) {
+                var frame = WebSocketFrames.text("{\"type\":\"nearby\",\"players\":[],\"debug\":{\"hasPosition\":false,\"totalInServer\":" + total + "}}");
+                for (var client : withoutPosition) {
+                    client.hasPosition = false;
+                    client.needsFull = false;
+                    client.sent.clear();
+                    client.send(frame);
+                }
+                metrics.recordRelayFrame(frame.length, withoutPosition.size());
+            }
+            for (var world : byWorld.entrySet()) {
+                if (!world.getValue().isEmpty()) {
+                    fanOut(VoiceSessionManager.INSTANCE.getGraph(world.getKey()), world.getValue(), total);
+                }
+            }
+            byWorld.values().removeIf(List::isEmpty);
+        } catch (RuntimeException e) {
+            // o próximo tick tenta de novo
+        }
+    }
+
+    private void fanOut(ListenerGraph graph, List<RelayClient> worldList, int total) {
+        worldClients.clear();
+        for (var client : worldList) {
+            client.resetHeard();
+            worldClients.put(client.playerId, client);
+        }
+        graph.forEachEdge((speakerId, listenerId, volume, dx, dy, dz) -> {
+            var client = worldClients.get(listenerId);
+            if (client != null) client.hear(speakerId, volume, dx, dy, dz);
+        });
+
+        for (var client : worldList) {
+            boolean full = client.needsFull || client.hasPosition != Boolean.TRUE;
+            sb.setLength(0);
+            if (full) {
+                client.needsFull = false;
+                client.hasPosition = true;
+                client.sent.clear();
+                sb.append("{\"type\":\"nearby\",\"players\":[");
+                for (int i = 0; i < client.heardCount; i++) {
+                    if (i > 0) sb.append(',');
+                    appendEntry(graph, client, i);
+                    client.remember(i, round);
+                }
+                sb.append("],\"debug\":{\"hasPosition\":true,\"totalInServer\":").append(total).append(",\"graph\":true}}");
+                send(client, sb.toString());
+                continue;
+            }
+
+            int enter = 0;
+            sb.append("{\"type\":\"nearby-diff\",\"enter\":[");
+            for (int i = 0; i < client.heardCount; i++) {
+                var prev = client.sent.get(client.heardIds[i]);
+                if (prev != null) continue;
+                if (enter++ > 0) sb.append(',');
+                appendEntry(graph, client, i);
+                client.remember(i, round);
+            }
+            sb.append("],\"leave\":[");
+            int volumeChanges = 0;
+            var volumes = volumesSb;
+            volumes.setLength(0);
+            for (int i = 0; i < client.heardCount; i++) {
+                var prev = client.sent.get(client.heardIds[i]);
+                if (prev.round == round) continue;
+                prev.round = round;
+                double volume = client.heard[i * 4];
+                if (Math.abs(volume - prev.volume) <= VOLUME_THRESHOLD) continue;
+                prev.volume = volume;
+                if (volumeChanges++ > 0) volumes.append(',');
+                volumes.append("{\"id\":\"").append(client.heardIds[i]).append("\",\"volume\":").append(round3(volume));
+                appendDirection(volumes, client, i).append('}');
+            }
+            int leave = 0;
+            var it = client.sent.entrySet().iterator();
+            while (it.hasNext()) {
+                var sent = it.next();
+                if (sent.getValue().round == round) continue;
+                it.remove();
+                if (leave++ > 0) sb.append(',');
+                sb.append('"').append(sent.getKey()).append('"');
+            }
+            if (enter == 0 && leave == 0 && volumeChanges == 0) continue;
+            sb.append("],\"volume\":[").append(volumes).append("]}");
+            send(client, sb.toString());
+        }
+    }
+
+    /** Entrada do nearby: trecho do falante (montado uma vez por tick) + volume e direção. */
+    private void appendEntry(ListenerGraph graph, RelayClient client, int i) {
+        var speakerId = client.heardIds[i];
+        var entry = entries.get(speakerId);
+        if (entry == null) {
+            var entrySb = new StringBuilder(128);
+            entrySb.append("{\"id\":\"").append(speakerId).append("\",\"username\":");
+            var state = VoiceSessionManager.INSTANCE.getState(speakerId);
+            RelayJson.quote(entrySb, state != null ? state.getUsername() : "Player");
+            if (graph.positionOf(speakerId, position)) {
+                entrySb.append(",\"x\":").append(round3(position[0]))
+                    .append(",\"y\":").append(round3(position[1]))
+                    .append(",\"z\":").append(round3(position[2]));
+            }
+            entry = entrySb.toString();
+            entries.put(speakerId, entry);
+        }
+        sb.append(entry).append(",\"volume\":").append(round3(client.heard[i * 4]));
+        appendDirection(sb, client, i).append('}');
+    }
+
+    private static StringBuilder appendDirection(StringBuilder sb, RelayClient client, int i) {
+        return sb.append(",\"direction\":[").append(round3(client.heard[i * 4 + 1])).append(',')
+            .append(round3(client.heard[i * 4 + 2])).append(',')
+            .append(round3(client.heard[i * 4 + 3])).append(']');
+    }
+
+    private void send(RelayClient client, String json) {
+        var frame = WebSocketFrames.text(json);
+        client.send(frame);
+        metrics.recordRelayFrame(frame.length, 1);
+    }
+
+    private static double round3(double v) {
+        return Math.round(v * 1000) / 1000.0;
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        var sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            if (c != '\r') sb.append((char) c);
+            if (sb.length() > MAX_REQUEST_LINE) throw new IOException("Linha grande demais");
+        }
+        if (c == -1 && sb.isEmpty()) throw new EOFException();
+        return sb.toString();
+    }
+
+    private static void respond(OutputStream out, String status, String contentType, byte[] body) throws IOException {
+        var head = "HTTP/1.1 " + status + "\r\n"
+            + "Content-Type: " + contentType + "\r\n"
+            + "Content-Length: " + body.length + "\r\n"
+            + "Connection: close\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    private static String contentType(String name) {
+        var ext = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return switch (ext) {
+            case "html" -> "text/html; charset=utf-8";
+            case "js" -> "application/javascript; charset=utf-8";
+            case "css" -> "text/css; charset=utf-8";
+            case "json" -> "application/json";
+            case "png" -> "image/png";
+            case "svg" -> "image/svg+xml";
+            case "ico" -> "image/x-icon";
+            default -> "application/octet-stream";
+        };
+    }
+}
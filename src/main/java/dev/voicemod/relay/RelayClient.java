@@ -0,0 +1,122 @@
+package dev.voicemod.relay;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Conexão de um cliente de voz com o relay. A leitura roda na thread virtual da conexão;
+ * a escrita, numa segunda thread virtual que esvazia a fila de frames prontos. Os frames são
+ * arrays compartilhados (o mesmo broadcast vai para todos sem cópia) e nunca são alterados.
+ * Cliente lento demais para esvaziar a fila é desconectado em vez de segurar memória.
+ */
+final class RelayClient {
+
+    /** Frames na fila acima dos quais o cliente é considerado travado. */
+    static final int MAX_QUEUED = 256;
+
+    private static final byte[] CLOSE_MARKER = new byte[0];
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final LinkedBlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+    private volatile boolean closed;
+
+    volatile UUID playerId;
+    volatile String username = "Player";
+    /** A próxima atualização manda a lista completa ('nearby') em vez de diff. */
+    volatile boolean needsFull = true;
+    /** Último hasPosition enviado (null = nenhum). Só na thread do relay. */
+    Boolean hasPosition;
+    /** Volume já enviado por falante. Só na thread do relay. */
+    final Map<UUID, Sent> sent = new HashMap<>();
+
+    /** Quem o jogador ouve no tick atual (volume e direção em {@link #heard}). Só na thread do relay. */
+    UUID[] heardIds = new UUID[16];
+    /** volume, dx, dy, dz por falante */
+    double[] heard = new double[64];
+    int heardCount;
+
+    RelayClient(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+        Thread.ofVirtual().name("voicemod-relay-write").start(this::writeLoop);
+    }
+
+    /** Enfileira um frame pronto (não copiado; não pode mudar depois). */
+    void send(byte[] frame) {
+        if (closed) return;
+        if (queue.size() >= MAX_QUEUED) {
+            close();
+            return;
+        }
+        queue.add(frame);
+    }
+
+    void close() {
+        if (closed) return;
+        closed = true;
+        queue.add(CLOSE_MARKER);
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void resetHeard() {
+        heardCount = 0;
+    }
+
+    void hear(UUID speakerId, double volume, double dx, double dy, double dz) {
+        if (heardCount == heardIds.length) {
+            heardIds = Arrays.copyOf(heardIds, heardCount * 2);
+            heard = Arrays.copyOf(heard, heardCount * 8);
+        }
+        heardIds[heardCount] = speakerId;
+        int o = heardCount * 4;
+        heard[o] = volume;
+        heard[o + 1] = dx;
+        heard[o + 2] = dy;
+        heard[o + 3] = dz;
+        heardCount++;
+    }
+
+    /** Registra o falante {@code i} do tick como enviado. */
+    void remember(int i, long round) {
+        var s = new Sent();
+        s.volume = heard[i * 4];
+        s.round = round;
+        sent.put(heardIds[i], s);
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                var frame = queue.take();
+                if (frame == CLOSE_MARKER) return;
+                out.write(frame);
+                // junta o que já estiver na fila antes do flush
+                if (queue.isEmpty()) out.flush();
+            }
+        } catch (IOException e) {
+            close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static final class Sent {
+        double volume;
+        long round;
+    }
+}
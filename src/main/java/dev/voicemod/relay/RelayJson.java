@@ -0,0 +1,160 @@
+package dev.voicemod.relay;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON mínimo para as mensagens dos clientes de voz e as respostas do backend: só lê os campos
+ * do nível de cima (o resto, como o SDP, é pulado sem montar objetos) e escapa strings na saída.
+ */
+public final class RelayJson {
+
+    private RelayJson() {
+    }
+
+    /**
+     * Campos do objeto de nível de cima: strings já sem escape, os demais valores como texto
+     * cru (números, true/false, objetos e arrays inteiros).
+     */
+    public static Map<String, String> fields(String json) {
+        var out = new HashMap<String, String>();
+        int i = skipSpace(json, 0);
+        if (i >= json.length() || json.charAt(i) != '{') throw new IllegalArgumentException("Esperado objeto JSON");
+        i++;
+        while (true) {
+            i = skipSpace(json, i);
+            if (i >= json.length()) throw new IllegalArgumentException("JSON incompleto");
+            if (json.charAt(i) == '}') return out;
+            if (json.charAt(i) == ',') {
+                i++;
+                continue;
+            }
+            int keyEnd = endOfString(json, i);
+            var key = unescape(json, i + 1, keyEnd - 1);
+            i = skipSpace(json, keyEnd);
+            if (i >= json.length() || json.charAt(i) != ':') throw new IllegalArgumentException("Esperado ':'");
+            i = skipSpace(json, i + 1);
+            int valueEnd = endOfValue(json, i);
+            out.put(key, json.charAt(i) == '"' ? unescape(json, i + 1, valueEnd - 1) : json.substring(i, valueEnd).trim());
+            i = valueEnd;
+        }
+    }
+
+    /** Strings de um array cru (como devolvido por {@link #fields}), já sem escape; o que não é string é pulado. */
+    public static List<String> strings(String array) {
+        var out = new ArrayList<String>();
+        int i = skipSpace(array, 0);
+        if (i >= array.length() || array.charAt(i) != '[') throw new IllegalArgumentException("Esperado array JSON");
+        i++;
+        while (true) {
+            i = skipSpace(array, i);
+            if (i >= array.length()) throw new IllegalArgumentException("JSON incompleto");
+            char c = array.charAt(i);
+            if (c == ']') return out;
+            if (c == ',') {
+                i++;
+                continue;
+            }
+            int valueEnd = endOfElement(array, i);
+            if (c == '"') out.add(unescape(array, i + 1, valueEnd - 1));
+            i = valueEnd;
+        }
+    }
+
+    /** Acrescenta {@code value} entre aspas, escapado. */
+    static StringBuilder quote(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    private static int skipSpace(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    /** Posição logo depois da string que começa em {@code i}. */
+    private static int endOfString(String s, int i) {
+        if (i >= s.length() || s.charAt(i) != '"') throw new IllegalArgumentException("Esperado string");
+        for (int j = i + 1; j < s.length(); j++) {
+            char c = s.charAt(j);
+            if (c == '\\') j++;
+            else if (c == '"') return j + 1;
+        }
+        throw new IllegalArgumentException("String sem fim");
+    }
+
+    /** Posição logo depois do valor que começa em {@code i}. */
+    private static int endOfValue(String s, int i) {
+        if (i >= s.length()) throw new IllegalArgumentException("JSON incompleto");
+        char c = s.charAt(i);
+        if (c == '"') return endOfString(s, i);
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            for (int j = i; j < s.length(); j++) {
+                char d = s.charAt(j);
+                if (d == '"') {
+                    j = endOfString(s, j) - 1;
+                } else if (d == '{' || d == '[') {
+                    depth++;
+                } else if ((d == '}' || d == ']') && --depth == 0) {
+                    return j + 1;
+                }
+            }
+            throw new IllegalArgumentException("JSON incompleto");
+        }
+        int j = i;
+        while (j < s.length() && s.charAt(j) != ',' && s.charAt(j) != '}') j++;
+        return j;
+    }
+
+    /** Como {@link #endOfValue}, mas um literal também termina no {@code ]} do array. */
+    private static int endOfElement(String s, int i) {
+        char c = s.charAt(i);
+        if (c == '"' || c == '{' || c == '[') return endOfValue(s, i);
+        int j = i;
+        while (j < s.length() && s.charAt(j) != ',' && s.charAt(j) != ']') j++;
+        return j;
+    }
+
+    private static String unescape(String s, int from, int to) {
+        if (s.indexOf('\\', from) < 0 || s.indexOf('\\', from) >= to) return s.substring(from, to);
+        var sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c != '\\' || i + 1 >= to) {
+                sb.append(c);
+                continue;
+            }
+            char e = s.charAt(++i);
+            switch (e) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    sb.append((char) Integer.parseInt(s.substring(i + 1, i + 5), 16));
+                    i += 4;
+                }
+                default -> sb.append(e);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package dev.voicemod.relay;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * O mínimo de RFC 6455 para o relay: chave do handshake, leitura de frames do cliente
+ * (sempre mascarados) e frames do servidor já prontos em um único array, que pode ser
+ * escrito igual em todas as conexões.
+ */
+final class WebSocketFrames {
+
+    static final int TEXT = 0x1;
+    static final int BINARY = 0x2;
+    static final int CLOSE = 0x8;
+    static final int PING = 0x9;
+    static final int PONG = 0xA;
+
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    /** Frame recebido (payload já sem máscara). */
+    record Frame(int opcode, boolean fin, byte[] payload) {}
+
+    private WebSocketFrames() {
+    }
+
+    static String acceptKey(String key) {
+        try {
+            var sha1 = MessageDigest.getInstance("SHA-1");
+            return Base64.getEncoder().encodeToString(sha1.digest((key + GUID).getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Lê um frame; payload acima de {@code maxPayload} é erro de protocolo. */
+    static Frame read(DataInputStream in, int maxPayload) throws IOException {
+        int b0 = in.readUnsignedByte();
+        int b1 = in.readUnsignedByte();
+        long len = b1 & 0x7F;
+        if (len == 126) len = in.readUnsignedShort();
+        else if (len == 127) len = in.readLong();
+        if (len < 0 || len > maxPayload) throw new IOException("Frame grande demais: " + len);
+        var mask = new byte[4];
+        boolean masked = (b1 & 0x80) != 0;
+        if (masked) in.readFully(mask);
+        var payload = new byte[(int) len];
+        in.readFully(payload);
+        if (masked) {
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+        }
+        return new Frame(b0 & 0x0F, (b0 & 0x80) != 0, payload);
+    }
+
+    /** Frame de texto completo (cabeçalho + payload) pronto para escrever. */
+    static byte[] text(String message) {
+        return encode(TEXT, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Frame do servidor (sem máscara, FIN) em um único array. */
+    static byte[] encode(int opcode, byte[] payload) {
+        return encode(opcode, payload, payload.length);
+    }
+
+    /** Frame do servidor com os primeiros {@code length} bytes de {@code payload}. */
+    static byte[] encode(int opcode, byte[] payload, int length) {
+        int header = length < 126 ? 2 : length < 65536 ? 4 : 10;
+        var frame = new byte[header + length];
+        frame[0] = (byte) (0x80 | opcode);
+        if (header == 2) {
+            frame[1] = (byte) length;
+        } else if (header == 4) {
+            frame[1] = 126;
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+        } else {
+            frame[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                frame[2 + i] = (byte) ((long) length >>> (56 - 8 * i));
+            }
+        }
+        System.arraycopy(payload, 0, frame, header, length);
+        return frame;
+    }
+}
@@ -0,0 +1,45 @@
+package dev.voicemod.system;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Invalida a oclusão em cache dos pares cujo raio passava pelo chunk
+ * quando um jogador faz colocação de bloco.
+ */
+public final class BlockPlaceOcclusionSystem extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
+
+    private final VoiceProximitySystem proximity;
+
+    public BlockPlaceOcclusionSystem(VoiceProximitySystem proximity) {
+        super(PlaceBlockEvent.class);
+        this.proximity = proximity;
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return Query.and(Player.getComponentType());
+    }
+
+    @Override
+    public void handle(
+        int index,
+        @Nonnull ArchetypeChunk<EntityStore> chunk,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> buffer,
+        @Nonnull PlaceBlockEvent event
+    ) {
+        var target = event.getTargetBlock();
+        if (target == null) return;
+        proximity.onBlockChanged(store, target.getX(), target.getZ());
+    }
+}
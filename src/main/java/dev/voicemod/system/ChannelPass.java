@@ -0,0 +1,149 @@
+package dev.voicemod.system;
+
+import dev.voicemod.channel.VoiceChannel;
+import dev.voicemod.channel.VoiceChannels;
+import dev.voicemod.proximity.PositionSnapshot;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Canais e zonas no passe de proximidade de um mundo. Por nó, uma vez por tick: acerta a zona
+ * (incremental) e guarda a chave de isolamento, então no laço de pares o custo é uma
+ * comparação de int ({@link #separated}). Depois dos pares, {@link #addChannelEdges} liga os
+ * membros de canais {@link dev.voicemod.channel.ChannelMode#AUGMENT} que estão fora do raio,
+ * percorrendo só os bits de cada canal. Uso exclusivo do {@link ProximityWorker} do mundo.
+ */
+final class ChannelPass {
+
+    /** Recebe um par de canal (os dois lados se ouvem) com o volume do canal. */
+    @FunctionalInterface
+    interface PairSink {
+        void accept(int a, int b, double volume);
+    }
+
+    private int[] isolation = new int[64];
+    /** slot → nó no passe atual, válido se {@code slotStamps[slot] == stamp} */
+    private int[] nodeOfSlot = new int[64];
+    private int[] slotStamps = new int[64];
+    private int stamp;
+    private int[] members = new int[16];
+    /** Pares já ligados no passe (chave de {@link #pairKey}, nunca 0; 0 = vazio), endereçamento aberto. */
+    private long[] linked = new long[64];
+    private int linkedCount;
+    private boolean enabled;
+
+    /** Começa o passe; false (e sem custo algum no resto) quando não há canais. */
+    boolean begin(int n) {
+        enabled = !VoiceChannels.INSTANCE.isEmpty();
+        if (!enabled) return false;
+        if (isolation.length < n) isolation = new int[Math.max(n, isolation.length * 2)];
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(slotStamps, 0);
+            stamp = 1;
+        }
+        return true;
+    }
+
+    void addNode(int node, UUID playerId, UUID worldId, double x, double y, double z) {
+        // O passe roda um tick atrás: quem já saiu do servidor fica sem canal (e sem slot)
+        var membership = VoiceChannels.INSTANCE.membership(playerId);
+        if (membership == null || !membership.locate(VoiceChannels.INSTANCE.zonesIn(worldId), x, y, z)) {
+            isolation[node] = -1;
+            return;
+        }
+        isolation[node] = membership.isolationKey();
+        int slot = membership.slot();
+        if (slot >= nodeOfSlot.length) {
+            int size = Math.max(slot + 1, nodeOfSlot.length * 2);
+            nodeOfSlot = Arrays.copyOf(nodeOfSlot, size);
+            slotStamps = Arrays.copyOf(slotStamps, size);
+        }
+        nodeOfSlot[slot] = node;
+        slotStamps[slot] = stamp;
+    }
+
+    /** Se o par está em lados diferentes de um isolamento (não se ouvem). */
+    boolean separated(int a, int b) {
+        return enabled && isolation[a] != isolation[b];
+    }
+
+    /**
+     * Pares dos canais que somam voz, só entre membros presentes neste mundo, fora do raio
+     * (dentro dele a proximidade já ligou) e na mesma chave de isolamento.
+     */
+    void addChannelEdges(PositionSnapshot snapshot, double radius, PairSink sink) {
+        if (!enabled) return;
+        var channels = VoiceChannels.INSTANCE.augmenting();
+        double radiusSq = radius * radius;
+        if (channels.length > 1 && linkedCount > 0) {
+            Arrays.fill(linked, 0);
+            linkedCount = 0;
+        }
+        for (var channel : channels) {
+            int count = collect(channel);
+            for (int i = 0; i < count; i++) {
+                int a = members[i];
+                for (int j = i + 1; j < count; j++) {
+                    int b = members[j];
+                    if (isolation[a] != isolation[b] || distanceSq(snapshot, a, b) <= radiusSq) continue;
+                    if (channels.length > 1 && !link(pairKey(a, b))) continue;
+                    sink.accept(a, b, channel.volume());
+                }
+            }
+        }
+    }
+
+    /** Nós do passe que são membros do canal, em {@link #members}. */
+    private int collect(VoiceChannel channel) {
+        int count = 0;
+        var bits = channel.bits();
+        for (int word = 0; word < bits.length; word++) {
+            long w = bits[word];
+            while (w != 0) {
+                int slot = (word << 6) + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+                if (slot >= slotStamps.length || slotStamps[slot] != stamp) continue;
+                if (count == members.length) members = Arrays.copyOf(members, count * 2);
+                members[count++] = nodeOfSlot[slot];
+            }
+        }
+        return count;
+    }
+
+    /** Marca o par como ligado; false se já estava. */
+    private boolean link(long key) {
+        if (linkedCount * 2 >= linked.length) {
+            var old = linked;
+            linked = new long[old.length * 2];
+            linkedCount = 0;
+            for (long k : old) {
+                if (k != 0) link(k);
+            }
+        }
+        int mask = linked.length - 1;
+        int h = hash(key) & mask;
+        for (long k; (k = linked[h]) != 0; h = (h + 1) & mask) {
+            if (k == key) return false;
+        }
+        linked[h] = key;
+        linkedCount++;
+        return true;
+    }
+
+    private static int hash(long key) {
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static double distanceSq(PositionSnapshot snapshot, int a, int b) {
+        double dx = snapshot.x(a) - snapshot.x(b);
+        double dy = snapshot.y(a) - snapshot.y(b);
+        double dz = snapshot.z(a) - snapshot.z(b);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static long pairKey(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+}
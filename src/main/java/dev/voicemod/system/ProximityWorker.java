@@ -0,0 +1,172 @@
+package dev.voicemod.system;
+
+import dev.voicemod.backend.PositionBuffer;
+import dev.voicemod.metrics.VoiceModMetrics;
+import dev.voicemod.proximity.FalloffTable;
+import dev.voicemod.proximity.OcclusionCache;
+import dev.voicemod.proximity.PositionSnapshot;
+import dev.voicemod.voice.ListenerGraph;
+import dev.voicemod.voice.VoiceSessionManager;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Proximidade de um mundo fora da thread do mundo.
+ * Caixa de correio de um lugar: se o worker ainda está calculando quando chega o tick seguinte,
+ * as posições mais novas substituem as pendentes (vale a mais recente) e o tick do mundo nunca
+ * espera. No máximo um passe por mundo roda de cada vez, então o grafo de cada mundo é
+ * publicado em ordem; mundos diferentes rodam em paralelo no pool.
+ * Com {@code voice.max-speakers} as arestas passam pela {@link SpeakerSelection} em vez de
+ * irem direto para o grafo (só os K falantes mais altos de cada ouvinte). Canais e zonas
+ * ({@link ChannelPass}) separam pares isolados e somam os membros fora do raio.
+ */
+final class ProximityWorker {
+
+    /** Altura da cabeça acima da posição do jogador (ponto de fala/escuta da oclusão). */
+    private static final double EAR_HEIGHT = 1.6;
+
+    private final Executor executor;
+    private final AtomicReference<WorldPositions> pending = new AtomicReference<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<WorldPositions> spare = new ConcurrentLinkedQueue<>();
+    private final Runnable drain = this::drain;
+
+    /** Compartilhado com a thread do mundo, que lança os raios. */
+    final OcclusionCache occlusion = new OcclusionCache();
+
+    // Estado do passe (só a thread do worker)
+    private final PositionSnapshot snapshot = new PositionSnapshot();
+    private final ListenerGraph.Builder graph = new ListenerGraph.Builder();
+    private final SpeakerSelection selection = new SpeakerSelection();
+    private final ChannelPass channels = new ChannelPass();
+    private final SpeakerSelection.EdgeSink selected = (speaker, listener, volume) -> graph.addEdge(speaker, listener, volume);
+    private boolean[] active = new boolean[64];
+    private WorldPositions current;
+    private FalloffTable falloff;
+    private final PositionSnapshot.PairSink sink = (a, b, distanceSq) -> {
+        if (channels.separated(a, b)) return;
+        var volume = falloff.volumeSq(distanceSq);
+        if (current.occluding && volume > 0) {
+            volume *= occlusion.factor(
+                snapshot.id(a), snapshot.x(a), snapshot.y(a) + EAR_HEIGHT, snapshot.z(a),
+                snapshot.id(b), snapshot.x(b), snapshot.y(b) + EAR_HEIGHT, snapshot.z(b)
+            );
+        }
+        link(a, b, volume);
+    };
+    private final ChannelPass.PairSink channelSink = this::link;
+
+    ProximityWorker(Executor executor) {
+        this.executor = executor;
+    }
+
+    /** Objeto para a thread do mundo preencher (reusado ou novo). */
+    WorldPositions obtain(int expected) {
+        var positions = spare.poll();
+        if (positions == null) positions = new WorldPositions();
+        positions.reset(expected);
+        return positions;
+    }
+
+    /** Entrega as posições do tick; a thread do mundo não mexe mais nelas. */
+    void submit(WorldPositions positions) {
+        var replaced = pending.getAndSet(positions);
+        if (replaced != null) {
+            VoiceModMetrics.INSTANCE.recordProximitySkipped();
+            recycle(replaced);
+        }
+        if (running.compareAndSet(false, true)) {
+            start();
+        }
+    }
+
+    void recycle(WorldPositions positions) {
+        spare.offer(positions);
+    }
+
+    private void drain() {
+        try {
+            WorldPositions positions;
+            while ((positions = pending.getAndSet(null)) != null) {
+                try {
+                    evaluate(positions);
+                } catch (RuntimeException e) {
+                    // um passe com erro não derruba o worker; o próximo tick recalcula tudo
+                    VoiceModMetrics.INSTANCE.recordProximityError(e);
+                } finally {
+                    current = null;
+                    recycle(positions);
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        // posições que chegaram entre o último poll e o running=false
+        if (pending.get() != null && running.compareAndSet(false, true)) {
+            start();
+        }
+    }
+
+    private void start() {
+        try {
+            executor.execute(drain);
+        } catch (RejectedExecutionException e) {
+            // pool encerrado (plugin desligando)
+            running.set(false);
+        }
+    }
+
+    /** Os dois jogadores se ouvem com {@code volume}. */
+    private void link(int a, int b, double volume) {
+        if (current.maxSpeakers > 0) {
+            selection.offerPair(a, b, volume);
+        } else {
+            graph.addEdge(a, b, volume);
+            graph.addEdge(b, a, volume);
+        }
+        if (current.speaking[a]) active[b] = true;
+        if (current.speaking[b]) active[a] = true;
+    }
+
+    private void evaluate(WorldPositions positions) {
+        long start = System.nanoTime();
+        current = positions;
+        falloff = positions.falloff;
+        int n = positions.count;
+
+        snapshot.clear();
+        snapshot.ensureCapacity(n);
+        graph.reset();
+        if (active.length < n) active = new boolean[Math.max(n, active.length * 2)];
+        boolean capped = positions.maxSpeakers > 0;
+        if (capped) selection.begin(n, positions.maxSpeakers);
+        boolean grouped = channels.begin(n);
+        for (int i = 0; i < n; i++) {
+            snapshot.add(positions.ids[i], positions.x[i], positions.y[i], positions.z[i]);
+            graph.addNode(positions.ids[i], positions.x[i], positions.y[i], positions.z[i], positions.yaw[i]);
+            if (capped) selection.addNode(i, positions.ids[i], positions.speaking[i]);
+            if (grouped) channels.addNode(i, positions.ids[i], positions.worldUuid, positions.x[i], positions.y[i], positions.z[i]);
+        }
+        System.arraycopy(positions.speaking, 0, active, 0, n);
+        Arrays.fill(active, n, active.length, false);
+
+        if (positions.occluding) occlusion.beginTick();
+        int pairs = snapshot.evaluatePairs(falloff.radius(), sink);
+        channels.addChannelEdges(snapshot, falloff.radius(), channelSink);
+        if (capped) selection.emit(selected);
+
+        for (int i = 0; i < n; i++) {
+            PositionBuffer.INSTANCE.markActive(positions.slots[i], active[i]);
+        }
+        VoiceSessionManager.INSTANCE.publishGraph(
+            positions.worldUuid,
+            graph.build(VoiceSessionManager.INSTANCE.nextEpoch())
+        );
+        VoiceModMetrics.INSTANCE.recordProximityTick(System.nanoTime() - start, pairs, graph.edgeCount());
+    }
+}
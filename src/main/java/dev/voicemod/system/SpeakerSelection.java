@@ -0,0 +1,169 @@
+package dev.voicemod.system;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Limite de falantes por ouvinte ({@code voice.max-speakers}): cada ouvinte fica só com os K
+ * falantes mais altos ao alcance, escolhidos com um heap mínimo de tamanho K durante o passe de
+ * pares. O grafo passa a ter no máximo K·N arestas, por mais cheio que esteja o lugar.
+ *
+ * Só quem está falando (ou parou há menos de {@link #HOLD_TICKS}) disputa vaga. Histerese: quem
+ * já estava selecionado para o ouvinte entra com o volume multiplicado por {@link #KEEP_MARGIN},
+ * então um desafiante precisa ser claramente mais alto para tomar a vaga e a seleção não pisca
+ * com pequenas variações de volume. Uso exclusivo do {@link ProximityWorker} do mundo.
+ */
+final class SpeakerSelection {
+
+    /** Ticks (a 20 tps) que um falante mantém as vagas depois de parar de falar. */
+    static final long HOLD_TICKS = 40;
+    /** Vantagem de quem já tem a vaga. */
+    static final double KEEP_MARGIN = 1.25;
+    /** Ticks sem ver o jogador até descartar o estado dele. */
+    private static final long EVICT_TICKS = 100;
+
+    private final Map<UUID, Player> players = new HashMap<>();
+    private long tick;
+    private int slots;
+
+    /** Jogador de cada nó do passe atual. */
+    private Player[] nodes = new Player[64];
+    private int count;
+
+    // Heaps mínimos por ouvinte, lado a lado: nó ouvinte i ocupa [i*slots, (i+1)*slots)
+    private int[] heapSpeaker = new int[0];
+    private double[] heapScore = new double[0];
+    private double[] heapVolume = new double[0];
+    private int[] heapSize = new int[64];
+
+    /** Começa um passe com {@code n} nós e {@code slots} vagas por ouvinte. */
+    void begin(int n, int slots) {
+        tick++;
+        this.slots = slots;
+        count = n;
+        if (nodes.length < n) nodes = new Player[Math.max(n, nodes.length * 2)];
+        if (heapSize.length < n) heapSize = new int[Math.max(n, heapSize.length * 2)];
+        Arrays.fill(heapSize, 0, n, 0);
+        int cells = n * slots;
+        if (heapSpeaker.length < cells) {
+            int size = Math.max(cells, heapSpeaker.length * 2);
+            heapSpeaker = new int[size];
+            heapScore = new double[size];
+            heapVolume = new double[size];
+        }
+    }
+
+    /** Registra o nó {@code node} (na ordem do snapshot) e se ele está falando neste tick. */
+    void addNode(int node, UUID playerId, boolean speaking) {
+        var player = players.computeIfAbsent(playerId, id -> new Player());
+        player.seen = tick;
+        if (speaking) player.lastSpoke = tick;
+        nodes[node] = player;
+    }
+
+    /** Par ao alcance: cada lado que pode ocupar vaga se candidata no heap do outro. */
+    void offerPair(int a, int b, double volume) {
+        if (volume <= 0) return;
+        if (eligible(nodes[a])) offer(a, b, volume);
+        if (eligible(nodes[b])) offer(b, a, volume);
+    }
+
+    /**
+     * Grava as arestas escolhidas (falante → ouvinte) e lembra a seleção para a histerese do
+     * próximo passe.
+     */
+    void emit(EdgeSink sink) {
+        for (int listener = 0; listener < count; listener++) {
+            var player = nodes[listener];
+            int base = listener * slots;
+            int size = heapSize[listener];
+            if (player.chosen.length < size) player.chosen = new Player[slots];
+            Arrays.fill(player.chosen, null);
+            for (int i = 0; i < size; i++) {
+                int speaker = heapSpeaker[base + i];
+                sink.accept(speaker, listener, heapVolume[base + i]);
+                player.chosen[i] = nodes[speaker];
+            }
+        }
+        if (tick % EVICT_TICKS == 0) {
+            players.values().removeIf(p -> tick - p.seen > EVICT_TICKS);
+        }
+        Arrays.fill(nodes, 0, count, null);
+    }
+
+    private boolean eligible(Player speaker) {
+        return tick - speaker.lastSpoke <= HOLD_TICKS;
+    }
+
+    private void offer(int speaker, int listener, double volume) {
+        double score = isChosen(nodes[listener], nodes[speaker]) ? volume * KEEP_MARGIN : volume;
+        int base = listener * slots;
+        int size = heapSize[listener];
+        if (size < slots) {
+            heapSize[listener] = size + 1;
+            siftUp(base, size, speaker, score, volume);
+        } else if (score > heapScore[base]) {
+            siftDown(base, slots, speaker, score, volume);
+        }
+    }
+
+    private static boolean isChosen(Player listener, Player speaker) {
+        for (var chosen : listener.chosen) {
+            if (chosen == null) return false;
+            if (chosen == speaker) return true;
+        }
+        return false;
+    }
+
+    private void siftUp(int base, int i, int speaker, double score, double volume) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapScore[base + parent] <= score) break;
+            move(base + parent, base + i);
+            i = parent;
+        }
+        set(base + i, speaker, score, volume);
+    }
+
+    /** Substitui a raiz (menor score) e desce até o lugar. */
+    private void siftDown(int base, int size, int speaker, double score, double volume) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heapScore[base + child + 1] < heapScore[base + child]) child++;
+            if (heapScore[base + child] >= score) break;
+            move(base + child, base + i);
+            i = child;
+        }
+        set(base + i, speaker, score, volume);
+    }
+
+    private void move(int from, int to) {
+        heapSpeaker[to] = heapSpeaker[from];
+        heapScore[to] = heapScore[from];
+        heapVolume[to] = heapVolume[from];
+    }
+
+    private void set(int at, int speaker, double score, double volume) {
+        heapSpeaker[at] = speaker;
+        heapScore[at] = score;
+        heapVolume[at] = volume;
+    }
+
+    /** Recebe uma aresta escolhida, em índices de nó. */
+    @FunctionalInterface
+    interface EdgeSink {
+        void accept(int speaker, int listener, double volume);
+    }
+
+    /** Estado de um jogador entre passes. */
+    private static final class Player {
+        long seen;
+        long lastSpoke = Long.MIN_VALUE / 2;
+        /** Falantes escolhidos no último passe em que ele foi ouvinte (null no fim). */
+        Player[] chosen = new Player[0];
+    }
+}
@@ -2,26 +2,54 @@ package dev.voicemod.system;
 
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.component.query.Query;
 import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
-import com.hypixel.hytale.server.core.universe.Universe;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
-import dev.voicemod.backend.PositionBuffer;
+import dev.voicemod.channel.VoiceChannels;
 import dev.voicemod.config.VoiceModConfig;
+import dev.voicemod.metrics.VoiceModMetrics;
+import dev.voicemod.proximity.BlockSampler;
+import dev.voicemod.voice.ListenerGraph;
+import dev.voicemod.voice.PlayerRefIndex;
 import dev.voicemod.voice.VoiceSessionManager;
+import dev.voicemod.voice.VoiceStateComponent;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * EntityTickingSystem que calcula proximidade entre jogadores.
+ * Na thread do mundo o tick por entidade só copia a posição e o estado de voz
+ * ({@link VoiceStateComponent}, ambos do próprio chunk, sem busca por UUID) para um
+ * {@link WorldPositions}; no fim do tick ele é entregue ao {@link ProximityWorker} do mundo,
+ * que roda num pool de threads virtuais: avalia cada par uma vez (via grade espacial),
+ * grava as duas direções ouvinte/volume (com {@code voice.max-speakers}, só os falantes mais
+ * altos de cada ouvinte) num {@link ListenerGraph} publicado de uma vez e
+ * marca no PositionBuffer quem está ativo (falando ou ao alcance de quem fala).
+ * O custo da proximidade não entra no tick do mundo; o grafo publicado fica até um tick atrás.
+ * Com oclusão ligada a thread do mundo lança os raios pendentes (só ela lê blocos) e o
+ * worker aplica o fator em cache de cada par.
  */
 public final class VoiceProximitySystem extends EntityTickingSystem<EntityStore> {
 
     private final VoiceModConfig config;
+    /** Um frame por mundo (cada mundo tica na sua própria thread). */
+    private final Map<Store<EntityStore>, WorldFrame> frames = Collections.synchronizedMap(new WeakHashMap<>());
+    /** Pool dos workers: uma thread virtual por mundo com posições pendentes. */
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("voicemod-proximity-", 0).factory()
+    );
 
     public VoiceProximitySystem(VoiceModConfig config) {
         this.config = config;
@@ -36,6 +64,44 @@ public final class VoiceProximitySystem extends EntityTickingSystem<EntityStore>
         );
     }
 
+    @Override
+    public void tick(float dt, int systemIndex, @Nonnull Store<EntityStore> store) {
+        long start = System.nanoTime();
+        var frame = frames.computeIfAbsent(store, s -> new WorldFrame(new ProximityWorker(workers)));
+        // só os jogadores deste mundo: a lista por mundo dá o tamanho do tick
+        var positions = frame.worker.obtain(PlayerRefIndex.INSTANCE.playersIn(store).size());
+        positions.falloff = config.getFalloffTable();
+        positions.occluding = config.isOcclusionEnabled();
+        positions.maxSpeakers = config.getMaxSpeakers();
+        if (positions.occluding) {
+            if (frame.blocks == null) {
+                var world = store.getExternalData().getWorld();
+                frame.blocks = world::getBlock;
+            }
+            frame.worker.occlusion.castPending(frame.blocks, config.getOcclusionMaterials(), config.getOcclusionRaysPerTick());
+        }
+
+        frame.positions = positions;
+        try {
+            super.tick(dt, systemIndex, store);
+        } finally {
+            frame.positions = null;
+        }
+        if (positions.worldUuid != null) {
+            frame.worldUuid = positions.worldUuid;
+            frame.emptySubmitted = false;
+            frame.worker.submit(positions);
+        } else if (frame.worldUuid != null && !frame.emptySubmitted) {
+            // o mundo esvaziou: um passe vazio publica o grafo vazio (senão o último fica para sempre)
+            positions.worldUuid = frame.worldUuid;
+            frame.emptySubmitted = true;
+            frame.worker.submit(positions);
+        } else {
+            frame.worker.recycle(positions);
+        }
+        VoiceModMetrics.INSTANCE.recordProximityHandoff(System.nanoTime() - start);
+    }
+
     @Override
     public void tick(
         float dt,
@@ -44,69 +110,89 @@ public final class VoiceProximitySystem extends EntityTickingSystem<EntityStore>
         @Nonnull Store<EntityStore> store,
         @Nonnull CommandBuffer<EntityStore> buffer
     ) {
-        var listenerRef = chunk.getReferenceTo(index);
-        var listenerTransform = (TransformComponent) chunk.getComponent(index, TransformComponent.getComponentType());
-
+        var listenerTransform = chunk.getComponent(index, TransformComponent.getComponentType());
         var listenerPos = listenerTransform.getPosition();
         if (listenerPos == null) return;
 
-        var universePlayerRef = findUniversePlayerRef(listenerRef);
-        if (universePlayerRef == null) return;
+        // estado de voz no próprio chunk; sem ele (entidade nova), resolve pelos índices e posta
+        var voiceType = VoiceStateComponent.getComponentType();
+        var voice = voiceType != null ? chunk.getComponent(index, voiceType) : null;
+        if (voice == null || !voice.isBound()) {
+            voice = attach(chunk.getReferenceTo(index), store, buffer, voiceType);
+            if (voice == null) return;
+        }
 
-        var listenerId = universePlayerRef.getUuid();
-        var worldUuid = universePlayerRef.getWorldUuid();
+        var worldUuid = voice.getPlayerRef().getWorldUuid();
         if (worldUuid == null) return;
 
         // Armazena posição do listener para o backend (thread do mundo = seguro)
-        PositionBuffer.INSTANCE.put(
-            listenerId.toString(),
-            universePlayerRef.getUsername() != null ? universePlayerRef.getUsername() : "?",
-            listenerPos.getX(), listenerPos.getY(), listenerPos.getZ(),
-            worldUuid.toString()
-        );
-
-        for (var playerRef : Universe.get().getPlayers()) {
-            if (playerRef.getUuid().equals(listenerId)) continue;
-            if (playerRef.getWorldUuid() == null || !playerRef.getWorldUuid().equals(worldUuid)) continue;
-
-            var speakerRef = playerRef.getReference();
-            if (speakerRef == null || !speakerRef.isValid()) continue;
-
-            var speakerTransform = (TransformComponent) store.getComponent(speakerRef, TransformComponent.getComponentType());
-            if (speakerTransform == null) continue;
-
-            var speakerPos = speakerTransform.getPosition();
-            if (speakerPos == null) continue;
-
-            // Armazena posição do speaker para o backend
-            PositionBuffer.INSTANCE.put(
-                playerRef.getUuid().toString(),
-                playerRef.getUsername() != null ? playerRef.getUsername() : "?",
-                speakerPos.getX(), speakerPos.getY(), speakerPos.getZ(),
-                worldUuid.toString()
-            );
-
-            var distance = listenerPos.distanceTo(speakerPos);
-            if (distance <= config.getVoiceRadius()) {
-                var volume = computeVolume(distance);
-                VoiceSessionManager.INSTANCE.addListener(playerRef.getUuid(), listenerId, volume);
+        int slot = voice.writePosition(listenerPos.getX(), listenerPos.getY(), listenerPos.getZ(), worldUuid);
+        if (slot < 0) return; // desconectou; a entidade ainda não saiu do mundo
+
+        var frame = frames.get(store);
+        if (frame != null && frame.positions != null) {
+            frame.positions.worldUuid = worldUuid;
+            var state = voice.getState();
+            if (!worldUuid.equals(state.getWorldId())) {
+                // entrou neste mundo: move o estado para a partição dele
+                VoiceSessionManager.INSTANCE.moveToWorld(state, worldUuid);
             }
+            var head = voice.getPlayerRef().getHeadRotation();
+            frame.positions.add(state.getPlayerId(), listenerPos.getX(), listenerPos.getY(), listenerPos.getZ(),
+                head != null ? head.getYaw() : 0f, slot, state.isSpeaking());
         }
     }
 
-    private PlayerRef findUniversePlayerRef(com.hypixel.hytale.component.Ref<EntityStore> ref) {
-        for (var pr : Universe.get().getPlayers()) {
-            var r = pr.getReference();
-            if (r != null && r.equals(ref)) {
-                return pr;
-            }
+    /** Cria o componente de voz da entidade e o posta pelo command buffer (vale a partir do próximo tick). */
+    @Nullable
+    private static VoiceStateComponent attach(
+        @Nonnull Ref<EntityStore> ref,
+        @Nonnull Store<EntityStore> store,
+        @Nonnull CommandBuffer<EntityStore> buffer,
+        @Nullable ComponentType<EntityStore, VoiceStateComponent> type
+    ) {
+        var playerRef = PlayerRefIndex.INSTANCE.resolve(ref, store);
+        if (playerRef == null) return null;
+        var state = VoiceSessionManager.INSTANCE.getState(playerRef.getUuid());
+        if (state == null) {
+            // plugin recarregado com o jogador online: não houve PlayerConnectEvent
+            VoiceSessionManager.INSTANCE.onPlayerJoin(playerRef);
+            VoiceChannels.INSTANCE.onPlayerJoin(playerRef.getUuid());
+            state = VoiceSessionManager.INSTANCE.getState(playerRef.getUuid());
+            if (state == null) return null;
         }
-        return null;
+        var voice = new VoiceStateComponent(playerRef, state);
+        if (type != null) buffer.addComponent(ref, type, voice);
+        return voice;
+    }
+
+    /**
+     * Um bloco mudou no mundo deste store (chamado pelos sistemas de evento de bloco,
+     * na thread do mundo): marca os pares de oclusão que passavam pelo chunk.
+     */
+    void onBlockChanged(@Nonnull Store<EntityStore> store, int x, int z) {
+        var frame = frames.get(store);
+        if (frame != null) frame.worker.occlusion.invalidateBlock(x, z);
     }
 
-    private double computeVolume(double distance) {
-        if (distance <= 0) return 1.0;
-        var volume = Math.exp(-config.getAttenuationFactor() * distance);
-        return Math.max(0, Math.min(1, volume));
+    /** Encerra os workers (passes em andamento terminam; os pendentes são descartados). */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /** Estado do mundo do lado da thread do mundo. */
+    private static final class WorldFrame {
+        final ProximityWorker worker;
+        BlockSampler blocks;
+        /** Mundo visto no último tick com jogadores (reset() das posições apaga o dele) */
+        UUID worldUuid;
+        /** Já mandou o passe vazio depois que o mundo esvaziou */
+        boolean emptySubmitted;
+        /** Posições sendo preenchidas no tick atual (null fora do tick) */
+        WorldPositions positions;
+
+        WorldFrame(ProximityWorker worker) {
+            this.worker = worker;
+        }
     }
 }
@@ -6,10 +6,9 @@ import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.component.query.Query;
 import com.hypixel.hytale.component.system.RefChangeSystem;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.universe.Universe;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import dev.voicemod.config.VoiceModConfig;
+import dev.voicemod.voice.PlayerRefIndex;
 import dev.voicemod.voice.VoiceSessionManager;
 
 import javax.annotation.Nonnull;
@@ -17,6 +16,8 @@ import javax.annotation.Nullable;
 
 /**
  * RefChangeSystem que detecta quando Player é adicionado/removido de entidades.
+ * Adição/remoção também acontece ao trocar de mundo: só atualiza o índice por mundo,
+ * a sessão de voz continua (quem encerra é o PlayerDisconnectEvent).
  */
 public final class VoiceStateSystem extends RefChangeSystem<EntityStore, Player> {
 
@@ -45,7 +46,7 @@ public final class VoiceStateSystem extends RefChangeSystem<EntityStore, Player>
         @Nonnull Store<EntityStore> store,
         @Nonnull CommandBuffer<EntityStore> commandBuffer
     ) {
-        var universePlayerRef = findUniversePlayerRef(ref);
+        var universePlayerRef = PlayerRefIndex.INSTANCE.resolve(ref, store);
         if (universePlayerRef != null) {
             VoiceSessionManager.INSTANCE.onPlayerJoin(universePlayerRef);
         }
@@ -69,20 +70,6 @@ public final class VoiceStateSystem extends RefChangeSystem<EntityStore, Player>
         @Nonnull Store<EntityStore> store,
         @Nonnull CommandBuffer<EntityStore> commandBuffer
     ) {
-        var universePlayerRef = findUniversePlayerRef(ref);
-        if (universePlayerRef != null) {
-            VoiceSessionManager.INSTANCE.onPlayerLeave(universePlayerRef);
-        }
-    }
-
-    @Nullable
-    private PlayerRef findUniversePlayerRef(Ref<EntityStore> ref) {
-        for (var pr : Universe.get().getPlayers()) {
-            var r = pr.getReference();
-            if (r != null && r.equals(ref)) {
-                return pr;
-            }
-        }
-        return null;
+        PlayerRefIndex.INSTANCE.unbind(ref);
     }
 }
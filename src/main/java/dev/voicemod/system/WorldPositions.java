@@ -0,0 +1,60 @@
+package dev.voicemod.system;
+
+import dev.voicemod.proximity.FalloffTable;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Posições de um mundo num tick, entregues pela thread do mundo ao {@link ProximityWorker}.
+ * A thread do mundo preenche com {@link #add} e entrega; a partir daí ninguém escreve até o
+ * worker devolver o objeto para reuso ({@link ProximityWorker#recycle}).
+ */
+final class WorldPositions {
+
+    UUID worldUuid;
+    /** Curva e oclusão lidas da config uma vez, no tick em que as posições foram tiradas. */
+    FalloffTable falloff;
+    boolean occluding;
+    /** Falantes por ouvinte (0 = sem limite) */
+    int maxSpeakers;
+    int count;
+    UUID[] ids = new UUID[16];
+    double[] x = new double[16];
+    double[] y = new double[16];
+    double[] z = new double[16];
+    /** Yaw da cabeça (radianos), para o pan da mixagem no servidor */
+    float[] yaw = new float[16];
+    /** Slot de cada jogador no PositionBuffer */
+    int[] slots = new int[16];
+    boolean[] speaking = new boolean[16];
+
+    void reset(int expected) {
+        Arrays.fill(ids, 0, count, null);
+        count = 0;
+        worldUuid = null;
+        if (expected > ids.length) grow(expected);
+    }
+
+    void add(UUID id, double px, double py, double pz, float headYaw, int slot, boolean isSpeaking) {
+        if (count == ids.length) grow(count * 2);
+        ids[count] = id;
+        x[count] = px;
+        y[count] = py;
+        z[count] = pz;
+        yaw[count] = headYaw;
+        slots[count] = slot;
+        speaking[count] = isSpeaking;
+        count++;
+    }
+
+    private void grow(int size) {
+        ids = Arrays.copyOf(ids, size);
+        x = Arrays.copyOf(x, size);
+        y = Arrays.copyOf(y, size);
+        z = Arrays.copyOf(z, size);
+        yaw = Arrays.copyOf(yaw, size);
+        slots = Arrays.copyOf(slots, size);
+        speaking = Arrays.copyOf(speaking, size);
+    }
+}
@@ -0,0 +1,306 @@
+package dev.voicemod.voice;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Grafo imutável falante → ouvintes (com volume) de um mundo num tick.
+ * Armazenado em CSR: as arestas de cada falante ficam contíguas em arrays primitivos.
+ *
+ * Construído em privado por um {@link Builder} no ProximityWorker do mundo e publicado com uma
+ * única escrita volátil; quem lê sempre vê um grafo completo e consistente. Os arrays não são
+ * reciclados entre ticks: relay, mixer e connector guardam o grafo o tempo que precisarem.
+ * Por isso o build aloca só arrays primitivos, inclusive o índice UUID → nó (tabela aberta).
+ */
+public final class ListenerGraph {
+
+    public static final ListenerGraph EMPTY = new ListenerGraph(0, new UUID[0], new double[0], new float[0], new int[1], new int[0], new double[0]);
+
+    /** Recebe uma aresta falante → ouvinte. */
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void accept(UUID listenerId, double volume);
+    }
+
+    /** Recebe uma aresta com a direção (unitária) do ouvinte para o falante. */
+    @FunctionalInterface
+    public interface DirectedEdgeConsumer {
+        void accept(UUID speakerId, UUID listenerId, double volume, double dirX, double dirY, double dirZ);
+    }
+
+    private final long epoch;
+    private final UUID[] nodes;
+    /** Posição de cada nó no tick (x, y, z intercalados) */
+    private final double[] positions;
+    /** Yaw da cabeça de cada nó no tick (radianos; 0 = olhando para -Z) */
+    private final float[] yaws;
+    private final int[] offsets;
+    private final int[] listeners;
+    private final double[] volumes;
+    /** Endereçamento aberto UUID → nó + 1 (0 = vazio), tamanho potência de 2, ocupação ≤ 1/2. */
+    private final int[] index;
+
+    private ListenerGraph(long epoch, UUID[] nodes, double[] positions, float[] yaws, int[] offsets, int[] listeners, double[] volumes) {
+        this.epoch = epoch;
+        this.nodes = nodes;
+        this.positions = positions;
+        this.yaws = yaws;
+        this.offsets = offsets;
+        this.listeners = listeners;
+        this.volumes = volumes;
+        this.index = new int[Integer.highestOneBit(Math.max(4, nodes.length * 2) - 1) << 1];
+        int mask = index.length - 1;
+        for (int i = 0; i < nodes.length; i++) {
+            int h = hash(nodes[i]) & mask;
+            while (index[h] != 0) h = (h + 1) & mask;
+            index[h] = i + 1;
+        }
+    }
+
+    /** Nó do jogador no grafo, ou -1. */
+    private int nodeOf(Object playerId) {
+        if (!(playerId instanceof UUID id)) return -1;
+        int mask = index.length - 1;
+        for (int h = hash(id) & mask; ; h = (h + 1) & mask) {
+            int slot = index[h];
+            if (slot == 0) return -1;
+            if (nodes[slot - 1].equals(id)) return slot - 1;
+        }
+    }
+
+    private static int hash(UUID id) {
+        long bits = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+        int h = (int) (bits ^ (bits >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /** Número do tick (global, crescente) em que o grafo foi publicado. */
+    public long epoch() {
+        return epoch;
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    public int edgeCount() {
+        return listeners.length;
+    }
+
+    public boolean contains(@Nonnull UUID playerId) {
+        return nodeOf(playerId) >= 0;
+    }
+
+    /** Copia a posição do jogador no tick para {@code out} (x, y, z); false se ele não está no grafo. */
+    public boolean positionOf(@Nonnull UUID playerId, @Nonnull double[] out) {
+        int node = nodeOf(playerId);
+        if (node < 0) return false;
+        System.arraycopy(positions, node * 3, out, 0, 3);
+        return true;
+    }
+
+    /**
+     * Copia posição e yaw da cabeça do jogador no tick para {@code out} (x, y, z, yaw);
+     * false se ele não está no grafo.
+     */
+    public boolean poseOf(@Nonnull UUID playerId, @Nonnull double[] out) {
+        int node = nodeOf(playerId);
+        if (node < 0) return false;
+        System.arraycopy(positions, node * 3, out, 0, 3);
+        out[3] = yaws[node];
+        return true;
+    }
+
+    /** Visita os ouvintes do falante sem alocar. */
+    public void forEachListener(@Nonnull UUID speakerId, @Nonnull EdgeConsumer consumer) {
+        int node = nodeOf(speakerId);
+        if (node < 0) return;
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+            consumer.accept(nodes[listeners[e]], volumes[e]);
+        }
+    }
+
+    /** Visita todas as arestas com a direção relativa, sem alocar. */
+    public void forEachEdge(@Nonnull DirectedEdgeConsumer consumer) {
+        for (int node = 0; node < nodes.length; node++) {
+            double sx = positions[node * 3], sy = positions[node * 3 + 1], sz = positions[node * 3 + 2];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int listener = listeners[e];
+                double dx = sx - positions[listener * 3];
+                double dy = sy - positions[listener * 3 + 1];
+                double dz = sz - positions[listener * 3 + 2];
+                double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if (length > 0) {
+                    dx /= length;
+                    dy /= length;
+                    dz /= length;
+                }
+                consumer.accept(nodes[node], nodes[listener], volumes[e], dx, dy, dz);
+            }
+        }
+    }
+
+    /**
+     * Ouvintes do falante como mapa somente leitura, lido direto dos arrays do grafo
+     * (sem cópia; o grafo é imutável).
+     */
+    public Map<UUID, Double> listenersOf(@Nonnull UUID speakerId) {
+        int node = nodeOf(speakerId);
+        if (node < 0 || offsets[node] == offsets[node + 1]) return Collections.emptyMap();
+        return new ListenersView(offsets[node], offsets[node + 1]);
+    }
+
+    /** Fatia CSR das arestas de um falante vista como Map. */
+    private final class ListenersView extends AbstractMap<UUID, Double> {
+        private final int from;
+        private final int to;
+
+        ListenersView(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public Double get(Object key) {
+            for (int e = from; e < to; e++) {
+                if (nodes[listeners[e]].equals(key)) return volumes[e];
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<UUID, Double>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return to - from;
+                }
+
+                @Override
+                public Iterator<Entry<UUID, Double>> iterator() {
+                    return new Iterator<>() {
+                        private int e = from;
+
+                        @Override
+                        public boolean hasNext() {
+                            return e < to;
+                        }
+
+                        @Override
+                        public Entry<UUID, Double> next() {
+                            if (e >= to) throw new NoSuchElementException();
+                            var entry = new SimpleImmutableEntry<>(nodes[listeners[e]], volumes[e]);
+                            e++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * Acumula nós e arestas de um tick em arrays reutilizados. Uso exclusivo do ProximityWorker
+     * do mundo (nunca do tick do mundo); {@link #build} gera um grafo imutável novo.
+     */
+    public static final class Builder {
+        private UUID[] nodes = new UUID[16];
+        private double[] positions = new double[48];
+        private float[] yaws = new float[16];
+        private int nodeCount;
+        private int[] from = new int[64];
+        private int[] to = new int[64];
+        private double[] vol = new double[64];
+        private int edgeCount;
+        /** Rascunho do counting sort em {@link #build}. */
+        private int[] cursor = new int[16];
+
+        public void reset() {
+            Arrays.fill(nodes, 0, nodeCount, null);
+            nodeCount = 0;
+            edgeCount = 0;
+        }
+
+        /** Adiciona um nó sem posição (direções saem zeradas) e retorna o seu índice. */
+        public int addNode(@Nonnull UUID playerId) {
+            return addNode(playerId, 0, 0, 0);
+        }
+
+        /** Adiciona um nó com a posição do tick (yaw 0) e retorna o seu índice. */
+        public int addNode(@Nonnull UUID playerId, double x, double y, double z) {
+            return addNode(playerId, x, y, z, 0f);
+        }
+
+        /** Adiciona um nó com a posição e o yaw da cabeça do tick e retorna o seu índice. */
+        public int addNode(@Nonnull UUID playerId, double x, double y, double z, float yaw) {
+            if (nodeCount == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodeCount * 2);
+                positions = Arrays.copyOf(positions, nodeCount * 6);
+                yaws = Arrays.copyOf(yaws, nodeCount * 2);
+            }
+            yaws[nodeCount] = yaw;
+            nodes[nodeCount] = playerId;
+            positions[nodeCount * 3] = x;
+            positions[nodeCount * 3 + 1] = y;
+            positions[nodeCount * 3 + 2] = z;
+            return nodeCount++;
+        }
+
+        public void addEdge(int speaker, int listener, double volume) {
+            if (edgeCount == from.length) {
+                int size = edgeCount * 2;
+                from = Arrays.copyOf(from, size);
+                to = Arrays.copyOf(to, size);
+                vol = Arrays.copyOf(vol, size);
+            }
+            from[edgeCount] = speaker;
+            to[edgeCount] = listener;
+            vol[edgeCount] = volume;
+            edgeCount++;
+        }
+
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        /** Ordena as arestas por falante (counting sort) e congela num grafo imutável. */
+        public ListenerGraph build(long epoch) {
+            var offsets = new int[nodeCount + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                offsets[from[e] + 1]++;
+            }
+            for (int n = 0; n < nodeCount; n++) {
+                offsets[n + 1] += offsets[n];
+            }
+            if (cursor.length < nodeCount) cursor = new int[Math.max(nodeCount, cursor.length * 2)];
+            System.arraycopy(offsets, 0, cursor, 0, nodeCount);
+            var listeners = new int[edgeCount];
+            var volumes = new double[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                int slot = cursor[from[e]]++;
+                listeners[slot] = to[e];
+                volumes[slot] = vol[e];
+            }
+            return new ListenerGraph(epoch, Arrays.copyOf(nodes, nodeCount), Arrays.copyOf(positions, nodeCount * 3),
+                Arrays.copyOf(yaws, nodeCount), offsets, listeners, volumes);
+        }
+    }
+}
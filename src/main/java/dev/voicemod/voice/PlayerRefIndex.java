@@ -0,0 +1,129 @@
+package dev.voicemod.voice;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice Ref da entidade → PlayerRef / UUID, compartilhado pelos sistemas e pelo PositionCollector.
+ * Preenchido no PlayerConnectEvent e no onComponentAdded; removido no disconnect/remoção.
+ * Substitui as varreduras lineares em Universe.getPlayers().
+ * Também mantém a lista de jogadores de cada mundo (store do mundo), atualizada ao entrar,
+ * sair e trocar de mundo, para quem precisa só dos jogadores de um mundo.
+ */
+public final class PlayerRefIndex {
+
+    public static final PlayerRefIndex INSTANCE = new PlayerRefIndex();
+
+    private final Map<Ref<EntityStore>, PlayerRef> byRef = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerRef> byUuid = new ConcurrentHashMap<>();
+    /** Store do mundo → jogadores nele */
+    private final Map<Store<EntityStore>, Set<UUID>> byWorld = new ConcurrentHashMap<>();
+    /** Jogador → store do mundo atual */
+    private final Map<UUID, Store<EntityStore>> worldOf = new ConcurrentHashMap<>();
+
+    private PlayerRefIndex() {
+    }
+
+    /** Registra o jogador (e a entidade atual, se já existir). */
+    public void register(@Nonnull PlayerRef playerRef) {
+        byUuid.put(playerRef.getUuid(), playerRef);
+        var ref = playerRef.getReference();
+        if (ref != null && ref.isValid()) {
+            bind(ref, playerRef);
+        }
+    }
+
+    /** Remove o jogador e qualquer entidade associada a ele. */
+    public void unregister(@Nonnull PlayerRef playerRef) {
+        byUuid.remove(playerRef.getUuid());
+        byRef.values().removeIf(pr -> pr.getUuid().equals(playerRef.getUuid()));
+        var store = worldOf.remove(playerRef.getUuid());
+        if (store != null) leaveWorld(playerRef.getUuid(), store);
+    }
+
+    /** Associa a entidade ao jogador (ex: ao entrar num mundo) e o move para a lista desse mundo. */
+    public void bind(@Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef) {
+        var playerId = playerRef.getUuid();
+        byRef.put(ref, playerRef);
+        byUuid.put(playerId, playerRef);
+        var store = ref.getStore();
+        if (store == null) return;
+        var previous = worldOf.put(playerId, store);
+        if (previous != null && previous != store) leaveWorld(playerId, previous);
+        byWorld.computeIfAbsent(store, s -> ConcurrentHashMap.newKeySet()).add(playerId);
+    }
+
+    /** Desassocia a entidade (ex: ao sair de um mundo). O jogador continua registrado. */
+    @Nullable
+    public PlayerRef unbind(@Nonnull Ref<EntityStore> ref) {
+        var playerRef = byRef.remove(ref);
+        var store = ref.getStore();
+        // já pode estar no mundo novo (a entidade nova chega antes da antiga sair)
+        if (playerRef != null && store != null && worldOf.remove(playerRef.getUuid(), store)) {
+            leaveWorld(playerRef.getUuid(), store);
+        }
+        return playerRef;
+    }
+
+    @Nullable
+    public PlayerRef get(@Nonnull Ref<EntityStore> ref) {
+        return byRef.get(ref);
+    }
+
+    @Nullable
+    public PlayerRef get(@Nonnull UUID playerId) {
+        return byUuid.get(playerId);
+    }
+
+    /**
+     * Busca no índice; se a entidade ainda não foi indexada (ex: plugin recarregado com
+     * jogadores online) lê o componente PlayerRef da própria entidade e indexa.
+     */
+    @Nullable
+    public PlayerRef resolve(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        var playerRef = byRef.get(ref);
+        if (playerRef != null) return playerRef;
+
+        playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+        if (playerRef != null) {
+            bind(ref, playerRef);
+        }
+        return playerRef;
+    }
+
+    /** Store do mundo em que o jogador está, ou null. */
+    @Nullable
+    public Store<EntityStore> worldOf(@Nonnull UUID playerId) {
+        return worldOf.get(playerId);
+    }
+
+    /** Jogadores do mundo (view, sem cópia). */
+    @Nonnull
+    public Set<UUID> playersIn(@Nonnull Store<EntityStore> store) {
+        var players = byWorld.get(store);
+        return players != null ? Collections.unmodifiableSet(players) : Set.of();
+    }
+
+    private void leaveWorld(UUID playerId, Store<EntityStore> store) {
+        byWorld.computeIfPresent(store, (s, players) -> {
+            players.remove(playerId);
+            return players.isEmpty() ? null : players;
+        });
+    }
+
+    /** Jogadores registrados (view, sem cópia). */
+    public Collection<PlayerRef> players() {
+        return Collections.unmodifiableCollection(byUuid.values());
+    }
+}
@@ -1,9 +1,9 @@
 package dev.voicemod.voice;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Estado de voz de um jogador.
@@ -13,7 +13,8 @@ public final class PlayerVoiceState {
     private final UUID playerId;
     private final String username;
     private volatile boolean speaking;
-    private final Map<UUID, Double> listeners = new ConcurrentHashMap<>();
+    /** Mundo (partição) em que o estado está; trocado só pelo VoiceSessionManager. */
+    private volatile UUID worldId;
 
     public PlayerVoiceState(@Nonnull UUID playerId, @Nonnull String username) {
         this.playerId = playerId;
@@ -36,15 +37,17 @@ public final class PlayerVoiceState {
         this.speaking = speaking;
     }
 
-    public void addListener(@Nonnull UUID listenerId, double volume) {
-        listeners.put(listenerId, volume);
+    @Nullable
+    public UUID getWorldId() {
+        return worldId;
     }
 
-    public void clearListeners() {
-        listeners.clear();
+    void setWorldId(@Nullable UUID worldId) {
+        this.worldId = worldId;
     }
 
+    /** Ouvintes atuais (do último grafo publicado), sem cópia. */
     public Map<UUID, Double> getListeners() {
-        return Map.copyOf(listeners);
+        return VoiceSessionManager.INSTANCE.getListeners(playerId);
     }
 }
@@ -4,65 +4,199 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Gerencia sessões de voz por jogador.
  * Mantém estado de quem está falando e quem está ouvindo quem.
+ *
+ * Particionado por mundo ({@link WorldVoiceShard}): cada partição guarda os estados dos
+ * jogadores do mundo e o {@link ListenerGraph} publicado pelo worker de proximidade; a troca
+ * do grafo é atômica, então não há limpeza periódica nem grafo pela metade. Um diretório
+ * global (jogador → estado, e o estado sabe o seu mundo) resolve buscas por jogador; é só o
+ * índice de leitura para quem está fora do ECS: no tick o estado vem do
+ * {@link VoiceStateComponent} da entidade, que aponta para o mesmo objeto.
+ * Listas de estados são arrays imutáveis republicados ao entrar/sair/trocar de mundo,
+ * então status, export e fan-out leem sem cópia.
  */
 public final class VoiceSessionManager {
 
     public static final VoiceSessionManager INSTANCE = new VoiceSessionManager();
 
-    private final Map<UUID, PlayerVoiceState> playerStates = new ConcurrentHashMap<>();
+    /** Diretório global: jogador → estado. */
+    private final Map<UUID, PlayerVoiceState> directory = new ConcurrentHashMap<>();
+    /** Todos os estados (cópia na escrita, com {@link #membership}). */
+    private volatile PlayerVoiceState[] all = WorldVoiceShard.NO_STATES;
+    /** worldUuid → partição. Mundos ficam registrados (são poucos); sem jogadores o grafo é vazio. */
+    private final Map<UUID, WorldVoiceShard> shards = new ConcurrentHashMap<>();
+    /** Serializa entrada/saída/troca de mundo (raras); leituras não usam lock. */
+    private final Object membership = new Object();
+    private final AtomicLong epochs = new AtomicLong();
+
+    private final Collection<ListenerGraph> graphsView = new AbstractCollection<>() {
+        @Override
+        public Iterator<ListenerGraph> iterator() {
+            var it = shards.values().iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public ListenerGraph next() {
+                    return it.next().graph;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return shards.size();
+        }
+    };
 
     private VoiceSessionManager() {
     }
 
+    /** Cria a sessão do jogador; se já existe (troca de mundo), mantém o estado atual. */
     public void onPlayerJoin(@Nonnull PlayerRef playerRef) {
-        playerStates.put(playerRef.getUuid(), new PlayerVoiceState(playerRef.getUuid(), playerRef.getUsername()));
+        join(playerRef.getUuid(), playerRef.getUsername(), playerRef.getWorldUuid());
     }
 
     public void onPlayerLeave(@Nonnull PlayerRef playerRef) {
-        playerStates.remove(playerRef.getUuid());
+        leave(playerRef.getUuid());
+    }
+
+    PlayerVoiceState join(@Nonnull UUID playerId, @Nonnull String username, @Nullable UUID worldId) {
+        PlayerVoiceState state;
+        synchronized (membership) {
+            state = directory.get(playerId);
+            if (state == null) {
+                state = new PlayerVoiceState(playerId, username);
+                directory.put(playerId, state);
+                all = WorldVoiceShard.append(all, state);
+            }
+        }
+        if (worldId != null) moveToWorld(state, worldId);
+        return state;
+    }
+
+    void leave(@Nonnull UUID playerId) {
+        synchronized (membership) {
+            var state = directory.remove(playerId);
+            if (state == null) return;
+            all = WorldVoiceShard.without(all, state);
+            var shard = state.getWorldId() != null ? shards.get(state.getWorldId()) : null;
+            if (shard != null) shard.remove(state);
+            state.setWorldId(null);
+        }
+    }
+
+    /**
+     * Põe o estado na partição do mundo (chamado pelo tick do mundo quando vê o jogador num
+     * mundo diferente do registrado). Sem efeito se já está nele.
+     */
+    public void moveToWorld(@Nonnull PlayerVoiceState state, @Nonnull UUID worldId) {
+        if (worldId.equals(state.getWorldId())) return;
+        synchronized (membership) {
+            var previous = state.getWorldId();
+            if (worldId.equals(previous) || directory.get(state.getPlayerId()) != state) return;
+            if (previous != null) {
+                var old = shards.get(previous);
+                if (old != null) old.remove(state);
+            }
+            shards.computeIfAbsent(worldId, WorldVoiceShard::new).add(state);
+            state.setWorldId(worldId);
+        }
     }
 
     public void setSpeaking(@Nonnull UUID playerId, boolean speaking) {
-        var state = playerStates.get(playerId);
+        var state = directory.get(playerId);
         if (state != null) {
             state.setSpeaking(speaking);
         }
     }
 
-    public void addListener(@Nonnull UUID speakerId, @Nonnull UUID listenerId, double volume) {
-        var state = playerStates.get(speakerId);
-        if (state != null) {
-            state.addListener(listenerId, volume);
+    /**
+     * Aplica a lista de quem está falando informada pelo backend (os clientes de voz
+     * avisam o backend; o plugin só recebe o resultado). Quem não está na lista para de falar.
+     */
+    public void applySpeaking(@Nonnull Set<UUID> speaking) {
+        for (var state : all) {
+            state.setSpeaking(speaking.contains(state.getPlayerId()));
         }
     }
 
-    public void clearListeners(@Nonnull UUID speakerId) {
-        var state = playerStates.get(speakerId);
-        if (state != null) {
-            state.clearListeners();
-        }
+    /** Próximo número de época para um grafo a ser publicado. */
+    public long nextEpoch() {
+        return epochs.incrementAndGet();
     }
 
-    /** Limpa todos os listeners de todos os jogadores. Chamar no início de cada tick. */
-    public void clearAllListeners() {
-        for (var state : playerStates.values()) {
-            state.clearListeners();
+    /** Publica o grafo do mundo na sua partição, substituindo o anterior de uma vez. */
+    public void publishGraph(@Nonnull UUID worldId, @Nonnull ListenerGraph graph) {
+        if (graph.nodeCount() == 0) {
+            var shard = shards.get(worldId);
+            if (shard != null) shard.graph = ListenerGraph.EMPTY;
+        } else {
+            shards.computeIfAbsent(worldId, WorldVoiceShard::new).graph = graph;
         }
     }
 
+    /** Grafo publicado do mundo (nunca null). */
+    @Nonnull
+    public ListenerGraph getGraph(@Nonnull UUID worldId) {
+        var shard = shards.get(worldId);
+        return shard != null ? shard.graph : ListenerGraph.EMPTY;
+    }
+
+    /** Grafos publicados de todos os mundos (visão ao vivo, sem cópia). */
+    @Nonnull
+    public Collection<ListenerGraph> getGraphs() {
+        return graphsView;
+    }
+
+    /** Ouvintes atuais do falante, lidos só do grafo publicado do seu mundo (sem cópia). */
+    public Map<UUID, Double> getListeners(@Nonnull UUID speakerId) {
+        var state = directory.get(speakerId);
+        var worldId = state != null ? state.getWorldId() : null;
+        if (worldId == null) return Map.of();
+        var graph = getGraph(worldId);
+        return graph.contains(speakerId) ? graph.listenersOf(speakerId) : Map.of();
+    }
+
     @Nullable
     public PlayerVoiceState getState(@Nonnull UUID playerId) {
-        return playerStates.get(playerId);
+        return directory.get(playerId);
+    }
+
+    /** Todos os estados (visão do array publicado; não muda depois de retornada). */
+    @Nonnull
+    public List<PlayerVoiceState> getAllStates() {
+        return Collections.unmodifiableList(Arrays.asList(all));
     }
 
-    public Map<UUID, PlayerVoiceState> getAllStates() {
-        return Map.copyOf(playerStates);
+    /** Estados dos jogadores do mundo (visão do array publicado). */
+    @Nonnull
+    public List<PlayerVoiceState> getStates(@Nonnull UUID worldId) {
+        var shard = shards.get(worldId);
+        return shard != null ? shard.states() : List.of();
+    }
+
+    /** Mundo do jogador segundo o diretório, ou null. */
+    @Nullable
+    public UUID worldOf(@Nonnull UUID playerId) {
+        var state = directory.get(playerId);
+        return state != null ? state.getWorldId() : null;
     }
 }
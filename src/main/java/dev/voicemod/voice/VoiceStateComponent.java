@@ -0,0 +1,93 @@
+package dev.voicemod.voice;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import dev.voicemod.backend.PositionBuffer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * Estado de voz do jogador como componente ECS, guardado no chunk de arquétipo junto do
+ * Player e do TransformComponent. O tick de proximidade lê tudo do próprio chunk: o PlayerRef,
+ * o {@link PlayerVoiceState} (falando, mundo) e o slot e a última posição gravados no
+ * PositionBuffer, sem buscas por UUID. O {@link VoiceSessionManager} continua indexando o
+ * mesmo PlayerVoiceState por UUID só para quem lê de fora (relay, backend, comandos).
+ *
+ * Posta pelo próprio VoiceProximitySystem no primeiro tick em que vê a entidade sem ele
+ * (também cobre plugin recarregado com jogadores online). Slot e posição são só da thread do mundo.
+ */
+public final class VoiceStateComponent implements Component<EntityStore> {
+
+    private static ComponentType<EntityStore, VoiceStateComponent> componentType;
+
+    private PlayerRef playerRef;
+    private PlayerVoiceState state;
+    /** Slot no PositionBuffer, -1 antes da primeira gravação. */
+    private int slot = -1;
+    private double lastX, lastY, lastZ;
+    private UUID lastWorld;
+
+    /** Para o registro de componentes (entidade copiada sem dono ainda). */
+    public VoiceStateComponent() {
+    }
+
+    public VoiceStateComponent(@Nonnull PlayerRef playerRef, @Nonnull PlayerVoiceState state) {
+        this.playerRef = playerRef;
+        this.state = state;
+    }
+
+    /** Guarda o tipo devolvido por {@code registerComponent} (chamado uma vez no start do plugin). */
+    public static void bind(@Nonnull ComponentType<EntityStore, VoiceStateComponent> type) {
+        componentType = type;
+    }
+
+    @Nullable
+    public static ComponentType<EntityStore, VoiceStateComponent> getComponentType() {
+        return componentType;
+    }
+
+    /** Se o componente já tem dono (PlayerRef e estado). */
+    public boolean isBound() {
+        return playerRef != null && state != null;
+    }
+
+    public PlayerRef getPlayerRef() {
+        return playerRef;
+    }
+
+    public PlayerVoiceState getState() {
+        return state;
+    }
+
+    /**
+     * Grava a posição no PositionBuffer só se mudou desde a última gravação (jogador parado
+     * não passa pelo mapa de slots nem pelo seqlock). Retorna o slot, ou -1 se o jogador já
+     * saiu (sessão encerrada; o buffer não recria o slot).
+     */
+    public int writePosition(double x, double y, double z, @Nonnull UUID worldId) {
+        if (slot >= 0 && x == lastX && y == lastY && z == lastZ && worldId.equals(lastWorld)) {
+            return slot;
+        }
+        var username = playerRef.getUsername();
+        slot = PositionBuffer.INSTANCE.put(state.getPlayerId(), username != null ? username : "?", x, y, z, worldId);
+        if (slot < 0) return -1;
+        lastX = x;
+        lastY = y;
+        lastZ = z;
+        lastWorld = worldId;
+        return slot;
+    }
+
+    /** Cópia da entidade: mesmo dono e estado, posição gravada de novo na primeira vez. */
+    @Override
+    public VoiceStateComponent clone() {
+        var copy = new VoiceStateComponent();
+        copy.playerRef = playerRef;
+        copy.state = state;
+        return copy;
+    }
+}
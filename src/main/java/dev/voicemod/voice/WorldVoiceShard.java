@@ -0,0 +1,56 @@
+package dev.voicemod.voice;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Partição de um mundo no {@link VoiceSessionManager}: os estados de voz dos jogadores do
+ * mundo e o último grafo publicado. A lista de estados é um array imutável republicado a cada
+ * entrada/saída (raras); leitores iteram sem cópia e sem lock.
+ */
+final class WorldVoiceShard {
+
+    static final PlayerVoiceState[] NO_STATES = new PlayerVoiceState[0];
+
+    final UUID worldId;
+    private volatile PlayerVoiceState[] states = NO_STATES;
+    /** Último grafo publicado do mundo (nunca null). */
+    volatile ListenerGraph graph = ListenerGraph.EMPTY;
+
+    WorldVoiceShard(UUID worldId) {
+        this.worldId = worldId;
+    }
+
+    /** Só com o lock de membros do manager. */
+    void add(PlayerVoiceState state) {
+        states = append(states, state);
+    }
+
+    /** Só com o lock de membros do manager. */
+    void remove(PlayerVoiceState state) {
+        states = without(states, state);
+    }
+
+    List<PlayerVoiceState> states() {
+        return Collections.unmodifiableList(Arrays.asList(states));
+    }
+
+    static PlayerVoiceState[] append(PlayerVoiceState[] array, PlayerVoiceState state) {
+        var out = Arrays.copyOf(array, array.length + 1);
+        out[array.length] = state;
+        return out;
+    }
+
+    static PlayerVoiceState[] without(PlayerVoiceState[] array, PlayerVoiceState state) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] != state) continue;
+            var out = new PlayerVoiceState[array.length - 1];
+            System.arraycopy(array, 0, out, 0, i);
+            System.arraycopy(array, i + 1, out, i, array.length - i - 1);
+            return out;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,32 @@
+package dev.voicemod.soak;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Falhas injetadas pelo backend falso.
+ *
+ * @param latencyMs   atraso fixo antes de responder/processar cada frame
+ * @param jitterMs    atraso extra aleatório em [0, jitterMs]
+ * @param failureRate chance de recusar o frame (HTTP 400, como o server.js; no WebSocket o frame é descartado)
+ * @param dropRate    chance de cortar a conexão sem resposta
+ * @param outageEveryMs intervalo entre quedas do backend (0 = sem quedas)
+ * @param outageMs    duração de cada queda; ao voltar o backend perdeu o estado
+ */
+record FaultPlan(long latencyMs, long jitterMs, double failureRate, double dropRate, long outageEveryMs, long outageMs) {
+
+    static final FaultPlan NONE = new FaultPlan(0, 0, 0, 0, 0, 0);
+
+    /** Dorme o atraso configurado (thread virtual por conexão/requisição). */
+    void delay() throws InterruptedException {
+        long ms = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (ms > 0) Thread.sleep(ms);
+    }
+
+    boolean fail() {
+        return failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate;
+    }
+
+    boolean drop() {
+        return dropRate > 0 && ThreadLocalRandom.current().nextDouble() < dropRate;
+    }
+}
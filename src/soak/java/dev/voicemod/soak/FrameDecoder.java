@@ -0,0 +1,135 @@
+package dev.voicemod.soak;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Lado do backend do protocolo de posições (binário e JSON), como o server.js faz:
+ * mantém o estado recebido (jogador → posição) e diz quando precisa de resync.
+ * Também diz quantas seqs foram puladas (deltas perdidos). Uma instância por sessão do
+ * backend; chamadas sincronizadas pelo dono.
+ */
+final class FrameDecoder {
+
+    private static final int MAGIC = 0x564D;
+    private static final Pattern JSON_PLAYER = Pattern.compile(
+        "\\{\"playerId\":\"([^\"]+)\",(?:\"username\":\"(?:[^\"\\\\]|\\\\.)*\",)?"
+            + "\"x\":([^,]+),\"y\":([^,]+),\"z\":([^,]+),\"worldId\":\"([^\"]*)\"}");
+    private static final Pattern JSON_SEQ = Pattern.compile("\"seq\":(\\d+)");
+    private static final Pattern JSON_LEFT = Pattern.compile("\"left\":\\[([^]]*)]");
+
+    /** Posição como o backend a conhece. */
+    record Position(double x, double y, double z, String worldId) {}
+
+    /** Resultado de um frame. */
+    record Result(boolean keyframe, int players, int left, long seqGap, boolean resync) {}
+
+    final Map<UUID, Position> positions = new HashMap<>();
+    private final Map<Integer, UUID> wirePlayers = new HashMap<>();
+    private final Map<Integer, String> wireWorlds = new HashMap<>();
+    private int session;
+    private long lastSeq = -1;
+    private long gap;
+
+    Result decodeBinary(ByteBuffer buf) {
+        if ((buf.getShort() & 0xFFFF) != MAGIC) throw new IllegalArgumentException("Frame inválido");
+        buf.get(); // versão
+        boolean keyframe = (buf.get() & 1) != 0;
+        long seq = buf.getInt() & 0xFFFFFFFFL;
+        int frameSession = buf.getInt();
+
+        boolean resync = false;
+        if (keyframe || frameSession != session) {
+            if (!keyframe) resync = true;
+            session = frameSession;
+            wirePlayers.clear();
+            wireWorlds.clear();
+        }
+        resync |= begin(keyframe, seq);
+
+        int nWorlds = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < nWorlds; i++) {
+            int id = buf.getShort() & 0xFFFF;
+            wireWorlds.put(id, string(buf));
+        }
+        int nDefs = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < nDefs; i++) {
+            int pid = buf.getShort() & 0xFFFF;
+            var id = new UUID(buf.getLong(), buf.getLong());
+            string(buf);
+            wirePlayers.put(pid, id);
+        }
+        int nUpdates = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < nUpdates; i++) {
+            int pid = buf.getShort() & 0xFFFF;
+            int world = buf.getShort() & 0xFFFF;
+            float x = buf.getFloat(), y = buf.getFloat(), z = buf.getFloat();
+            var id = wirePlayers.get(pid);
+            var worldId = wireWorlds.get(world);
+            if (id == null || worldId == null) {
+                resync = true;
+                continue;
+            }
+            positions.put(id, new Position(x, y, z, worldId));
+        }
+        int nLeft = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < nLeft; i++) {
+            var id = wirePlayers.remove(buf.getShort() & 0xFFFF);
+            if (id != null) positions.remove(id);
+        }
+        return finish(keyframe, nUpdates, nLeft, resync);
+    }
+
+    Result decodeJson(String json) {
+        boolean keyframe = !json.startsWith("{\"type\":\"delta\"");
+        var seqMatch = JSON_SEQ.matcher(json);
+        long seq = seqMatch.find() ? Long.parseLong(seqMatch.group(1)) : -1;
+        boolean resync = begin(keyframe, seq);
+
+        int players = 0;
+        var m = JSON_PLAYER.matcher(json);
+        while (m.find()) {
+            players++;
+            positions.put(UUID.fromString(m.group(1)), new Position(
+                Double.parseDouble(m.group(2)), Double.parseDouble(m.group(3)), Double.parseDouble(m.group(4)), m.group(5)));
+        }
+        int left = 0;
+        var l = JSON_LEFT.matcher(json);
+        if (l.find() && !l.group(1).isBlank()) {
+            for (var id : l.group(1).split(",")) {
+                positions.remove(UUID.fromString(id.trim().replace("\"", "")));
+                left++;
+            }
+        }
+        return finish(keyframe, players, left, resync);
+    }
+
+    private boolean begin(boolean keyframe, long seq) {
+        boolean resync = false;
+        gap = 0;
+        if (keyframe) {
+            positions.clear();
+        } else if (lastSeq < 0 || seq != lastSeq + 1) {
+            resync = true;
+            if (lastSeq >= 0 && seq > lastSeq + 1) gap = seq - lastSeq - 1;
+        }
+        lastSeq = seq;
+        return resync;
+    }
+
+    private Result finish(boolean keyframe, int players, int left, boolean resync) {
+        if (resync) lastSeq = -1;
+        return new Result(keyframe, players, left, gap, resync);
+    }
+
+    private static String string(ByteBuffer buf) {
+        int len = buf.get() & 0xFF;
+        var bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
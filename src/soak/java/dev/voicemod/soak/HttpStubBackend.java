@@ -0,0 +1,99 @@
+package dev.voicemod.soak;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Backend falso HTTP (JDK HttpServer): POST /positions e POST /graph, como o server.js,
+ * inclusive nos status: frame que não decodifica e falha injetada respondem 400.
+ * Cada requisição roda numa thread virtual, então a latência injetada não serializa nada.
+ */
+final class HttpStubBackend extends StubBackend {
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    HttpStubBackend(FaultPlan faults) {
+        super(faults);
+    }
+
+    @Override
+    int bind(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 256);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/positions", this::onPositions);
+        server.createContext("/graph", this::onGraph);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    void unbind() {
+        if (server == null) return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+    }
+
+    private void onPositions(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var body = exchange.getRequestBody().readAllBytes();
+            if (!fault(exchange)) return;
+            var type = exchange.getRequestHeaders().getFirst("Content-Type");
+            boolean resync;
+            try {
+                resync = type != null && type.startsWith("application/json")
+                    ? accept(null, new String(body, StandardCharsets.UTF_8))
+                    : accept(ByteBuffer.wrap(body), null);
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+                return;
+            }
+            respond(exchange, 200, response(0, resync));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void onGraph(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (!fault(exchange)) return;
+            respond(exchange, 200, "{\"ok\":true}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Aplica atraso e falhas; false se a requisição já foi respondida ou cortada. */
+    private boolean fault(HttpExchange exchange) throws IOException, InterruptedException {
+        faults.delay();
+        if (faults.drop()) {
+            dropped.increment();
+            // fecha sem cabeçalhos: o cliente vê a conexão cair
+            return false;
+        }
+        if (faults.fail()) {
+            rejected.increment();
+            respond(exchange, 400, error("Falha injetada"));
+            return false;
+        }
+        return true;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
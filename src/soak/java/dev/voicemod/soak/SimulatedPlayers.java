@@ -0,0 +1,154 @@
+package dev.voicemod.soak;
+
+import dev.voicemod.backend.PositionBuffer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Jogadores sintéticos escrevendo no {@link PositionBuffer} como o tick dos mundos faria:
+ * uma fração anda (passeio aleatório a ~4 blocos/s), o resto fica parado; alguns falam
+ * (marcados ativos para a taxa adaptativa). Guarda a posição verdadeira para comparar com
+ * o que o backend recebeu. Uso de uma thread só.
+ */
+final class SimulatedPlayers {
+
+    private static final double SPEED = 4.0;
+    private static final double SPREAD = 1024;
+
+    private final Random random;
+    private final UUID[] worlds;
+    private final double movingFraction;
+    private final double speakingFraction;
+
+    private final UUID[] ids;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final double[] heading;
+    private final int[] world;
+    private final boolean[] moving;
+    private final boolean[] speaking;
+    private int generation;
+
+    SimulatedPlayers(int count, int worldCount, double movingFraction, double speakingFraction, long seed) {
+        this.random = new Random(seed);
+        this.worlds = new UUID[Math.max(1, worldCount)];
+        for (int w = 0; w < worlds.length; w++) {
+            worlds[w] = new UUID(0x5EED_0000L + w, seed);
+        }
+        this.movingFraction = movingFraction;
+        this.speakingFraction = speakingFraction;
+        this.ids = new UUID[count];
+        this.x = new double[count];
+        this.y = new double[count];
+        this.z = new double[count];
+        this.heading = new double[count];
+        this.world = new int[count];
+        this.moving = new boolean[count];
+        this.speaking = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            spawn(i);
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /** Avança dt segundos e grava tudo no buffer. */
+    void step(double dt, boolean frozen) {
+        var buffer = PositionBuffer.INSTANCE;
+        for (int i = 0; i < ids.length; i++) {
+            if (moving[i] && !frozen) {
+                heading[i] += (random.nextDouble() - 0.5) * 0.6;
+                x[i] += Math.cos(heading[i]) * SPEED * dt;
+                z[i] += Math.sin(heading[i]) * SPEED * dt;
+            }
+            int slot = buffer.put(ids[i], "soak" + i, x[i], y[i], z[i], worlds[world[i]]);
+            buffer.markActive(slot, speaking[i]);
+        }
+    }
+
+    /** Troca {@code count} jogadores aleatórios por novos (saída + entrada). */
+    void churn(int count) {
+        for (int k = 0; k < count && ids.length > 0; k++) {
+            int i = random.nextInt(ids.length);
+            PositionBuffer.INSTANCE.remove(ids[i]);
+            spawn(i);
+        }
+    }
+
+    /** Tira todos do buffer. */
+    void removeAll() {
+        for (var id : ids) {
+            PositionBuffer.INSTANCE.remove(id);
+        }
+    }
+
+    /**
+     * Compara com o que o backend conhece. Erro em blocos por jogador; mundo errado conta
+     * como erro infinito.
+     */
+    Drift compare(Map<UUID, FrameDecoder.Position> known) {
+        var errors = new double[ids.length];
+        int missing = 0;
+        int matched = 0;
+        for (int i = 0; i < ids.length; i++) {
+            var p = known.get(ids[i]);
+            if (p == null) {
+                missing++;
+                errors[i] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            matched++;
+            errors[i] = !p.worldId().equals(worlds[world[i]].toString())
+                ? Double.POSITIVE_INFINITY
+                : Math.sqrt(sq(p.x() - x[i]) + sq(p.y() - y[i]) + sq(p.z() - z[i]));
+        }
+        Arrays.sort(errors);
+        return new Drift(missing, known.size() - matched, errors);
+    }
+
+    private void spawn(int i) {
+        ids[i] = new UUID(0x50A4_0000_0000_0000L | generation++, random.nextLong());
+        world[i] = random.nextInt(worlds.length);
+        x[i] = (random.nextDouble() - 0.5) * SPREAD;
+        y[i] = 64 + random.nextInt(16);
+        z[i] = (random.nextDouble() - 0.5) * SPREAD;
+        heading[i] = random.nextDouble() * Math.PI * 2;
+        moving[i] = random.nextDouble() < movingFraction;
+        speaking[i] = random.nextDouble() < speakingFraction;
+    }
+
+    private static double sq(double v) {
+        return v * v;
+    }
+
+    /**
+     * Diferença entre o backend e a verdade.
+     *
+     * @param missing jogadores que o backend não conhece
+     * @param extra   jogadores que já saíram e o backend ainda conhece
+     * @param errors  erro de posição de cada jogador, ordenado
+     */
+    record Drift(int missing, int extra, double[] errors) {
+
+        double percentile(double p) {
+            if (errors.length == 0) return 0;
+            int rank = (int) Math.ceil(p / 100.0 * errors.length) - 1;
+            return errors[Math.max(0, Math.min(errors.length - 1, rank))];
+        }
+
+        /** Jogadores com erro acima de {@code tolerance} blocos (inclui os ausentes). */
+        int over(double tolerance) {
+            int n = 0;
+            for (int i = errors.length - 1; i >= 0 && errors[i] > tolerance; i--) {
+                n++;
+            }
+            return n;
+        }
+    }
+}
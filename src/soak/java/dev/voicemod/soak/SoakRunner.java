@@ -0,0 +1,310 @@
+package dev.voicemod.soak;
+
+import dev.voicemod.backend.VoiceBackendConnector;
+import dev.voicemod.config.VoiceModConfig;
+import dev.voicemod.metrics.VoiceModMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de carga/soak do caminho plugin → backend, sem rede nem servidor Hytale:
+ * jogadores sintéticos ({@link SimulatedPlayers}) escrevem no PositionBuffer a 20 tps, o
+ * {@link VoiceBackendConnector} de verdade envia para um backend falso no mesmo processo
+ * ({@link StubBackend}) com latência, falhas e quedas injetadas.
+ *
+ * A cada segundo imprime vazão, latência de envio (p50/p99), erros, resyncs, reconexões e
+ * o atraso das posições no backend. No fim os jogadores param e o runner espera o backend
+ * convergir: quem ficou ausente, sobrando ou com posição errada é update perdido.
+ * Sai com código 1 se passar dos limites ({@code --max-stale}, {@code --max-p99-ms},
+ * {@code --max-recovery-ms}).
+ *
+ * <pre>
+ * ./gradlew soak -Psoak.args="--players 5000 --duration 120 --transport websocket --latency-ms 40 --outage-every 30"
+ * </pre>
+ */
+public final class SoakRunner {
+
+    private static final int TICK_MS = 50;
+
+    private SoakRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = Options.parse(args);
+        if (options.flag("help")) {
+            System.out.println(Options.USAGE);
+            return;
+        }
+        System.exit(run(options) ? 0 : 1);
+    }
+
+    static boolean run(Options o) throws IOException, InterruptedException {
+        var faults = new FaultPlan(
+            o.longValue("latency-ms", 0), o.longValue("jitter-ms", 0),
+            o.doubleValue("failure-rate", 0), o.doubleValue("drop-rate", 0),
+            o.longValue("outage-every", 0) * 1000, o.longValue("outage-ms", 3000)
+        );
+        var transport = o.value("transport", "http");
+        StubBackend backend = "websocket".equalsIgnoreCase(transport)
+            ? new WebSocketStubBackend(faults)
+            : new HttpStubBackend(faults);
+        backend.start();
+
+        double epsilon = o.doubleValue("epsilon", 0.05);
+        var dir = Files.createTempDirectory("voicemod-soak");
+        Files.writeString(dir.resolve("voicemod.properties"), String.join("\n",
+            "backend.url=http://127.0.0.1:" + backend.port(),
+            "backend.transport=" + transport,
+            "backend.format=" + o.value("format", "binary"),
+            "backend.delta.enabled=true",
+            "backend.delta.epsilon=" + epsilon,
+            "backend.keyframe.interval=" + o.value("keyframe-interval", "50"),
+            "backend.websocket.max-inflight=" + o.value("max-inflight", "4"),
+            "backend.rate.adaptive=" + o.value("adaptive", "true"),
+            "backend.rate.min-ms=" + o.value("rate-min-ms", "50"),
+            "backend.rate.max-ms=" + o.value("rate-max-ms", "1000"),
+            ""));
+        var config = new VoiceModConfig(dir);
+        config.load();
+
+        int count = o.intValue("players", 2000);
+        var players = new SimulatedPlayers(count, o.intValue("worlds", 4),
+            o.doubleValue("moving", 0.3), o.doubleValue("speaking", 0.05), o.longValue("seed", 1));
+        double churnPerTick = o.doubleValue("churn", 0.001) * count * TICK_MS / 1000.0;
+        long durationMs = o.longValue("duration", 60) * 1000;
+
+        System.out.printf(Locale.ROOT, "soak: %d jogadores, %s/%s, backend 127.0.0.1:%d, %ds%n",
+            count, transport, config.getBackendFormat(), backend.port(), durationMs / 1000);
+
+        var connector = new VoiceBackendConnector(config);
+        var report = new Report(backend, players);
+        var feeder = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "soak-feeder"));
+        var outages = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "soak-outages"));
+        long start = System.nanoTime();
+        var state = new Object() {
+            double churnDebt;
+            long ticks;
+            volatile boolean frozen;
+        };
+
+        players.step(0, false);
+        connector.start();
+        feeder.scheduleAtFixedRate(() -> {
+            try {
+                if (!state.frozen) {
+                    state.churnDebt += churnPerTick;
+                    players.churn((int) state.churnDebt);
+                    state.churnDebt -= (int) state.churnDebt;
+                }
+                players.step(TICK_MS / 1000.0, state.frozen);
+                if (++state.ticks % (1000 / TICK_MS) == 0 && !state.frozen) {
+                    report.line((System.nanoTime() - start) / 1_000_000_000L, epsilon);
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        if (faults.outageEveryMs() > 0) {
+            outages.scheduleAtFixedRate(() -> {
+                try {
+                    backend.beginOutage();
+                    Thread.sleep(faults.outageMs());
+                    backend.endOutage();
+                } catch (IOException e) {
+                    System.out.println("soak: backend não voltou: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, faults.outageEveryMs(), faults.outageEveryMs(), TimeUnit.MILLISECONDS);
+        }
+
+        Thread.sleep(durationMs);
+        outages.shutdownNow();
+        outages.awaitTermination(faults.outageMs() + 1000, TimeUnit.MILLISECONDS);
+        if (backend.isDown()) backend.endOutage();
+
+        // jogadores param: tudo que ainda estiver diferente depois de convergir foi perdido
+        state.frozen = true;
+        long settleMs = o.longValue("settle-ms", Math.max(5000, 3 * config.getBackendRateMaxMs() + 4 * faults.latencyMs()));
+        long settleStart = System.nanoTime();
+        double tolerance = epsilon + 0.01;
+        var drift = players.compare(backend.positions());
+        while (drift.over(tolerance) + drift.extra() > 0 && System.nanoTime() - settleStart < settleMs * 1_000_000L) {
+            Thread.sleep(100);
+            drift = players.compare(backend.positions());
+        }
+        long convergedMs = (System.nanoTime() - settleStart) / 1_000_000L;
+
+        feeder.shutdown();
+        feeder.awaitTermination(1, TimeUnit.SECONDS);
+        connector.stop();
+        backend.stop();
+        players.removeAll();
+
+        return report.summary(o, drift, tolerance, convergedMs, settleMs);
+    }
+
+    /** Linhas periódicas e o resumo final. */
+    private static final class Report {
+        private final StubBackend backend;
+        private final SimulatedPlayers players;
+        private final VoiceModMetrics metrics = VoiceModMetrics.INSTANCE;
+        private long lastFrames;
+        private long lastUpdates;
+        private long lastBytes;
+
+        Report(StubBackend backend, SimulatedPlayers players) {
+            this.backend = backend;
+            this.players = players;
+        }
+
+        void line(long seconds, double epsilon) {
+            long frames = backend.frames.sum();
+            long updates = backend.updates.sum();
+            long bytes = backend.bytes.sum();
+            var drift = players.compare(backend.positions());
+            var latency = metrics.sendLatencyNanos();
+            System.out.printf(Locale.ROOT,
+                "t=%3ds frames/s=%4d updates/s=%6d kB/s=%7.1f lat p50=%6.1fms p99=%6.1fms erros=%d resyncs=%d gaps=%d conexões=%d"
+                    + " atraso p50=%s p99=%s blocos, >1 bloco=%d%s%n",
+                seconds, frames - lastFrames, updates - lastUpdates, (bytes - lastBytes) / 1024.0,
+                latency.percentile(50) / 1e6, latency.percentile(99) / 1e6, errors(),
+                backend.resyncs.sum(), backend.seqGaps.sum(), backend.connections.sum(),
+                blocks(drift.percentile(50)), blocks(drift.percentile(99)), drift.over(Math.max(1.0, epsilon)),
+                backend.isDown() ? " [queda]" : "");
+            lastFrames = frames;
+            lastUpdates = updates;
+            lastBytes = bytes;
+        }
+
+        boolean summary(Options o, SimulatedPlayers.Drift drift, double tolerance, long convergedMs, long settleMs) {
+            var latency = metrics.sendLatencyNanos();
+            var recovery = backend.recoveryNanos;
+            System.out.println("--- resumo ---");
+            System.out.printf(Locale.ROOT, "frames=%d (keyframes=%d) updates=%d bytes=%d recusados=%d cortados=%d inválidos=%d%n",
+                backend.frames.sum(), backend.keyframes.sum(), backend.updates.sum(), backend.bytes.sum(),
+                backend.rejected.sum(), backend.dropped.sum(), backend.decodeErrors.sum());
+            System.out.printf(Locale.ROOT, "latência de envio: p50=%.1fms p99=%.1fms max=%.1fms (%d envios)%n",
+                latency.percentile(50) / 1e6, latency.percentile(99) / 1e6, latency.max() / 1e6, latency.count());
+            var causes = new StringBuilder();
+            for (var cause : VoiceModMetrics.ErrorCause.values()) {
+                long n = metrics.errors(cause);
+                if (n > 0) causes.append(' ').append(cause.label()).append('=').append(n);
+            }
+            System.out.printf(Locale.ROOT, "erros do connector: %d%s%n", errors(), causes);
+            System.out.printf(Locale.ROOT, "resyncs=%d seqs perdidas=%d conexões WebSocket=%d%n",
+                backend.resyncs.sum(), backend.seqGaps.sum(), backend.connections.sum());
+            if (recovery.count() > 0) {
+                System.out.printf(Locale.ROOT, "recuperação após queda: p50=%.0fms max=%.0fms (%d quedas)%n",
+                    recovery.percentile(50) / 1e6, recovery.max() / 1e6, recovery.count());
+            }
+            int stale = drift.over(tolerance);
+            System.out.printf(Locale.ROOT, "após parar: ausentes=%d sobrando=%d desatualizados=%d (convergiu em %s)%n",
+                drift.missing(), drift.extra(), stale - drift.missing(),
+                stale + drift.extra() == 0 ? convergedMs + "ms" : "não, " + settleMs + "ms");
+
+            boolean ok = true;
+            int maxStale = o.intValue("max-stale", 0);
+            if (stale + drift.extra() > maxStale) {
+                System.out.printf("FALHOU: %d jogadores divergentes (limite %d)%n", stale + drift.extra(), maxStale);
+                ok = false;
+            }
+            double maxP99 = o.doubleValue("max-p99-ms", 0);
+            if (maxP99 > 0 && latency.percentile(99) / 1e6 > maxP99) {
+                System.out.printf(Locale.ROOT, "FALHOU: p99 %.1fms > %.1fms%n", latency.percentile(99) / 1e6, maxP99);
+                ok = false;
+            }
+            double maxRecovery = o.doubleValue("max-recovery-ms", 0);
+            if (maxRecovery > 0 && recovery.max() / 1e6 > maxRecovery) {
+                System.out.printf(Locale.ROOT, "FALHOU: recuperação %.0fms > %.0fms%n", recovery.max() / 1e6, maxRecovery);
+                ok = false;
+            }
+            System.out.println(ok ? "OK" : "FALHOU");
+            return ok;
+        }
+
+        private long errors() {
+            long n = 0;
+            for (var cause : VoiceModMetrics.ErrorCause.values()) {
+                n += metrics.errors(cause);
+            }
+            return n;
+        }
+
+        private static String blocks(double v) {
+            return Double.isInfinite(v) ? "∞" : String.format(Locale.ROOT, "%.2f", v);
+        }
+    }
+
+    /** Opções {@code --nome valor} ou {@code --nome=valor}. */
+    static final class Options {
+
+        static final String USAGE = """
+            uso: SoakRunner [opções]
+              --players N          jogadores simulados (2000)
+              --worlds N           mundos (4)
+              --duration S         duração em segundos (60)
+              --moving F           fração que anda (0.3)
+              --speaking F         fração falando (0.05)
+              --churn F            fração que sai/entra por segundo (0.001)
+              --transport T        http | websocket (http)
+              --format F           binary | json (binary)
+              --latency-ms MS      atraso do backend (0)
+              --jitter-ms MS       atraso extra aleatório (0)
+              --failure-rate P     chance de recusar um frame (0)
+              --drop-rate P        chance de cortar a conexão (0)
+              --outage-every S     queda do backend a cada S segundos (0 = nunca)
+              --outage-ms MS       duração da queda (3000)
+              --max-stale N        divergentes aceitos no fim (0)
+              --max-p99-ms MS      limite do p99 de envio (sem limite)
+              --max-recovery-ms MS limite da recuperação após queda (sem limite)
+            também: --epsilon, --keyframe-interval, --max-inflight, --adaptive, --rate-min-ms,
+            --rate-max-ms, --settle-ms, --seed""";
+
+        private final Map<String, String> values = new HashMap<>();
+
+        static Options parse(String[] args) {
+            var options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                var arg = args[i];
+                if (!arg.startsWith("--")) throw new IllegalArgumentException("Opção inválida: " + arg + "\n" + USAGE);
+                var name = arg.substring(2);
+                int eq = name.indexOf('=');
+                if (eq >= 0) {
+                    options.values.put(name.substring(0, eq), name.substring(eq + 1));
+                } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    options.values.put(name, args[++i]);
+                } else {
+                    options.values.put(name, "true");
+                }
+            }
+            return options;
+        }
+
+        boolean flag(String name) {
+            return Boolean.parseBoolean(values.getOrDefault(name, "false"));
+        }
+
+        String value(String name, String fallback) {
+            return values.getOrDefault(name, fallback);
+        }
+
+        int intValue(String name, int fallback) {
+            return values.containsKey(name) ? Integer.parseInt(values.get(name)) : fallback;
+        }
+
+        long longValue(String name, long fallback) {
+            return values.containsKey(name) ? Long.parseLong(values.get(name)) : fallback;
+        }
+
+        double doubleValue(String name, double fallback) {
+            return values.containsKey(name) ? Double.parseDouble(values.get(name)) : fallback;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package dev.voicemod.soak;
+
+import dev.voicemod.metrics.Histogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Backend falso, no mesmo processo, no lugar do backend Node: recebe os frames de posição
+ * do {@link dev.voicemod.backend.VoiceBackendConnector}, decodifica como o server.js
+ * ({@link FrameDecoder}) e responde no mesmo formato e com os mesmos status (resync quando
+ * perde a sequência, erro quando o frame não decodifica).
+ * Injeta latência, falhas e quedas ({@link FaultPlan}) e conta o que chegou.
+ *
+ * Uma queda derruba o servidor e as conexões; ao voltar o estado recebido é descartado,
+ * como num restart do Node. As subclasses só cuidam do transporte.
+ */
+abstract class StubBackend {
+
+    final FaultPlan faults;
+
+    final LongAdder frames = new LongAdder();
+    final LongAdder keyframes = new LongAdder();
+    final LongAdder updates = new LongAdder();
+    final LongAdder seqGaps = new LongAdder();
+    final LongAdder bytes = new LongAdder();
+    final LongAdder resyncs = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+    final LongAdder decodeErrors = new LongAdder();
+    final LongAdder connections = new LongAdder();
+    /** Da volta de uma queda até o primeiro frame aceito. */
+    final Histogram recoveryNanos = new Histogram();
+
+    private FrameDecoder decoder = new FrameDecoder();
+    /** Fim da última queda (nanoTime) enquanto nenhum frame chegou depois dela, ou 0. */
+    private long recoveringSince;
+    private volatile boolean down;
+    private int port;
+
+    StubBackend(FaultPlan faults) {
+        this.faults = faults;
+    }
+
+    /** Sobe o servidor; na primeira vez numa porta livre, depois na mesma porta. */
+    final synchronized void start() throws IOException {
+        port = bind(port);
+    }
+
+    final synchronized void stop() {
+        down = true;
+        unbind();
+    }
+
+    /** Derruba o servidor e as conexões abertas. */
+    final synchronized void beginOutage() {
+        stop();
+    }
+
+    /** Volta sem o estado anterior (o plugin precisa mandar keyframe). */
+    final synchronized void endOutage() throws IOException {
+        decoder = new FrameDecoder();
+        recoveringSince = System.nanoTime();
+        down = false;
+        start();
+    }
+
+    final int port() {
+        return port;
+    }
+
+    final boolean isDown() {
+        return down;
+    }
+
+    /** Porta usada (0 = qualquer livre). */
+    abstract int bind(int port) throws IOException;
+
+    abstract void unbind();
+
+    /** Nova conexão do plugin: no WebSocket o backend só aceita keyframe a seguir. */
+    final synchronized void resetSession() {
+        decoder = new FrameDecoder();
+    }
+
+    /**
+     * Decodifica um frame (binário ou JSON) e devolve se o backend pede resync. Frame que
+     * não decodifica conta em {@link #decodeErrors} e lança (o server.js responde erro).
+     */
+    final boolean accept(ByteBuffer binary, String json) {
+        frames.increment();
+        bytes.add(binary != null ? binary.remaining() : json.length());
+        synchronized (this) {
+            try {
+                var result = binary != null ? decoder.decodeBinary(binary) : decoder.decodeJson(json);
+                if (result.keyframe()) keyframes.increment();
+                updates.add(result.players());
+                seqGaps.add(result.seqGap());
+                if (result.resync()) {
+                    resyncs.increment();
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                decodeErrors.increment();
+                throw new IllegalArgumentException(e.getMessage() != null ? e.getMessage() : "Frame inválido", e);
+            }
+            if (recoveringSince != 0) {
+                recoveryNanos.record(System.nanoTime() - recoveringSince);
+                recoveringSince = 0;
+            }
+            return false;
+        }
+    }
+
+    /** Cópia das posições que o backend conhece. */
+    final synchronized Map<UUID, FrameDecoder.Position> positions() {
+        return new HashMap<>(decoder.positions);
+    }
+
+    /** Corpo de erro do server.js: {@code {"error": ...}}. */
+    static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    /** String JSON entre aspas (mensagens de erro só têm texto simples). */
+    static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    static String response(int count, boolean resync) {
+        return "{\"ok\":true,\"count\":" + count + ",\"resync\":" + resync + ",\"speaking\":[]}";
+    }
+}
@@ -0,0 +1,233 @@
+package dev.voicemod.soak;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Backend falso WebSocket (/plugin): servidor RFC 6455 mínimo sobre {@link ServerSocket},
+ * uma thread virtual por conexão. Só o necessário para o {@link java.net.http.WebSocket}
+ * do JDK: handshake, frames mascarados do cliente (com continuação), ping/pong e close.
+ * Responde em texto só quando pede resync, como o server.js.
+ *
+ * A latência injetada atrasa a leitura de cada frame (o cliente sente pela fila TCP);
+ * uma falha descarta o frame e a queda de conexão fecha o socket sem close frame.
+ */
+final class WebSocketStubBackend extends StubBackend {
+
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_MESSAGE = 16 * 1024 * 1024;
+
+    private ServerSocket server;
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+
+    WebSocketStubBackend(FaultPlan faults) {
+        super(faults);
+    }
+
+    @Override
+    int bind(int port) throws IOException {
+        var socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 256);
+        server = socket;
+        Thread.ofVirtual().name("soak-ws-accept").start(() -> acceptLoop(socket));
+        return socket.getLocalPort();
+    }
+
+    @Override
+    void unbind() {
+        if (server == null) return;
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        server = null;
+        for (var socket : open) {
+            closeQuietly(socket);
+        }
+        open.clear();
+    }
+
+    private void acceptLoop(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            try {
+                var client = socket.accept();
+                open.add(client);
+                Thread.ofVirtual().name("soak-ws-conn").start(() -> serve(client));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            var in = new DataInputStream(socket.getInputStream());
+            var out = socket.getOutputStream();
+            if (!handshake(in, out)) return;
+            connections.increment();
+            resetSession();
+
+            var message = new ByteArrayOutputStream();
+            int messageOpcode = 0;
+            while (true) {
+                int b0 = in.readUnsignedByte();
+                int b1 = in.readUnsignedByte();
+                boolean fin = (b0 & 0x80) != 0;
+                int opcode = b0 & 0x0F;
+                long len = b1 & 0x7F;
+                if (len == 126) len = in.readUnsignedShort();
+                else if (len == 127) len = in.readLong();
+                if (len > MAX_MESSAGE) return;
+                var mask = new byte[4];
+                if ((b1 & 0x80) != 0) in.readFully(mask);
+                var payload = new byte[(int) len];
+                in.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i & 3];
+                }
+
+                if (opcode == 0x8) {
+                    writeFrame(out, 0x8, payload);
+                    return;
+                }
+                if (opcode == 0x9) {
+                    writeFrame(out, 0xA, payload);
+                    continue;
+                }
+                if (opcode == 0xA) continue;
+                if (opcode != 0) {
+                    messageOpcode = opcode;
+                    message.reset();
+                }
+                message.write(payload);
+                if (!fin) continue;
+                if (message.size() > MAX_MESSAGE) return;
+
+                faults.delay();
+                if (faults.drop()) {
+                    dropped.increment();
+                    return;
+                }
+                if (faults.fail()) {
+                    // frame perdido: o próximo delta chega com a seq pulada e pede resync
+                    rejected.increment();
+                    continue;
+                }
+                var bytes = message.toByteArray();
+                boolean resync;
+                try {
+                    resync = messageOpcode == 0x2
+                        ? accept(ByteBuffer.wrap(bytes), null)
+                        : accept(null, new String(bytes, StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException e) {
+                    // como o server.js: só avisa; o próximo delta pula a seq e pede resync
+                    writeFrame(out, 0x1, ("{\"type\":\"error\",\"message\":" + quote(e.getMessage()) + "}")
+                        .getBytes(StandardCharsets.UTF_8));
+                    continue;
+                }
+                if (resync) {
+                    writeFrame(out, 0x1, "{\"type\":\"resync\"}".getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // conexão encerrada (pelo cliente ou por uma queda)
+        } catch (IOException e) {
+            decodeErrors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    /** Lê o pedido de upgrade e responde 101; false (com 404/400) se não for /plugin. */
+    private static boolean handshake(DataInputStream in, OutputStream out) throws IOException {
+        var requestLine = readLine(in);
+        String key = null;
+        for (var line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        var parts = requestLine.split(" ");
+        if (parts.length < 2 || !parts[1].equals("/plugin") || key == null) {
+            out.write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            return false;
+        }
+        var response = "HTTP/1.1 101 Switching Protocols\r\n"
+            + "Upgrade: websocket\r\n"
+            + "Connection: Upgrade\r\n"
+            + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return true;
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            var sha1 = MessageDigest.getInstance("SHA-1");
+            return Base64.getEncoder().encodeToString(sha1.digest((key + GUID).getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        var sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1 && c != '\n') {
+            if (c != '\r') sb.append((char) c);
+        }
+        if (c == -1 && sb.isEmpty()) throw new EOFException();
+        return sb.toString();
+    }
+
+    /** Frame do servidor (sem máscara). */
+    private static void writeFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+        var header = new byte[10];
+        int n = 0;
+        header[n++] = (byte) (0x80 | opcode);
+        if (payload.length < 126) {
+            header[n++] = (byte) payload.length;
+        } else if (payload.length < 65536) {
+            header[n++] = 126;
+            header[n++] = (byte) (payload.length >>> 8);
+            header[n++] = (byte) payload.length;
+        } else {
+            header[n++] = 127;
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                header[n++] = (byte) ((long) payload.length >>> shift);
+            }
+        }
+        synchronized (out) {
+            out.write(header, 0, n);
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}